@@ -2,6 +2,10 @@ package rpg;
 import be.kuleuven.cs.som.annotate.*;
 import rpg.alchemy.AlchemicIngredient;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+
 /**
  * An enumeration of units.
  *
@@ -38,11 +42,26 @@ public enum Unit {
 	 * PROPERTIES
 	 **********************************************************/
 
+	/**
+	 * A variable referencing the number of base quantities in one spoon.
+	 *
+	 * @note	The base quantity is 1/24 of a spoon, i.e. the least common multiple
+	 * 			of the denominators of a drop (1/8) and a pinch (1/6), so that every unit
+	 * 			is an exact integer number of base quantities and all unit math can
+	 * 			be done with integer operations.
+	 */
+	public static final long BASE_QUANTITIES_PER_SPOON = 24;
+
 	/**
 	 * Variable with the spoon equivalent value of that unit.
 	 */
 	private final double spoonEquivalent;
 
+	/**
+	 * Variable with the equivalent value of that unit, expressed in base quantities.
+	 */
+	private final long baseEquivalent;
+
 	/**
 	 * A list of states containing the states which the unit can be used for.
 	 */
@@ -53,6 +72,98 @@ public enum Unit {
 	 */
 	private final boolean isAllowedForContainer;
 
+	/**
+	 * A set containing the states which the unit can be used for, used for constant time lookups.
+	 */
+	private final EnumSet<State> allowedStateSet;
+
+
+
+	/**********************************************************
+	 * LOOKUP TABLES
+	 *
+	 * @note	These tables are computed once when the enumeration
+	 * 			is initialized, so that the queries below don't need
+	 * 			to loop over Unit.values() (which clones the array).
+	 **********************************************************/
+
+	/**
+	 * A variable referencing all units, in order of declaration (i.e. increasing spoon equivalent).
+	 */
+	private static final Unit[] UNITS = values();
+
+	/**
+	 * A matrix containing the conversion factor from the unit with the row ordinal
+	 * to the unit with the column ordinal.
+	 */
+	private static final double[][] CONVERSIONS = new double[UNITS.length][UNITS.length];
+
+	/**
+	 * A matrix containing whether the unit with the row ordinal can be converted
+	 * to the unit with the column ordinal.
+	 */
+	private static final boolean[][] CONVERSIONS_ALLOWED = new boolean[UNITS.length][UNITS.length];
+
+	/**
+	 * A map containing, for each state, all units allowed for that state, sorted by spoon equivalent.
+	 */
+	private static final Map<State, Unit[]> UNITS_FOR_STATE = new EnumMap<>(State.class);
+
+	/**
+	 * A map containing, for each state, all units allowed for a container with contents of that state,
+	 * sorted by spoon equivalent.
+	 */
+	private static final Map<State, Unit[]> CONTAINER_UNITS_FOR_STATE = new EnumMap<>(State.class);
+
+	/**
+	 * A map containing, for each state, the base equivalents of the container units of that state,
+	 * in the same order as CONTAINER_UNITS_FOR_STATE.
+	 */
+	private static final Map<State, long[]> CONTAINER_BASES_FOR_STATE = new EnumMap<>(State.class);
+
+	static {
+		for (Unit from : UNITS) {
+			for (Unit to : UNITS) {
+				CONVERSIONS[from.ordinal()][to.ordinal()] = from.getSpoonEquivalent() / to.getSpoonEquivalent();
+				for (State state : from.getAllowedStatesObject()) {
+					if (to.allowedStateSet.contains(state)) {
+						CONVERSIONS_ALLOWED[from.ordinal()][to.ordinal()] = true;
+					}
+				}
+			}
+		}
+		// the units are declared in order of increasing spoon equivalent, so the tables are sorted
+		for (State state : State.values()) {
+			int nbOfUnits = 0;
+			int nbOfContainerUnits = 0;
+			for (Unit unit : UNITS) {
+				if (unit.hasAsAllowedState(state)) {
+					nbOfUnits++;
+					if (unit.isAllowedForContainer()) {
+						nbOfContainerUnits++;
+					}
+				}
+			}
+			Unit[] units = new Unit[nbOfUnits];
+			Unit[] containerUnits = new Unit[nbOfContainerUnits];
+			long[] containerBases = new long[nbOfContainerUnits];
+			int i = 0;
+			int j = 0;
+			for (Unit unit : UNITS) {
+				if (unit.hasAsAllowedState(state)) {
+					units[i++] = unit;
+					if (unit.isAllowedForContainer()) {
+						containerBases[j] = unit.getBaseEquivalent();
+						containerUnits[j++] = unit;
+					}
+				}
+			}
+			UNITS_FOR_STATE.put(state, units);
+			CONTAINER_UNITS_FOR_STATE.put(state, containerUnits);
+			CONTAINER_BASES_FOR_STATE.put(state, containerBases);
+		}
+	}
+
 
 
 	/**********************************************************
@@ -78,6 +189,9 @@ public enum Unit {
 	 *
 	 * @post	The spoon equivalent of the new unit is set to the given spoon equivalent.
 	 * 			| new.getSpoonEquivalent() == spoonEquivalent
+	 * @post	The base equivalent of the new unit is set to the given spoon equivalent,
+	 * 			expressed in base quantities.
+	 * 			| new.getBaseEquivalent() == Math.round(spoonEquivalent * BASE_QUANTITIES_PER_SPOON)
 	 * @post	The list of allowed states of the new unit is set to the given list of allowed states.
 	 * 			| new.getAllowedStates() == allowedStates
 	 * @post	The new unit is allowed to be the unit for a container if
@@ -87,8 +201,13 @@ public enum Unit {
 	@Model
     Unit(double spoonEquivalent, State[] allowedStates, boolean isAllowedForContainer) {
 		this.spoonEquivalent = spoonEquivalent;
+		this.baseEquivalent = Math.round(spoonEquivalent * BASE_QUANTITIES_PER_SPOON);
 		this.allowedStates = allowedStates;
 		this.isAllowedForContainer = isAllowedForContainer;
+		this.allowedStateSet = EnumSet.noneOf(State.class);
+		for (State state : allowedStates) {
+			this.allowedStateSet.add(state);
+		}
 	}
 
 
@@ -105,6 +224,14 @@ public enum Unit {
 		return spoonEquivalent;
 	}
 
+	/**
+	 * Return the equivalent of this unit in base quantities.
+	 */
+	@Basic @Immutable
+	public long getBaseEquivalent() {
+		return baseEquivalent;
+	}
+
 	/**
 	 * A method for returning the equivalent of this unit in storerooms.
 	 *
@@ -113,7 +240,7 @@ public enum Unit {
 	 */
 	@Immutable
 	public double getStoreroomEquivalent() {
-		return getConversionFor(Unit.STOREROOM);
+		return CONVERSIONS[ordinal()][STOREROOM.ordinal()];
 	}
 
 	/**
@@ -147,12 +274,7 @@ public enum Unit {
 	 * 			|				allowedState == state )
 	 */
 	public boolean hasAsAllowedState(State state) {
-		for (State allowedState : getAllowedStatesObject()) {
-			if (state == allowedState) {
-				return true;
-			}
-		}
-		return false;
+		return state != null && allowedStateSet.contains(state);
 	}
 
 	/**
@@ -174,12 +296,7 @@ public enum Unit {
 		if (unit == null) {
 			return false;
 		}
-		for (State allowedState : getAllowedStatesObject()) {
-			if (unit.hasAsAllowedState(allowedState)) {
-				return true;
-			}
-		}
-		return false;
+		return CONVERSIONS_ALLOWED[ordinal()][unit.ordinal()];
 	}
 
 	/**
@@ -197,7 +314,7 @@ public enum Unit {
 	 * 			| result == this.getSpoonEquivalent() / unit.getSpoonEquivalent()
 	 */
 	public double getConversionFor(Unit unit) {
-		return this.getSpoonEquivalent() / unit.getSpoonEquivalent();
+		return CONVERSIONS[ordinal()][unit.ordinal()];
 	}
 
 	/**
@@ -225,15 +342,8 @@ public enum Unit {
 	 */
 	@Immutable
 	public static Unit getMaxUnitForContainerWithState(State state) {
-		Unit maxUnit = null;
-		for (Unit unit : Unit.values()) {
-			if (unit.isAllowedForContainer() && unit.hasAsAllowedState(state)) {
-				if (maxUnit == null || unit.getSpoonEquivalent() > maxUnit.getSpoonEquivalent()) {
-					maxUnit = unit;
-				}
-			}
-		}
-		return maxUnit;
+		Unit[] containerUnits = CONTAINER_UNITS_FOR_STATE.get(state);
+		return containerUnits[containerUnits.length - 1];
 	}
 
 	/**
@@ -256,16 +366,22 @@ public enum Unit {
 	 * 			| 			then unit.getSpoonEquivalent() > result.getSpoonEquivalent()
 	 */
 	public static Unit getMinUnitForContainerWithIngredient(AlchemicIngredient ingredient) {
-		Unit minUnit = getMaxUnitForContainerWithState(ingredient.getState());
-		for (Unit u : Unit.values()) {
-			if (u.isAllowedForContainer()
-					&& u.hasAsAllowedState(ingredient.getState())
-					&& u.getSpoonEquivalent() < minUnit.getSpoonEquivalent()
-					&& u.getSpoonEquivalent() >= ingredient.getSpoonAmount() ) {
-				minUnit = u;
+		Unit[] containerUnits = CONTAINER_UNITS_FOR_STATE.get(ingredient.getState());
+		long[] containerBases = CONTAINER_BASES_FOR_STATE.get(ingredient.getState());
+		long baseAmount = ingredient.getBaseAmount();
+		// binary search for the first unit with a base equivalent of at least the base amount
+		int low = 0;
+		int high = containerBases.length - 1;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (containerBases[middle] >= baseAmount) {
+				high = middle;
+			} else {
+				low = middle + 1;
 			}
 		}
-		return minUnit;
+		// if no unit is big enough, low ends up at the maximum unit
+		return containerUnits[low];
 	}
 
 	/**
@@ -288,19 +404,46 @@ public enum Unit {
 	 * 			|			then unit.getSpoonEquivalent() < result.getSpoonEquivalent()
 	 */
 	public static Unit getBestUnitForStateAndSpoons(State state, double amountOfSpoons) {
-		Unit bestUnit = null;
-		// the case of being the min. unit if the conversion will not be an integer will always be the case
-		// because then only the first unit will be chosen, which is the minimum. (they are ordered this way)
-		for (Unit unit : Unit.values()) {
-			if (unit.hasAsAllowedState(state)) {
-				// we check if amountOfSpoons is a multiple of the spoonequivalent of the unit
-				if (bestUnit == null || (unit.getSpoonEquivalent() > bestUnit.getSpoonEquivalent()
-						&& (amountOfSpoons / unit.getSpoonEquivalent()) % 1 == 0)) {
-					bestUnit = unit;
-				}
+		Unit[] units = UNITS_FOR_STATE.get(state);
+		// we look for the biggest unit of which amountOfSpoons is a multiple, starting from the biggest unit
+		for (int i = units.length - 1; i > 0; i--) {
+			if ((amountOfSpoons / units[i].getSpoonEquivalent()) % 1 == 0) {
+				return units[i];
+			}
+		}
+		// the conversion will never be an integer, so we return the minimum unit
+		return units[0];
+	}
+
+	/**
+	 * A method for getting the best unit for a given state and amount of base quantities.
+	 * This being the biggest unit where the conversion from base quantities to this unit
+	 * will result in an integer, or being the minimum unit if this is never the case.
+	 *
+	 * @param 	state
+	 * 			The state to check.
+	 * @param   baseAmount
+	 * 			The amount of base quantities to use.
+	 * @pre 	The given state must be effective.
+	 * 			| state != null
+	 * @pre 	The given amount of base quantities is strictly positive.
+	 * 			| baseAmount > 0
+	 * @return	The best unit a of a state with given amount of base quantities.
+	 * 			| for each unit in Unit.values():
+	 * 			|	if (&& unit.hasAsAllowedState(state) && unit != result
+	 * 			|		&& baseAmount % unit.getBaseEquivalent() == 0)
+	 * 			|			then unit.getBaseEquivalent() < result.getBaseEquivalent()
+	 *
+	 * @note	This is the exact (integer) counterpart of getBestUnitForStateAndSpoons.
+	 */
+	public static Unit getBestUnitForStateAndBaseAmount(State state, long baseAmount) {
+		Unit[] units = UNITS_FOR_STATE.get(state);
+		for (int i = units.length - 1; i > 0; i--) {
+			if (baseAmount % units[i].getBaseEquivalent() == 0) {
+				return units[i];
 			}
 		}
-		return bestUnit;
+		return units[0];
 	}
 
 }
@@ -1,6 +1,10 @@
 package rpg;
 
 import org.junit.jupiter.api.*;
+import rpg.alchemy.AlchemicIngredient;
+import rpg.alchemy.IngredientType;
+import rpg.alchemy.Name;
+import rpg.alchemy.Temperature;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class UnitTest {
@@ -45,4 +49,52 @@ public class UnitTest {
 		assertEquals(Unit.CHEST, Unit.getMaxUnitForContainerWithState(State.POWDER));
 	}
 
+	@Test
+	public void allowedStates() {
+		assertTrue(Unit.SPOON.hasAsAllowedState(State.LIQUID));
+		assertTrue(Unit.SPOON.hasAsAllowedState(State.POWDER));
+		assertFalse(Unit.DROP.hasAsAllowedState(State.POWDER));
+		assertFalse(Unit.DROP.hasAsAllowedState(null));
+	}
+
+	@Test
+	public void storeroomEquivalent() {
+		assertEquals(1, Unit.STOREROOM.getStoreroomEquivalent());
+		assertEquals((double) 1260/6300, Unit.BARREL.getStoreroomEquivalent());
+	}
+
+	@Test
+	public void minUnitForContainer() {
+		IngredientType powderType = new IngredientType(new Name(null, "Powder Sugar"), State.POWDER, new Temperature(), false);
+		assertEquals(Unit.SPOON, Unit.getMinUnitForContainerWithIngredient(new AlchemicIngredient(3, Unit.PINCH, powderType)));
+		assertEquals(Unit.SACHET, Unit.getMinUnitForContainerWithIngredient(new AlchemicIngredient(7, Unit.SPOON, powderType)));
+		assertEquals(Unit.BOX, Unit.getMinUnitForContainerWithIngredient(new AlchemicIngredient(8, Unit.SPOON, powderType)));
+		assertEquals(Unit.CHEST, Unit.getMinUnitForContainerWithIngredient(new AlchemicIngredient(1, Unit.STOREROOM, powderType)));
+	}
+
+	@Test
+	public void bestUnitForStateAndSpoons() {
+		assertEquals(Unit.DROP, Unit.getBestUnitForStateAndSpoons(State.LIQUID, 0.125));
+		assertEquals(Unit.SPOON, Unit.getBestUnitForStateAndSpoons(State.LIQUID, 3));
+		assertEquals(Unit.VIAL, Unit.getBestUnitForStateAndSpoons(State.LIQUID, 10));
+		assertEquals(Unit.STOREROOM, Unit.getBestUnitForStateAndSpoons(State.POWDER, 12600));
+		assertEquals(Unit.PINCH, Unit.getBestUnitForStateAndSpoons(State.POWDER, 0.5));
+	}
+
+	@Test
+	public void baseEquivalent() {
+		assertEquals(3, Unit.DROP.getBaseEquivalent());
+		assertEquals(4, Unit.PINCH.getBaseEquivalent());
+		assertEquals(Unit.BASE_QUANTITIES_PER_SPOON, Unit.SPOON.getBaseEquivalent());
+		assertEquals(6300 * Unit.BASE_QUANTITIES_PER_SPOON, Unit.STOREROOM.getBaseEquivalent());
+	}
+
+	@Test
+	public void bestUnitForStateAndBaseAmount() {
+		assertEquals(Unit.DROP, Unit.getBestUnitForStateAndBaseAmount(State.LIQUID, 9));
+		assertEquals(Unit.SPOON, Unit.getBestUnitForStateAndBaseAmount(State.LIQUID, 48));
+		assertEquals(Unit.PINCH, Unit.getBestUnitForStateAndBaseAmount(State.POWDER, 28));
+		assertEquals(Unit.SACHET, Unit.getBestUnitForStateAndBaseAmount(State.POWDER, 336));
+	}
+
 }
@@ -169,6 +169,19 @@ public class AlchemicIngredient {
     	return amount * getUnit().getSpoonEquivalent();
     }
 
+    /**
+     * A method to get the amount of this alchemic ingredient in base quantities.
+     *
+     * @return  The amount of this alchemic ingredient in base quantities.
+     *          | result == amount * getUnit().getBaseEquivalent()
+     *
+     * @note    Contrary to the spoon amount, this amount is exact.
+     */
+    @Immutable
+    public long getBaseAmount() {
+        return amount * getUnit().getBaseEquivalent();
+    }
+
     /**
      * A method to get the amount of this alchemic ingredient in storerooms.
      *
@@ -524,27 +537,26 @@ public class AlchemicIngredient {
     }
 
     /**
-     * A method for getting the extended simple name of the ingredient (with heated or cooled).
+     * A method for getting the temperature class of the ingredient (heated, cooled or standard).
      *
-     * @return  If the ingredient is heated, the extended name is "Heated" + the simple name.
+     * @return  If the ingredient is hotter than its standard temperature, it is heated.
      *          | if ( temperature.isHotterThan(getType().getStandardTemperature()) )
-     *          |   then result.equals("Heated " + getSimpleName())
-     * @return  If the ingredient is cooled, the extended name is "Cooled" + the simple name.
+     *          |   then result == TemperatureClass.HEATED
+     * @return  If the ingredient is colder than its standard temperature, it is cooled.
      *          | if ( temperature.isColderThan(getType().getStandardTemperature()) )
-     *          |   then result.equals("Cooled " + getSimpleName())
-     * @return  If the ingredient is neither heated nor cooled, the extended name is the simple name.
+     *          |   then result == TemperatureClass.COOLED
+     * @return  If the ingredient is neither heated nor cooled, it is at its standard temperature.
      *          | if (temperature.getHotness() == getType().getStandardTemperature()[1] &&
      *          |   temperature.getColdness() == getType().getStandardTemperature()[0] )
-     *          |   then result.equals(getSimpleName())
+     *          |   then result == TemperatureClass.STANDARD
      */
-    @Model
-    private String getExtendedSimpleName() {
+    public TemperatureClass getTemperatureClass() {
         if ( isHotterThanStandardTemperature() ) {
-            return "Heated " + getSimpleName();
+            return TemperatureClass.HEATED;
         } else if ( isColderThanStandardTemperature() ) {
-            return "Cooled " + getSimpleName();
+            return TemperatureClass.COOLED;
         } else {
-            return getSimpleName();
+            return TemperatureClass.STANDARD;
         }
     }
 
@@ -552,19 +564,18 @@ public class AlchemicIngredient {
      * A method to get the full name of an ingredient.
      *
      * @return  If the ingredient is mixed and has a special name then the full name is
-     *          the special name followed by the extended simple name in brackets.
+     *          the special name followed by the simple name, prefixed with Heated or Cooled
+     *          if applicable, in brackets.
      *          | if (getType().isMixed() && getSpecialName() != null)
-     *          |   then result.equals(getSpecialName() + " (" + getExtendedSimpleName() + ")")
-     * @return  Otherwise the full name is just the extended simple name
+     *          |   then result.equals(getSpecialName() + " (" + getTemperatureClass().getPrefix() + getSimpleName() + ")")
+     * @return  Otherwise the full name is just the simple name, prefixed with Heated or Cooled if applicable.
      *          | if !(getType().isMixed() && getSpecialName() != null)
-     *          |   then result.equals(getExtendedSimpleName())
+     *          |   then result.equals(getTemperatureClass().getPrefix() + getSimpleName())
+     *
+     * @note    The full names are memoized by the name of the type, per temperature class.
      */
     public String getFullName() {
-        if (getType().isMixed() && getSpecialName() != null) {
-            return getSpecialName() + " (" + getExtendedSimpleName() + ")";
-        } else {
-            return getExtendedSimpleName();
-        }
+        return getType().getName().getFullName(getTemperatureClass());
     }
 
 
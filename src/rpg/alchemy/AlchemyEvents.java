@@ -0,0 +1,222 @@
+package rpg.alchemy;
+
+import be.kuleuven.cs.som.annotate.*;
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import rpg.recipe.Operation;
+import rpg.recipe.Recipe;
+
+/**
+ * A class holding the Java Flight Recorder events of recipes, devices and laboratories.
+ *
+ * @note	All events are disabled by default. As long as an event is disabled, it is a small object
+ * 			that doesn't escape the method that creates it, so the JIT compiler removes it altogether;
+ * 			the names of the ingredients are only collected when the event is enabled. Enable them with
+ * 			e.g. -XX:StartFlightRecording:settings=profile,+rpg.alchemy.RecipeExecution#enabled=true
+ * 			or with a custom .jfc file.
+ * @note	Recipes don't have an id, so they are identified by their identity hash code.
+ *
+ * @author	Vincent Van Schependom
+ * @author 	Arne Claerhout
+ * @author	Flor De Meulemeester
+ *
+ * @version	1.0
+ */
+final class AlchemyEvents {
+
+	/**
+	 * AlchemyEvents can't be instantiated.
+	 */
+	private AlchemyEvents() {
+	}
+
+	/**
+	 * Return the simple names of the ingredients of the given recipe, separated by commas.
+	 */
+	@Model
+	private static String getIngredientNames(Recipe recipe) {
+		StringBuilder names = new StringBuilder();
+		for (int i = 0; i < recipe.getNbOfIngredients(); i++) {
+			if (i > 0) {
+				names.append(", ");
+			}
+			names.append(recipe.getIngredientAt(i).getSimpleName());
+		}
+		return names.toString();
+	}
+
+	/**
+	 * Return the simple names of the ingredients in the given storage location, separated by commas.
+	 */
+	@Model
+	private static String getIngredientNames(StorageLocation location) {
+		StringBuilder names = new StringBuilder();
+		for (int i = 0; i < location.getNbOfIngredients(); i++) {
+			if (i > 0) {
+				names.append(", ");
+			}
+			names.append(location.getIngredientAt(i).getSimpleName());
+		}
+		return names.toString();
+	}
+
+
+
+	/**********************************************************
+	 * EVENTS
+	 **********************************************************/
+
+	/**
+	 * An event for the execution of a recipe in a laboratory.
+	 */
+	@Name("rpg.alchemy.RecipeExecution")
+	@Label("Recipe Execution")
+	@Category("Alchemy")
+	@Enabled(false)
+	@StackTrace(false)
+	static final class RecipeExecution extends Event {
+
+		@Label("Recipe Identity")
+		int recipeId;
+
+		@Label("Multiplier")
+		int multiplier;
+
+		@Label("Ingredients")
+		String ingredients;
+
+		@Label("Succeeded")
+		boolean succeeded;
+
+		/**
+		 * A constructor for a new event for the execution of a given recipe with a given multiplier,
+		 * that starts now.
+		 */
+		RecipeExecution(Recipe recipe, int multiplier) {
+			if (isEnabled()) {
+				this.recipeId = System.identityHashCode(recipe);
+				this.multiplier = multiplier;
+				this.ingredients = getIngredientNames(recipe);
+			}
+			begin();
+		}
+
+	}
+
+	/**
+	 * An event for the execution of a single instruction of a recipe.
+	 */
+	@Name("rpg.alchemy.RecipeStep")
+	@Label("Recipe Step")
+	@Category("Alchemy")
+	@Enabled(false)
+	@StackTrace(false)
+	static final class RecipeStep extends Event {
+
+		@Label("Recipe Identity")
+		int recipeId;
+
+		@Label("Index")
+		int index;
+
+		@Label("Operation")
+		String operation;
+
+		@Label("Ingredient")
+		String ingredient;
+
+		/**
+		 * A constructor for a new event for the instruction of a given recipe at a given index,
+		 * that starts now.
+		 *
+		 * @param	ingredient
+		 * 			The ingredient that is added, or null if the operation is not an addition.
+		 */
+		RecipeStep(Recipe recipe, int index, Operation operation, AlchemicIngredient ingredient) {
+			if (isEnabled()) {
+				this.recipeId = System.identityHashCode(recipe);
+				this.index = index;
+				this.operation = operation.name();
+				this.ingredient = (ingredient == null) ? null : ingredient.getSimpleName();
+			}
+			begin();
+		}
+
+	}
+
+	/**
+	 * An event for the operation of a device.
+	 */
+	@Name("rpg.alchemy.DeviceOperation")
+	@Label("Device Operation")
+	@Category("Alchemy")
+	@Enabled(false)
+	@StackTrace(false)
+	static final class DeviceOperation extends Event {
+
+		@Label("Device")
+		String device;
+
+		@Label("Number Of Ingredients")
+		int nbOfIngredients;
+
+		@Label("Ingredients")
+		String ingredients;
+
+		/**
+		 * A constructor for a new event for the operation of a given device on its current ingredients,
+		 * that starts now.
+		 */
+		DeviceOperation(Device device) {
+			if (isEnabled()) {
+				this.device = device.getClass().getSimpleName();
+				this.nbOfIngredients = device.getNbOfIngredients();
+				this.ingredients = getIngredientNames(device);
+			}
+			begin();
+		}
+
+	}
+
+	/**
+	 * An event for bringing an ingredient to a temperature with the cooling box or the oven of a laboratory.
+	 */
+	@Name("rpg.alchemy.TemperatureConvergence")
+	@Label("Temperature Convergence")
+	@Category("Alchemy")
+	@Enabled(false)
+	@StackTrace(false)
+	static final class TemperatureConvergence extends Event {
+
+		@Label("Ingredient")
+		String ingredient;
+
+		@Label("Target Coldness")
+		long coldness;
+
+		@Label("Target Hotness")
+		long hotness;
+
+		@Label("Iterations")
+		int iterations;
+
+		/**
+		 * A constructor for a new event for bringing a given ingredient to a given temperature,
+		 * that starts now.
+		 */
+		TemperatureConvergence(AlchemicIngredient ingredient, long[] temperature) {
+			if (isEnabled()) {
+				this.ingredient = ingredient.getSimpleName();
+				this.coldness = temperature[0];
+				this.hotness = temperature[1];
+			}
+			begin();
+		}
+
+	}
+
+}
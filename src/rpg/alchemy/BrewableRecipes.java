@@ -0,0 +1,225 @@
+package rpg.alchemy;
+
+import be.kuleuven.cs.som.annotate.*;
+import rpg.recipe.Recipe;
+import rpg.recipe.RecipeBook;
+
+import java.util.*;
+
+/**
+ * A class keeping track of the recipes of a recipe book that a laboratory can execute right now,
+ * i.e. with the devices and the stock of the laboratory.
+ *
+ * @invar	A recipe is brewable if and only if the laboratory has the devices for it and has,
+ * 			for every simple name, at least as much in stock as the recipe adds of it.
+ *
+ * @note	The laboratory updates the stock incrementally whenever an ingredient is added or removed,
+ * 			so only the recipes which need the changed ingredient are checked again. When the recipe
+ * 			book changes, everything is computed again once.
+ * @note	A tracker refers to the recipes by their pages, and it gets the recipe book with every query.
+ * 			Since recipes reference their recipe books, a tracker that referenced either would keep
+ * 			its recipe book alive.
+ *
+ * @author	Vincent Van Schependom
+ * @author 	Arne Claerhout
+ * @author	Flor De Meulemeester
+ *
+ * @version	1.0
+ */
+class BrewableRecipes {
+
+	/**********************************************************
+	 * CONSTRUCTOR
+	 **********************************************************/
+
+	/**
+	 * A constructor for a new tracker of the brewable recipes of a given recipe book in a given laboratory.
+	 *
+	 * @param 	laboratory
+	 * 			The laboratory.
+	 * @param 	recipeBook
+	 * 			The recipe book.
+	 *
+	 * @effect	The brewable recipes are computed.
+	 * 			| rebuild(recipeBook)
+	 */
+	BrewableRecipes(Laboratory laboratory, RecipeBook recipeBook) {
+		this.laboratory = laboratory;
+		rebuild(recipeBook);
+	}
+
+
+
+	/**********************************************************
+	 * LABORATORY AND RECIPE BOOK
+	 **********************************************************/
+
+	/**
+	 * A variable referencing the laboratory.
+	 */
+	private final Laboratory laboratory;
+
+	/**
+	 * A variable referencing the number of modifications of the recipe book
+	 * at the time the brewable recipes were computed.
+	 */
+	private int nbOfModificationsOfRecipeBook;
+
+
+
+	/**********************************************************
+	 * BOOKKEEPING
+	 **********************************************************/
+
+	/**
+	 * A variable referencing the amount each recipe adds, in base quantities, per simple name, per page.
+	 */
+	private final Map<Integer, Map<String, Long>> needs = new HashMap<>();
+
+	/**
+	 * A variable referencing the pages of the recipes that add an ingredient, per simple name.
+	 */
+	private final Map<String, List<Integer>> pagesByName = new HashMap<>();
+
+	/**
+	 * A variable referencing the amount in stock, in base quantities, per simple name that a recipe adds.
+	 */
+	private final Map<String, Long> stock = new HashMap<>();
+
+	/**
+	 * A variable referencing, per page, the number of simple names of which there is not enough in stock.
+	 */
+	private final Map<Integer, Integer> nbOfShortages = new HashMap<>();
+
+	/**
+	 * A variable referencing the pages of the recipes of which there is enough of every simple name in stock,
+	 * in ascending order.
+	 */
+	private final NavigableSet<Integer> pagesWithoutShortages = new TreeSet<>();
+
+	/**
+	 * A method to compute everything again from the given recipe book and the laboratory.
+	 *
+	 * @param 	recipeBook
+	 * 			The recipe book.
+	 *
+	 * @post	The tracker is up-to-date with the current recipe book.
+	 * 			| new.nbOfModificationsOfRecipeBook == recipeBook.getNbOfModifications()
+	 */
+	@Model
+	private void rebuild(RecipeBook recipeBook) {
+		needs.clear();
+		pagesByName.clear();
+		stock.clear();
+		nbOfShortages.clear();
+		pagesWithoutShortages.clear();
+		for (int i = 0; i < recipeBook.getNbOfRecipes(); i++) {
+			Recipe recipe = recipeBook.getRecipeAt(i);
+			// a recipe without instructions can't be executed
+			if (recipe != null && recipe.getNbOfOperations() > 0) {
+				Map<String, Long> needsOfRecipe = new HashMap<>();
+				for (int j = 0; j < recipe.getNbOfIngredients(); j++) {
+					AlchemicIngredient ingredient = recipe.getIngredientAt(j);
+					needsOfRecipe.merge(ingredient.getSimpleName(), ingredient.getBaseAmount(), Long::sum);
+				}
+				needs.put(i, needsOfRecipe);
+				for (String simpleName : needsOfRecipe.keySet()) {
+					pagesByName.computeIfAbsent(simpleName, name -> new ArrayList<>()).add(i);
+					stock.put(simpleName, 0L);
+				}
+			}
+		}
+		// a single pass over the stock of the laboratory
+		for (int i = 0; i < laboratory.getNbOfIngredients(); i++) {
+			AlchemicIngredient ingredient = laboratory.getIngredientAt(i);
+			stock.computeIfPresent(ingredient.getSimpleName(), (name, amount) -> amount + ingredient.getBaseAmount());
+		}
+		for (Map.Entry<Integer, Map<String, Long>> entry : needs.entrySet()) {
+			int shortages = 0;
+			for (Map.Entry<String, Long> need : entry.getValue().entrySet()) {
+				if (stock.get(need.getKey()) < need.getValue()) {
+					shortages++;
+				}
+			}
+			nbOfShortages.put(entry.getKey(), shortages);
+			if (shortages == 0) {
+				pagesWithoutShortages.add(entry.getKey());
+			}
+		}
+		nbOfModificationsOfRecipeBook = recipeBook.getNbOfModifications();
+	}
+
+
+
+	/**********************************************************
+	 * UPDATES
+	 **********************************************************/
+
+	/**
+	 * A method to register that the amount in stock of an ingredient with a given simple name has changed.
+	 *
+	 * @param 	simpleName
+	 * 			The simple name of the ingredient.
+	 * @param 	difference
+	 * 			The change of the amount in stock, in base quantities.
+	 *
+	 * @post	Only the recipes which add an ingredient with the given simple name are checked again.
+	 */
+	void stockChanged(String simpleName, long difference) {
+		Long oldAmount = stock.get(simpleName);
+		if (oldAmount == null) {
+			// no recipe needs this ingredient
+			return;
+		}
+		long newAmount = oldAmount + difference;
+		stock.put(simpleName, newAmount);
+		for (int page : pagesByName.get(simpleName)) {
+			long need = needs.get(page).get(simpleName);
+			boolean wasShort = oldAmount < need;
+			boolean isShort = newAmount < need;
+			if (wasShort != isShort) {
+				if (nbOfShortages.merge(page, isShort ? 1 : -1, Integer::sum) == 0) {
+					pagesWithoutShortages.add(page);
+				} else {
+					pagesWithoutShortages.remove(page);
+				}
+			}
+		}
+	}
+
+
+
+	/**********************************************************
+	 * QUERY
+	 **********************************************************/
+
+	/**
+	 * Return the recipes of the given recipe book that the laboratory can execute right now,
+	 * in the order of their pages.
+	 *
+	 * @param 	recipeBook
+	 * 			The recipe book of this tracker.
+	 *
+	 * @effect	If the recipe book has changed, everything is computed again first.
+	 * 			| if (nbOfModificationsOfRecipeBook != recipeBook.getNbOfModifications())
+	 * 			|	then rebuild(recipeBook)
+	 *
+	 * @note	Only the recipes of which there is enough in stock are visited, already in the order of
+	 * 			their pages. Whether the laboratory has the devices for them is checked right away,
+	 * 			so a change of the devices doesn't have to be tracked.
+	 */
+	List<Recipe> getBrewableRecipes(RecipeBook recipeBook) {
+		if (nbOfModificationsOfRecipeBook != recipeBook.getNbOfModifications()) {
+			rebuild(recipeBook);
+		}
+		List<Recipe> brewableRecipes = new ArrayList<>();
+		for (int page : pagesWithoutShortages) {
+			Recipe recipe = recipeBook.getRecipeAt(page);
+			if (laboratory.hasDevicesForRecipe(recipe)) {
+				brewableRecipes.add(recipe);
+			}
+		}
+		return brewableRecipes;
+	}
+
+}
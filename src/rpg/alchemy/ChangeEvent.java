@@ -0,0 +1,254 @@
+package rpg.alchemy;
+
+import be.kuleuven.cs.som.annotate.*;
+import rpg.recipe.Recipe;
+
+/**
+ * A class representing a change of a storage location, as published on its change feed.
+ *
+ * @invar	The kind and the storage location of a change event are effective.
+ * 			| getKind() != null && getLocation() != null
+ * @invar	A change event about an ingredient has an ingredient, a change event about a device has a device,
+ * 			and a change event about a recipe has a recipe.
+ * 			| (getIngredient() != null) == getKind().isAboutIngredient()
+ * 			| && (getDevice() != null) == getKind().isAboutDevice()
+ * 			| && (getRecipe() != null) == (getKind() == Kind.RECIPE_EXECUTED)
+ *
+ * @note	A change event is immutable. The simple name and the amount of its ingredient are copied when
+ * 			the event is created, so a view can be built from the events alone, on another thread.
+ *
+ * @author	Vincent Van Schependom
+ * @author 	Arne Claerhout
+ * @author	Flor De Meulemeester
+ *
+ * @version	1.0
+ */
+public final class ChangeEvent {
+
+	/**
+	 * An enumeration of the kinds of changes of a storage location.
+	 */
+	public enum Kind {
+
+		/**
+		 * An ingredient is added to the storage location.
+		 */
+		INGREDIENT_ADDED,
+
+		/**
+		 * An ingredient is removed from the storage location.
+		 */
+		INGREDIENT_REMOVED,
+
+		/**
+		 * An ingredient is the result of mixing ingredients with the same name. It follows the removals
+		 * and the addition it consists of, so a view that applies those can ignore it.
+		 */
+		INGREDIENT_MERGED,
+
+		/**
+		 * A device is added to the laboratory, when it is created or moved there.
+		 */
+		DEVICE_ADDED,
+
+		/**
+		 * A device is moved from the laboratory to another laboratory.
+		 */
+		DEVICE_MOVED,
+
+		/**
+		 * A device of the laboratory is terminated.
+		 */
+		DEVICE_TERMINATED,
+
+		/**
+		 * A recipe is executed completely in the laboratory.
+		 */
+		RECIPE_EXECUTED;
+
+		/**
+		 * Return whether a change of this kind is about an ingredient.
+		 */
+		public boolean isAboutIngredient() {
+			return this == INGREDIENT_ADDED || this == INGREDIENT_REMOVED || this == INGREDIENT_MERGED;
+		}
+
+		/**
+		 * Return whether a change of this kind is about a device.
+		 */
+		public boolean isAboutDevice() {
+			return this == DEVICE_ADDED || this == DEVICE_MOVED || this == DEVICE_TERMINATED;
+		}
+
+	}
+
+	/**
+	 * A constructor for a new change event.
+	 *
+	 * @param 	location
+	 * 			The storage location that changed.
+	 * @param 	sequenceNumber
+	 * 			The number of the change in the storage location.
+	 * @param 	kind
+	 * 			The kind of the change.
+	 * @param 	ingredient
+	 * 			The ingredient of the change, or null.
+	 * @param 	device
+	 * 			The device of the change, or null.
+	 * @param 	recipe
+	 * 			The recipe of the change, or null.
+	 * @param 	multiplier
+	 * 			The multiplier with which the recipe is executed, or zero.
+	 */
+	@Raw
+	ChangeEvent(StorageLocation location, long sequenceNumber, Kind kind, AlchemicIngredient ingredient, Device device, Recipe recipe, int multiplier) {
+		this.location = location;
+		this.sequenceNumber = sequenceNumber;
+		this.kind = kind;
+		this.ingredient = ingredient;
+		this.simpleName = (ingredient == null) ? null : ingredient.getSimpleName();
+		this.baseAmount = (ingredient == null) ? 0 : ingredient.getBaseAmount();
+		this.device = device;
+		this.recipe = recipe;
+		this.multiplier = multiplier;
+	}
+
+	/**
+	 * A variable referencing the storage location that changed.
+	 */
+	private final StorageLocation location;
+
+	/**
+	 * A variable holding the number of the change in the storage location.
+	 */
+	private final long sequenceNumber;
+
+	/**
+	 * A variable referencing the kind of the change.
+	 */
+	private final Kind kind;
+
+	/**
+	 * A variable referencing the ingredient of the change.
+	 */
+	private final AlchemicIngredient ingredient;
+
+	/**
+	 * A variable holding the simple name of the ingredient when the change happened.
+	 */
+	private final String simpleName;
+
+	/**
+	 * A variable holding the amount of the ingredient when the change happened, in base quantities.
+	 */
+	private final long baseAmount;
+
+	/**
+	 * A variable referencing the device of the change.
+	 */
+	private final Device device;
+
+	/**
+	 * A variable referencing the recipe of the change.
+	 */
+	private final Recipe recipe;
+
+	/**
+	 * A variable holding the multiplier with which the recipe is executed.
+	 */
+	private final int multiplier;
+
+	/**
+	 * Return the storage location that changed.
+	 */
+	@Basic @Immutable
+	public StorageLocation getLocation() {
+		return location;
+	}
+
+	/**
+	 * Return the number of the change in the storage location: the first change of a storage location
+	 * has number 1, and every next change the next number, whether it is published or not.
+	 */
+	@Basic @Immutable
+	public long getSequenceNumber() {
+		return sequenceNumber;
+	}
+
+	/**
+	 * Return the kind of the change.
+	 */
+	@Basic @Immutable
+	public Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * Return the ingredient of the change, or null if the change is not about an ingredient.
+	 */
+	@Basic @Immutable
+	public AlchemicIngredient getIngredient() {
+		return ingredient;
+	}
+
+	/**
+	 * Return the simple name of the ingredient when the change happened,
+	 * or null if the change is not about an ingredient.
+	 */
+	@Basic @Immutable
+	public String getSimpleName() {
+		return simpleName;
+	}
+
+	/**
+	 * Return the amount of the ingredient when the change happened, in base quantities,
+	 * or zero if the change is not about an ingredient.
+	 */
+	@Basic @Immutable
+	public long getBaseAmount() {
+		return baseAmount;
+	}
+
+	/**
+	 * Return the device of the change, or null if the change is not about a device.
+	 */
+	@Basic @Immutable
+	public Device getDevice() {
+		return device;
+	}
+
+	/**
+	 * Return the recipe of the change, or null if the change is not about a recipe.
+	 */
+	@Basic @Immutable
+	public Recipe getRecipe() {
+		return recipe;
+	}
+
+	/**
+	 * Return the multiplier with which the recipe is executed, or zero if the change is not about a recipe.
+	 */
+	@Basic @Immutable
+	public int getMultiplier() {
+		return multiplier;
+	}
+
+	/**
+	 * Return a textual representation of this change event.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder().append('#').append(sequenceNumber).append(' ').append(kind);
+		if (simpleName != null) {
+			text.append(' ').append(simpleName).append(" (").append(baseAmount).append(')');
+		}
+		if (device != null) {
+			text.append(' ').append(device.getClass().getSimpleName());
+		}
+		if (recipe != null) {
+			text.append(" x").append(multiplier);
+		}
+		return text.toString();
+	}
+
+}
@@ -51,6 +51,7 @@ public class CoolingBox extends TemperatureDevice {
 	 */
 	@Override
 	public void executeOperation() throws IllegalStateException {
+		AlchemyEvents.DeviceOperation event = new AlchemyEvents.DeviceOperation(this);
 		super.executeOperation();
 		// if the temperature of the cooling box is higher than the temperature of the ingredient, do nothing
 		if (!getTemperatureObject().isHotterThan(getIngredientAt(0).getTemperature())) {
@@ -58,6 +59,7 @@ public class CoolingBox extends TemperatureDevice {
 			long difference = getTemperatureObject().difference(getIngredientAt(0).getTemperature());
 			getIngredientAt(0).cool(difference);
 		}
+		event.commit();
 	}
 
 
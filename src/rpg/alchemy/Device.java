@@ -3,6 +3,13 @@ package rpg.alchemy;
 import be.kuleuven.cs.som.annotate.*;
 import rpg.*;
 import rpg.exceptions.DeviceNotYetUsedException;
+import rpg.metrics.Counter;
+import rpg.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * A class representing a device inside a laboratory.
@@ -60,7 +67,7 @@ public abstract class Device extends StorageLocation {
      *          |   then result == null
      * @return  If the spoon amount of the result is more than the spoon equivalent of the maximum
      *          unit for a container with the state of the result, the excess goes to waste.
-     *          | if ( result.getSpoonAmount() > Unit.getMaxUnitForContainerWithState(getIngredientAt(0).getState()).getSpoonEquivalent() )
+     *          | if ( result.getBaseAmount() > Unit.getMaxUnitForContainerWithState(getIngredientAt(0).getState()).getBaseEquivalent() )
      *          |   then result.equals(new IngredientContainer(Unit.getMaxUnitForContainerWithState(getIngredientAt(0).getState(),
      *          |           new AlchemicIngredient(1, Unit.getMaxUnitForContainerWithState(getIngredientAt(0).getState()),
      *          |                                   new Temperature(getIngredientAt(0).getTemperature()),
@@ -68,9 +75,12 @@ public abstract class Device extends StorageLocation {
      * @return  If the spoon amount of the result is not more than the spoon equivalent of the maximum
      *          unit for a container with the state of the result, return a new container with the minimum unit
      *          for the result, given the state and size of the result, containing the result.
-     *          | if ( result.getSpoonAmount() <= Unit.getMaxUnitForContainerWithState(result.getState()).getSpoonEquivalent() )
+     *          | if ( result.getBaseAmount() <= Unit.getMaxUnitForContainerWithState(result.getState()).getBaseEquivalent() )
      *          |   then result.equals(new IngredientContainer(Unit.getMinUnitForContainerWithIngredient(getIngredientAt(0)), getIngredientAt(0))
      *
+     * @post    The amount that goes to waste is added to the wasted amount of this device.
+     *          | new.getWastedBaseAmount() == getWastedBaseAmount()
+     *          |   + max(0, getIngredientAt(0).getBaseAmount() - Unit.getMaxUnitForContainerWithState(getIngredientAt(0).getState()).getBaseEquivalent())
      * @effect  The result is removed from the device.
      *          | removeIngredientAt(0)
      * @effect  The result is set to containerized.
@@ -95,7 +105,11 @@ public abstract class Device extends StorageLocation {
         }
         AlchemicIngredient result = getIngredientAt(0);
         Unit maxUnit = Unit.getMaxUnitForContainerWithState(result.getState());      // get the maximum capacity for the state of the result
-        if (result.getSpoonAmount() > maxUnit.getSpoonEquivalent()) {       // the result is more than this maximum capacity -> the excess goes to waste
+        if (result.getBaseAmount() > maxUnit.getBaseEquivalent()) {       // the result is more than this maximum capacity -> the excess goes to waste
+            long waste = result.getBaseAmount() - maxUnit.getBaseEquivalent();
+            wastedBaseAmount += waste;
+            TRUNCATED_RESULTS.increment();
+            WASTED_BASE_AMOUNT.add(waste);
             result = new AlchemicIngredient(1, maxUnit,
                     new Temperature(result.getTemperature()),               // create a new temperature with long[2] as argument
                     result.getType(), result.getState());
@@ -104,6 +118,154 @@ public abstract class Device extends StorageLocation {
         return new IngredientContainer(Unit.getMinUnitForContainerWithIngredient(result), result);
     }
 
+    /**
+     * A method for getting the complete result of the operation of the device, split over as many
+     * containers as needed, so nothing goes to waste.
+     *
+     * @return  If there are no ingredients in the device, return an empty list.
+     *          | if getNbOfIngredients() == 0
+     *          |   then result.isEmpty()
+     * @return  Every container but the last one is a container of the maximum unit for the state of the result,
+     *          filled with exactly one maximum unit. The last container holds the remainder, if any.
+     *          All contents have the type, state and temperature of the result, and together they have the
+     *          same amount as the result.
+     *          | sum{ C.getContent().getBaseAmount() | C in result } == getIngredientAt(0).getBaseAmount()
+     *
+     * @effect  The result is cut into containers until nothing is left.
+     *          | getResultIterator().forEachRemaining(result::add)
+     *
+     * @throws  DeviceNotYetUsedException
+     *          The device has not been used yet so there is no result to be given
+     *          | getNbOfIngredients() > 1
+     * @throws  IllegalStateException
+     *          The device is terminated.
+     *          | isTerminated()
+     *
+     * @note    Amounts of every unit are whole multiples of the smallest unit of their state,
+     *          so the remainder can always be expressed exactly.
+     */
+    public List<IngredientContainer> getAllResults() throws DeviceNotYetUsedException, IllegalStateException {
+        List<IngredientContainer> results = new ArrayList<>();
+        getResultIterator().forEachRemaining(results::add);
+        return results;
+    }
+
+    /**
+     * Return an iterator that cuts the result of the operation of the device into containers,
+     * one container at a time.
+     *
+     * @return  An iterator that returns the same containers as getAllResults(), in the same order,
+     *          but only cuts a container from the result when it is asked for. What is not asked for
+     *          yet stays in the device.
+     *
+     * @throws  DeviceNotYetUsedException
+     *          The device has not been used yet so there is no result to be given
+     *          | getNbOfIngredients() > 1
+     * @throws  IllegalStateException
+     *          The device is terminated.
+     *          | isTerminated()
+     */
+    public ResultIterator getResultIterator() throws DeviceNotYetUsedException, IllegalStateException {
+        if (isTerminated()) {
+            throw new IllegalStateException("Device is terminated!");
+        }
+        if (getNbOfIngredients() > 1) {
+            throw new DeviceNotYetUsedException();
+        }
+        return new ResultIterator();
+    }
+
+    /**
+     * A class for cutting the result of a device into containers, one container at a time.
+     *
+     * @note    The remaining result is kept in the device itself, so a caller can stop at any time,
+     *          e.g. when the next container doesn't fit in a laboratory anymore (cfr. getNextBaseAmount()),
+     *          and take the rest later with a new iterator or with getResult().
+     */
+    public class ResultIterator implements Iterator<IngredientContainer> {
+
+        /**
+         * A constructor for a new iterator over the result of the device.
+         */
+        private ResultIterator() {
+        }
+
+        /**
+         * Return whether there is a container left to cut from the result.
+         *
+         * @return  | result == (!isTerminated() && getNbOfIngredients() == 1)
+         */
+        @Override
+        public boolean hasNext() {
+            return !isTerminated() && getNbOfIngredients() == 1;
+        }
+
+        /**
+         * Return the amount of the next container, in base quantities, without cutting it.
+         *
+         * @return  Zero if there is no container left, otherwise the remaining amount of the result,
+         *          but no more than one maximum unit for its state.
+         *          | if (!hasNext())
+         *          |   then result == 0
+         *          |   else result == min(getIngredientAt(0).getBaseAmount(),
+         *          |                       Unit.getMaxUnitForContainerWithState(getIngredientAt(0).getState()).getBaseEquivalent())
+         */
+        public long getNextBaseAmount() {
+            if (!hasNext()) {
+                return 0;
+            }
+            AlchemicIngredient result = getIngredientAt(0);
+            return Math.min(result.getBaseAmount(), Unit.getMaxUnitForContainerWithState(result.getState()).getBaseEquivalent());
+        }
+
+        /**
+         * Return the next container that is cut from the result.
+         *
+         * @return  If the remaining result fits in a container, a container of the minimum unit with the remaining result,
+         *          which is removed from the device. Otherwise, a container of the maximum unit with one maximum unit
+         *          of the result, and the device keeps the rest.
+         *
+         * @throws  NoSuchElementException
+         *          There is no container left.
+         *          | !hasNext()
+         */
+        @Override
+        public IngredientContainer next() throws NoSuchElementException {
+            if (!hasNext()) {
+                throw new NoSuchElementException("There is no result left in the device!");
+            }
+            AlchemicIngredient result = getIngredientAt(0);
+            Unit maxUnit = Unit.getMaxUnitForContainerWithState(result.getState());
+            removeIngredientAt(0);
+            if (result.getBaseAmount() <= maxUnit.getBaseEquivalent()) {
+                return new IngredientContainer(Unit.getMinUnitForContainerWithIngredient(result), result);
+            }
+            // the rest stays in the device
+            long remainder = result.getBaseAmount() - maxUnit.getBaseEquivalent();
+            Unit unit = Unit.getBestUnitForStateAndBaseAmount(result.getState(), remainder);
+            addAsIngredient(new AlchemicIngredient((int) (remainder / unit.getBaseEquivalent()), unit,
+                    new Temperature(result.getTemperature()), result.getType(), result.getState()));
+            return new IngredientContainer(maxUnit, new AlchemicIngredient(1, maxUnit,
+                    new Temperature(result.getTemperature()), result.getType(), result.getState()));
+        }
+
+    }
+
+    /**
+     * A variable referencing the amount that went to waste, in base quantities, because results
+     * of this device didn't fit in a single container.
+     */
+    private long wastedBaseAmount = 0;
+
+    /**
+     * Return the amount that went to waste, in base quantities, because results of this device
+     * that were taken with getResult() didn't fit in a single container.
+     */
+    @Basic
+    public long getWastedBaseAmount() {
+        return wastedBaseAmount;
+    }
+
 
 
     /**********************************************************
@@ -327,4 +489,20 @@ public abstract class Device extends StorageLocation {
         setLaboratory(null);    // the order in which these are done is important!
     }
 
+
+
+    /**********************************************************
+     * METRICS
+     **********************************************************/
+
+    /**
+     * The number of results that don't fit in a single container and are cut to one maximum unit.
+     */
+    private static final Counter TRUNCATED_RESULTS = Metrics.counter("device_truncated_results_total");
+
+    /**
+     * The amount that goes to waste because results are cut, in base quantities.
+     */
+    private static final Counter WASTED_BASE_AMOUNT = Metrics.counter("device_wasted_base_amount_total");
+
 }
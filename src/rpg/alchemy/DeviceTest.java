@@ -3,6 +3,10 @@ package rpg.alchemy;
 import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
 import rpg.*;
+import rpg.exceptions.DeviceNotYetUsedException;
+
+import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * A JUnit 5 test class for testing the non-private methods of the (abstract) Device class.
@@ -253,6 +257,66 @@ public class DeviceTest {
 
 
 
+	/**********************************************************
+	 * RESULTS
+	 **********************************************************/
+
+	@Test
+	public void testGetAllResults() {
+		kettle.addAsIngredient(heatedPowder);	// 2 chests
+		kettle.addAsIngredient(new AlchemicIngredient(1, Unit.SACK, powderTypeMixed));
+		kettle.executeOperation();
+		List<IngredientContainer> results = kettle.getAllResults();
+		assertEquals(3, results.size());
+		assertEquals(Unit.CHEST, results.get(0).getContent().getUnit());
+		assertEquals(Unit.CHEST, results.get(1).getContent().getUnit());
+		assertEquals(Unit.SACK, results.get(2).getContent().getUnit());
+		assertEquals(1, results.get(2).getContent().getAmount());
+		assertEquals(results.get(0).getContent().getType(), results.get(2).getContent().getType());
+		assertEquals(0, kettle.getNbOfIngredients());
+		assertEquals(0, kettle.getWastedBaseAmount());
+		assertTrue(kettle.getAllResults().isEmpty());
+	}
+
+	@Test
+	public void testGetResultIterator() {
+		kettle.addAsIngredient(heatedPowder);	// 2 chests
+		kettle.addAsIngredient(new AlchemicIngredient(1, Unit.SACK, powderTypeMixed));
+		kettle.executeOperation();
+		Device.ResultIterator iterator = kettle.getResultIterator();
+		assertEquals(Unit.CHEST.getBaseEquivalent(), iterator.getNextBaseAmount());
+		assertEquals(Unit.CHEST, iterator.next().getContent().getUnit());
+		// the rest stays in the kettle
+		assertEquals(1, kettle.getNbOfIngredients());
+		assertEquals(Unit.CHEST.getBaseEquivalent() + Unit.SACK.getBaseEquivalent(), kettle.getIngredientAt(0).getBaseAmount());
+		// a new iterator continues where the previous one stopped
+		iterator = kettle.getResultIterator();
+		assertEquals(Unit.CHEST, iterator.next().getContent().getUnit());
+		assertEquals(Unit.SACK.getBaseEquivalent(), iterator.getNextBaseAmount());
+		assertEquals(Unit.SACK, iterator.next().getContent().getUnit());
+		assertFalse(iterator.hasNext());
+		assertEquals(0, iterator.getNextBaseAmount());
+		assertThrows(NoSuchElementException.class, iterator::next);
+	}
+
+	@Test
+	public void testGetResultIterator_illegal() {
+		kettle.addAsIngredient(powder);
+		kettle.addAsIngredient(mixedPowder);
+		assertThrows(DeviceNotYetUsedException.class, () -> kettle.getResultIterator());
+	}
+
+	@Test
+	public void testGetResult_wastedBaseAmount() {
+		kettle.addAsIngredient(heatedPowder);	// 2 chests
+		kettle.addAsIngredient(new AlchemicIngredient(1, Unit.SACK, powderTypeMixed));
+		kettle.executeOperation();
+		assertEquals(Unit.CHEST, kettle.getResult().getContent().getUnit());
+		assertEquals(Unit.CHEST.getBaseEquivalent() + Unit.SACK.getBaseEquivalent(), kettle.getWastedBaseAmount());
+	}
+
+
+
 	/**********************************************************
 	 * DESTRUCTION
 	 **********************************************************/
@@ -127,7 +127,7 @@ public class IngredientContainer {
      *          if the capacity and the content share the same state and if the ingredient
      *          isn't terminated then return true, otherwise return false.
      *          | if (content != null) then
-     *          |   result == (content.getSpoonAmount() <= getCapacity().getSpoonEquivalent())
+     *          |   result == (content.getBaseAmount() <= getCapacity().getBaseEquivalent())
      *          |            && ( getCapacity().hasAsAllowedState(content.getState()) )
      *          |            && ( !content.isTerminated())
      */
@@ -136,7 +136,7 @@ public class IngredientContainer {
         if (content == null) {
             return true;
         } else {
-            return (content.getSpoonAmount() <= getCapacity().getSpoonEquivalent())
+            return (content.getBaseAmount() <= getCapacity().getBaseEquivalent())
                     && ( getCapacity().hasAsAllowedState(content.getState()) )
                     && ( !content.isTerminated())
                     && ( !content.isContainerized());
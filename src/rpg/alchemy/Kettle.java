@@ -3,6 +3,8 @@ package rpg.alchemy;
 import be.kuleuven.cs.som.annotate.*;
 import rpg.State;
 import rpg.Unit;
+import rpg.metrics.Histogram;
+import rpg.metrics.Metrics;
 
 import java.util.*;
 
@@ -39,132 +41,138 @@ public class Kettle extends Device {
 
 
 	/**********************************************************
-	 * METHODS
+	 * MIXING
 	 **********************************************************/
 
 	/**
-	 * A method that returns the new name object for the new mixed ingredient, with a special name of null.
-	 * The simple name parts being all the simple name parts of the ingredients.
+	 * The largest amount of a mix, in base quantities.
+	 *
+	 * @note	The amount of an ingredient is an int, so a mix of at most this many base quantities
+	 * 			can be expressed in any unit, even the smallest one.
 	 */
-	@Model
-	private Name getNewName() {
-
-		Set<String> names = new HashSet<>();
-
-		for (int i = 0; i < getNbOfIngredients(); i++) {
-			// we get all names of the ingredients
-			names.addAll(Arrays.asList(getIngredientAt(i).getType().getName().getSimpleNameParts()));
-		}
-
-		// we return a new name with all the names of the ingredients
-		return new Name(null, names.toArray(new String[0]));
-
-	}
+	public static final long MAX_MIX_BASE_AMOUNT = Integer.MAX_VALUE;
 
 	/**
-	 * A method that returns the state of the ingredient
-	 * in the kettle with the standard temperature
-	 * closest to [0, 20], liquid is chosen over powder.
+	 * A class for folding ingredients, one at a time, into the values of their mix.
+	 *
+	 * @note	Only running aggregates are kept: the base amounts per state, the weighted sums of the
+	 * 			temperatures, the simple name parts, and the state and standard temperature that are the
+	 * 			best so far. A mix of any number of ingredients therefore only takes memory in proportion
+	 * 			to its distinct name parts. Folding the ingredients in the order in which they are added
+	 * 			gives exactly the same result as looking at all of them at once.
 	 */
-	@Model
-	private State getNewState() {
-
-		int closestTemperatureIndex = 0;
-		long smallestDifferenceTemperature = Long.MAX_VALUE;
-
-		for (int i = 0; i < getNbOfIngredients(); i++) {
-			// We get the ingredient with a standard temperature closest to [0, 20]
-			long difference = getIngredientAt(i).getType().getStandardTemperatureDifference(new long[]{0, 20});
-			if (difference < smallestDifferenceTemperature) {
-				smallestDifferenceTemperature = difference;
-				closestTemperatureIndex = i;
-			} else if (difference == smallestDifferenceTemperature && getIngredientAt(i).getState() == State.LIQUID) {
-				closestTemperatureIndex = i;
+	private static class Mix {
+
+		/**
+		 * A variable referencing the simple name parts of the ingredients.
+		 */
+		private final Set<String> nameParts = new HashSet<>();
+
+		/**
+		 * A variable referencing the number of ingredients that are folded.
+		 */
+		private long nbOfIngredients = 0;
+
+		/**
+		 * A variable referencing the state of the ingredient with the standard temperature closest
+		 * to [0, 20] so far, liquid chosen over powder, and the difference of that standard temperature.
+		 */
+		private State state = null;
+		private long smallestStateDifference = Long.MAX_VALUE;
+
+		/**
+		 * A variable referencing the base amounts of the ingredients, indexed by the ordinal of their state.
+		 */
+		private final long[] baseAmounts = new long[State.values().length];
+
+		/**
+		 * A variable referencing the standard temperature closest to [0, 20] so far, and its difference.
+		 */
+		private Temperature standardTemperature = new Temperature(0, Temperature.getUpperbound());
+		private long smallestStandardDifference = standardTemperature.difference(new long[]{0, 20});
+
+		/**
+		 * A variable referencing the coldness and hotness of the ingredients, weighted by their spoon
+		 * amounts, and the total spoon amount.
+		 *
+		 * @note 	The coldness and the hotness are summed separately because otherwise in
+		 * 			the Temperature class there is a lot of rounding to integer values and then
+		 * 			the result would be inaccurate.
+		 */
+		private double totalColdness = 0;
+		private double totalHotness = 0;
+		private double addedSpoons = 0;
+
+		/**
+		 * A method to fold a given ingredient into this mix.
+		 *
+		 * @param 	ingredient
+		 * 			The ingredient to fold.
+		 */
+		private void add(AlchemicIngredient ingredient) {
+			nbOfIngredients++;
+			// all names of the ingredients
+			nameParts.addAll(Arrays.asList(ingredient.getType().getName().getSimpleNameParts()));
+			// the state of the ingredient with a standard temperature closest to [0, 20]
+			long difference = ingredient.getType().getStandardTemperatureDifference(new long[]{0, 20});
+			if (difference < smallestStateDifference) {
+				smallestStateDifference = difference;
+				state = ingredient.getState();
+			} else if (difference == smallestStateDifference && ingredient.getState() == State.LIQUID) {
+				state = ingredient.getState();
 			}
+			// the standard temperature closest to [0, 20]
+			if ( difference < smallestStandardDifference || ( difference == smallestStandardDifference &&
+					ingredient.getHotness() > standardTemperature.getHotness() ) ) {
+				standardTemperature = new Temperature(ingredient.getType().getStandardTemperature());
+				smallestStandardDifference = difference;
+			}
+			// the amount of the ingredient is added to the amount of its state
+			baseAmounts[ingredient.getState().ordinal()] += ingredient.getBaseAmount();
+			// the weighted temperature
+			double spoonAmount = ingredient.getSpoonAmount();
+			totalColdness += ingredient.getColdness() * spoonAmount;
+			totalHotness += ingredient.getHotness() * spoonAmount;
+			addedSpoons += spoonAmount;
 		}
 
-		return getIngredientAt(closestTemperatureIndex).getState();
-
-	}
-
-	/**
-	 * A method that calculates the new spoon amount for the new ingredient.
-	 */
-	@Model
-	private double getNewSpoonAmount() {
-
-		// we keep track of the spoon amounts of both states in a hashmap
-		HashMap<State, Double> newSpoonAmounts = new HashMap<>();
-
-		newSpoonAmounts.put(State.POWDER, 0D);
-		newSpoonAmounts.put(State.LIQUID, 0D);
-
-		for (int i = 0; i < getNbOfIngredients(); i++) {
-			// we get the state of the ingredient
-			State state = getIngredientAt(i).getState();
-			// we add it to the old value
-			newSpoonAmounts.put(state, newSpoonAmounts.get(state)+getIngredientAt(i).getSpoonAmount());
-		}
-
-		// the values of the other state get floored, while the values of the new state don't
-        return Math.floor(newSpoonAmounts.get(getNewState().getNext()))
-				+ newSpoonAmounts.get(getNewState());
-
-	}
-
-	/**
-	 * A method that returns the standard temperature which is closest to [0, 20],
-	 * if the difference is the same, the hottest standard temperature is chosen.
-	 */
-	@Model
-	private Temperature getNewStandardTemperature() {
-
-		Temperature smallestDifferenceTemperature = new Temperature(0, Temperature.getUpperbound());
-		long smallestDifference = smallestDifferenceTemperature.difference(new long[]{0, 20});
-
-		for (int i = 0; i < getNbOfIngredients(); i++) {
-
-			long difference = getIngredientAt(i).getType().getStandardTemperatureDifference(new long[]{0, 20});
-
-			// We get the ingredient with a standard temperature closest to [0, 20]
-			if ( difference < smallestDifference || ( difference == smallestDifference &&
-					getIngredientAt(i).getHotness() > smallestDifferenceTemperature.getHotness() ) ) {
-				smallestDifferenceTemperature = new Temperature(getIngredientAt(i).getType().getStandardTemperature());
-				smallestDifference = difference;
+		/**
+		 * Return the total amount of the ingredients that are folded into this mix, in base quantities.
+		 */
+		private long getBaseAmount() {
+			long total = 0;
+			for (long baseAmount : baseAmounts) {
+				total += baseAmount;
 			}
-
+			return total;
 		}
 
-		return smallestDifferenceTemperature;
-
-	}
-
-	/**
-	 * A method that returns a new temperature object with the weighted average temperature
-	 * of all the ingredients inside the kettle.
-	 *
-	 * @note 	The coldness and the hotness are calculated separately because otherwise in
-	 * 			the Temperature class there is a lot of rounding to integer values and then
-	 * 			the result would be inaccurate.
-	 */
-	@Model
-	private Temperature getNewTemperature() {
-
-		double totalColdness = 0;
-		double totalHotness = 0;
-		double addedSpoons = 0;
+		/**
+		 * Return whether nothing is folded into this mix yet.
+		 */
+		private boolean isEmpty() {
+			return nbOfIngredients == 0;
+		}
 
-		for (int i = 0; i < getNbOfIngredients(); i++) {
-			double spoonAmount = getIngredientAt(i).getSpoonAmount();
-			double currentColdness = getIngredientAt(i).getColdness() * spoonAmount;
-			double currentHotness = getIngredientAt(i).getHotness() * spoonAmount;
-			totalColdness += currentColdness;
-			totalHotness += currentHotness;
-			addedSpoons += spoonAmount;
+		/**
+		 * Return the ingredient that results from this mix.
+		 *
+		 * @return	An ingredient with a new type, named after all simple name parts with a special name of null,
+		 * 			with the state and the standard temperature of the ingredients with the standard temperature
+		 * 			closest to [0, 20], and with the weighted average temperature of the ingredients.
+		 * 			The amounts of the other state are floored to whole spoons, while those of the new state aren't.
+		 */
+		private AlchemicIngredient getResult() {
+			Name name = new Name(null, nameParts.toArray(new String[0]));
+			long otherBaseAmount = baseAmounts[state.getNext().ordinal()];
+			long baseAmount = otherBaseAmount - otherBaseAmount % Unit.BASE_QUANTITIES_PER_SPOON
+					+ baseAmounts[state.ordinal()];
+			Temperature temperature = makeNewTemperature((totalHotness - totalColdness) / addedSpoons);
+			IngredientType type = new IngredientType(name, state, standardTemperature, name.isMixed());
+			Unit unit = Unit.getBestUnitForStateAndBaseAmount(state, baseAmount);
+			return new AlchemicIngredient((int) (baseAmount / unit.getBaseEquivalent()), unit, temperature, type, state);
 		}
 
-		double difference = (totalHotness - totalColdness) / addedSpoons;
-		return makeNewTemperature(difference);
 	}
 
 	/**
@@ -191,7 +199,7 @@ public class Kettle extends Device {
 	 * 			|	then result.equals(new Temperature((long) Math.abs(difference), 0))
 	 */
 	@Model
-	private Temperature makeNewTemperature(double difference) {
+	private static Temperature makeNewTemperature(double difference) {
 		if (difference > Temperature.getUpperbound()) {
 			return new Temperature(0, Temperature.getUpperbound());
 		} else if (difference > 0) {
@@ -207,6 +215,112 @@ public class Kettle extends Device {
 
 
 
+	/**********************************************************
+	 * STREAMING
+	 **********************************************************/
+
+	/**
+	 * A variable referencing the mix into which added containers are folded, or null if
+	 * this kettle is not streaming.
+	 */
+	private Mix streamingMix = null;
+
+	/**
+	 * Return whether this kettle is streaming, i.e. folds the contents of added containers
+	 * into its mix right away instead of storing them until the next operation.
+	 */
+	@Basic
+	public boolean isStreaming() {
+		return streamingMix != null;
+	}
+
+	/**
+	 * Return the number of ingredients that are folded into the mix of this kettle since it started streaming.
+	 *
+	 * @return	Zero if this kettle is not streaming.
+	 * 			| if (!isStreaming())
+	 * 			|	then result == 0
+	 */
+	public long getNbOfStreamedIngredients() {
+		return isStreaming() ? streamingMix.nbOfIngredients : 0;
+	}
+
+	/**
+	 * A method for checking if this kettle is empty.
+	 *
+	 * @return	True if and only if this kettle has no ingredients and nothing is streamed into its mix.
+	 * 			| result == (super.isEmpty() && getNbOfStreamedIngredients() == 0)
+	 */
+	@Override
+	public boolean isEmpty() {
+		return super.isEmpty() && getNbOfStreamedIngredients() == 0;
+	}
+
+	/**
+	 * A method to let this kettle start streaming, until its next operation.
+	 *
+	 * @post	This kettle is streaming, and no ingredients are folded into its mix yet.
+	 * 			| new.isStreaming() && new.getNbOfStreamedIngredients() == 0
+	 *
+	 * @throws	IllegalStateException
+	 * 			This kettle is terminated, or it is already streaming, or it has ingredients.
+	 * 			| isTerminated() || isStreaming() || getNbOfIngredients() > 0
+	 */
+	public void startStreaming() throws IllegalStateException {
+		if (isTerminated() || isStreaming() || getNbOfIngredients() > 0) {
+			throw new IllegalStateException("The kettle can only start streaming when it is empty!");
+		}
+		streamingMix = new Mix();
+	}
+
+	/**
+	 * A method to add the content of a container to this kettle.
+	 *
+	 * @param 	container
+	 * 			The container of which the content should be added.
+	 *
+	 * @effect	If this kettle isn't streaming, the content is added like in any storage location.
+	 * 			| if (!isStreaming())
+	 * 			|	then super.addContainer(container)
+	 * @post	If this kettle is streaming, the content is folded into its mix and isn't kept,
+	 * 			and the container and its content are terminated.
+	 * 			| if (isStreaming())
+	 * 			|	then new.getNbOfStreamedIngredients() == getNbOfStreamedIngredients() + 1
+	 * 			|		&& (new container).isTerminated() && (new container.getContent()).isTerminated()
+	 *
+	 * @throws	NullPointerException
+	 * 			The container is null.
+	 * 			| container == null
+	 * @throws	IllegalArgumentException
+	 * 			The content of the container can't be added to this kettle.
+	 * 			| !canHaveAsIngredient(container.getContent())
+	 * @throws	IllegalArgumentException
+	 * 			This kettle is streaming, and the mix would become larger than the largest mix.
+	 * 			The container is left unchanged.
+	 * 			| isStreaming() && streamingMix.getBaseAmount() + container.getContent().getBaseAmount() > MAX_MIX_BASE_AMOUNT
+	 */
+	@Override
+	public void addContainer(IngredientContainer container) throws NullPointerException, IllegalArgumentException {
+		if (!isStreaming()) {
+			super.addContainer(container);
+			return;
+		}
+		if (container == null) {
+			throw new NullPointerException("Container is null!");
+		}
+		if (!canHaveAsIngredient(container.getContent())) {
+			throw new IllegalArgumentException("Invalid contents in container!");
+		}
+		if (streamingMix.getBaseAmount() + container.getContent().getBaseAmount() > MAX_MIX_BASE_AMOUNT) {
+			throw new IllegalArgumentException("The mix would become too large to be expressed in any unit!");
+		}
+		AlchemicIngredient content = container.obtainContent();
+		streamingMix.add(content);
+		content.terminate();
+	}
+
+
+
 	/**********************************************************
 	 * OPERATION EXECUTION
 	 **********************************************************/
@@ -214,40 +328,114 @@ public class Kettle extends Device {
 	/**
 	 * A method for executing a kettle
 	 *
-	 * @effect  Executes the operation from device.
-	 *          | super.executeOperation()
-	 *
-	 * @post	All ingredients are deleted and a new ingredient is created with
-	 * 			a new combined name, a weighted average temperature, a new state,
-	 * 			a new standard temperature and a new amount.
-	 * 			| ( addAsIngredient(new AlchemicIngredient(
-	 * 			|	(int) (newSpoonAmount/Unit.getBestUnitForStateAndSpoons(getNewState(), getNewSpoonAmount()).getSpoonEquivalent()),
-	 * 			|	Unit.getBestUnitForStateAndSpoons(getNewState(), getNewSpoonAmount()), getNewTemperature(),
-	 * 			|	getNewType(), getNewState())) ) &&
-	 * 			| ( for each I in 0..getNbOfIngredients()-2:
-	 * 			|		removeAsIngredient(getIngredientAt(0)) )
+	 * @effect  If nothing is streamed into this kettle, executes the operation from device.
+	 *          | if (getNbOfStreamedIngredients() == 0)
+	 *          |	then super.executeOperation()
+	 *
+	 * @post	All ingredients, and everything that is streamed into this kettle, are mixed into one new ingredient
+	 * 			with a new combined name, a weighted average temperature, a new state, a new standard temperature
+	 * 			and a new amount (cfr. Mix.getResult()). All other ingredients are deleted.
+	 * 			| new.getNbOfIngredients() == 1
+	 * @post	This kettle doesn't stream anymore.
+	 * 			| !new.isStreaming()
+	 *
+	 * @throws	IllegalStateException
+	 * 			This kettle is terminated.
+	 * 			| isTerminated()
+	 * @throws	IllegalStateException
+	 * 			The ingredients, together with everything that is streamed into this kettle, are larger
+	 * 			than the largest mix (cfr. MAX_MIX_BASE_AMOUNT). Nothing is mixed, and this kettle keeps streaming
+	 * 			if it was streaming.
 	 */
 	@Override
 	public void executeOperation() {
-		super.executeOperation();
-
-		// Get all the new values
-		Name newName = getNewName();
-		State newState = getNewState();
-		double newSpoonAmount = getNewSpoonAmount();
-		Temperature newTemperature = getNewTemperature();
-		Temperature newStandardTemperature = getNewStandardTemperature();
+		AlchemyEvents.DeviceOperation event = new AlchemyEvents.DeviceOperation(this);
+		Mix mix = isStreaming() ? streamingMix : new Mix();
+		if (mix.isEmpty()) {
+			super.executeOperation();
+		} else if (isTerminated()) {
+			throw new IllegalStateException("The device can't be used, since the device is terminated!");
+		}
+		long baseAmount = mix.getBaseAmount();
+		for (int i = 0; i < getNbOfIngredients(); i++) {
+			baseAmount += getIngredientAt(i).getBaseAmount();
+		}
+		if (baseAmount > MAX_MIX_BASE_AMOUNT) {
+			throw new IllegalStateException("The mix would be too large to be expressed in any unit!");
+		}
 
-		// Delete all ingredients
+		// Fold all ingredients into the mix and delete them
 		while (getNbOfIngredients() > 0) {
-			removeAsIngredient(getIngredientAt(0));
+			AlchemicIngredient ingredient = getIngredientAt(0);
+			mix.add(ingredient);
+			removeAsIngredient(ingredient);
+		}
+		INPUTS.record(mix.nbOfIngredients);
+		streamingMix = null;
+
+		// Add the new ingredient to the kettle
+		addAsIngredient(mix.getResult());
+		event.commit();
+	}
+
+
+
+	/**********************************************************
+	 * DESTRUCTION
+	 **********************************************************/
+
+	/**
+	 * A method to move this kettle to a different laboratory.
+	 *
+	 * @param 	laboratory
+	 * 			The laboratory to move the kettle to.
+	 *
+	 * @effect	The kettle is moved like any device.
+	 * 			| super.move(laboratory)
+	 *
+	 * @throws	IllegalStateException
+	 * 			Something is streamed into the mix of this kettle, which would otherwise be mixed
+	 * 			with the ingredients of the other laboratory.
+	 * 			| getNbOfStreamedIngredients() > 0
+	 */
+	@Override
+	public void move(Laboratory laboratory) throws IllegalStateException, IllegalArgumentException {
+		if (getNbOfStreamedIngredients() > 0) {
+			throw new IllegalStateException("The kettle can't be moved before its mix is taken out!");
 		}
+		super.move(laboratory);
+	}
 
-		// Create the new ingredient(type) and add to the kettle
-		IngredientType newType = new IngredientType(newName, newState, newStandardTemperature, newName.isMixed());
-		addAsIngredient(new AlchemicIngredient(
-				(int) (newSpoonAmount/Unit.getBestUnitForStateAndSpoons(newState, newSpoonAmount).getSpoonEquivalent()),
-				Unit.getBestUnitForStateAndSpoons(newState, newSpoonAmount), newTemperature, newType, newState));
+	/**
+	 * A method for terminating this kettle.
+	 *
+	 * @effect	The kettle is terminated like any device.
+	 * 			| super.terminate()
+	 * @post	This kettle doesn't stream anymore.
+	 * 			| !new.isStreaming()
+	 *
+	 * @throws	IllegalStateException
+	 * 			Something is streamed into the mix of this kettle, which would otherwise be lost.
+	 * 			| getNbOfStreamedIngredients() > 0
+	 */
+	@Override
+	public void terminate() throws IllegalStateException {
+		if (getNbOfStreamedIngredients() > 0) {
+			throw new IllegalStateException("The kettle can't be terminated before its mix is taken out!");
+		}
+		super.terminate();
+		streamingMix = null;
 	}
 
+
+
+	/**********************************************************
+	 * METRICS
+	 **********************************************************/
+
+	/**
+	 * The number of ingredients that are mixed at once.
+	 */
+	private static final Histogram INPUTS = Metrics.histogram("kettle_inputs");
+
 }
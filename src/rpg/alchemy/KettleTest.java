@@ -69,6 +69,79 @@ public class KettleTest {
         assertEquals(15, result.getHotness());
     }
 
+    @Test
+    public void executeOperationStreaming() {
+        kettle.startStreaming();
+        assertTrue(kettle.isStreaming());
+        kettle.addContainer(container1);
+        kettle.addContainer(container2);
+        kettle.addContainer(container3);
+        // the contents are folded into the mix right away
+        assertEquals(0, kettle.getNbOfIngredients());
+        assertEquals(3, kettle.getNbOfStreamedIngredients());
+        assertTrue(ingredient1.isTerminated());
+        kettle.executeOperation();
+        assertFalse(kettle.isStreaming());
+        AlchemicIngredient streamed = kettle.getResult().getContent();
+        // the same mix without streaming
+        Kettle otherKettle = new Kettle(new Laboratory(5));
+        otherKettle.addContainer(new IngredientContainer(new AlchemicIngredient(10, Unit.SPOON, type1)));
+        otherKettle.addContainer(new IngredientContainer(new AlchemicIngredient(15, Unit.PINCH, type2)));
+        otherKettle.addContainer(new IngredientContainer(new AlchemicIngredient(3, Unit.JUG, type3)));
+        otherKettle.executeOperation();
+        AlchemicIngredient stored = otherKettle.getResult().getContent();
+        assertEquals(stored.getBaseAmount(), streamed.getBaseAmount());
+        assertEquals(stored.getSimpleName(), streamed.getSimpleName());
+        assertEquals(stored.getState(), streamed.getState());
+        assertArrayEquals(stored.getTemperature(), streamed.getTemperature());
+        assertArrayEquals(stored.getType().getStandardTemperature(), streamed.getType().getStandardTemperature());
+    }
+
+    @Test
+    public void executeOperationStreaming_tooLarge() {
+        kettle.startStreaming();
+        long nbOfBarrels = Kettle.MAX_MIX_BASE_AMOUNT / Unit.BARREL.getBaseEquivalent();
+        for (long i = 0; i < nbOfBarrels; i++) {
+            kettle.addContainer(new IngredientContainer(new AlchemicIngredient(1, Unit.BARREL, type1)));
+        }
+        // one more barrel doesn't fit in an int amount of drops: the container is left alone
+        IngredientContainer barrel = new IngredientContainer(new AlchemicIngredient(1, Unit.BARREL, type1));
+        assertThrows(IllegalArgumentException.class, () -> kettle.addContainer(barrel));
+        assertFalse(barrel.isTerminated());
+        assertEquals(nbOfBarrels, kettle.getNbOfStreamedIngredients());
+        kettle.executeOperation();
+        AlchemicIngredient result = kettle.getIngredientAt(0);
+        assertEquals(nbOfBarrels * Unit.BARREL.getBaseEquivalent(), result.getBaseAmount());
+        assertTrue(result.getAmount() > 0);
+    }
+
+    @Test
+    public void executeOperation_tooLarge() {
+        kettle.startStreaming();
+        long nbOfBarrels = Kettle.MAX_MIX_BASE_AMOUNT / Unit.BARREL.getBaseEquivalent();
+        for (long i = 0; i < nbOfBarrels; i++) {
+            kettle.addContainer(new IngredientContainer(new AlchemicIngredient(1, Unit.BARREL, type1)));
+        }
+        kettle.executeOperation();
+        // the stored result and one more barrel don't fit in an int amount together: nothing is mixed
+        kettle.addContainer(new IngredientContainer(new AlchemicIngredient(1, Unit.BARREL, type1)));
+        assertThrows(IllegalStateException.class, () -> kettle.executeOperation());
+        assertEquals(2, kettle.getNbOfIngredients());
+    }
+
+    @Test
+    public void executeOperationStreaming_illegal() {
+        kettle.addContainer(container1);
+        assertThrows(IllegalStateException.class, () -> kettle.startStreaming());
+        kettle.executeOperation();
+        kettle.getResult();
+        kettle.startStreaming();
+        assertThrows(IllegalStateException.class, () -> kettle.startStreaming());
+        assertThrows(NullPointerException.class, () -> kettle.addContainer(null));
+        // nothing is streamed or stored
+        assertThrows(IllegalStateException.class, () -> kettle.executeOperation());
+    }
+
     @Test
     public void executeOperationValid2() {
         Oven oven = new Oven(lab, new Temperature(0, 100));
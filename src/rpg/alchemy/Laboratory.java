@@ -1,13 +1,33 @@
 package rpg.alchemy;
 
 import be.kuleuven.cs.som.annotate.*;
+import rpg.State;
 import rpg.Unit;
 import rpg.exceptions.IngredientNotPresentException;
+import rpg.metrics.Counter;
+import rpg.metrics.Histogram;
+import rpg.metrics.Metrics;
 import rpg.recipe.Operation;
 import rpg.recipe.Recipe;
-
+import rpg.recipe.RecipeBook;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
 
 /**
  * A class representing a Laboratory.
@@ -201,6 +221,20 @@ public class Laboratory extends StorageLocation {
 		return false;
 	}
 
+	/**
+	 * Return whether this laboratory has a kettle that is streaming.
+	 *
+	 * @return	True if and only if this laboratory has a kettle and it is streaming.
+	 * 			| result == (hasDeviceOfType(Kettle.class) && getDeviceOfType(Kettle.class).isStreaming())
+	 *
+	 * @note	A streaming kettle folds everything that is added to it into the mix of whoever started
+	 * 			the stream, so this laboratory can't use it, nor set its contents aside, until that mix is taken out.
+	 */
+	@Model
+	private boolean hasStreamingKettle() {
+		return hasDeviceOfType(Kettle.class) && getDeviceOfType(Kettle.class).isStreaming();
+	}
+
 	/**
 	 * Check whether the given device is present in this laboratory.
 	 *
@@ -306,6 +340,8 @@ public class Laboratory extends StorageLocation {
 	 *          | new.getNbOfDevices() == getNbOfDevices() + 1
 	 * @post    The given device is inserted at the last index.
 	 *          | new.getDeviceAt(getNbOfDevices()-1) == device
+	 * @effect	The addition is published on the change feed.
+	 * 			| publishChange(ChangeEvent.Kind.DEVICE_ADDED, null, device, null, 0)
 	 *
 	 * @throws	IllegalArgumentException
 	 * 			A device of this type is already present in this laboratory.
@@ -330,6 +366,7 @@ public class Laboratory extends StorageLocation {
 			throw new IllegalStateException("The given device does not yet reference this laboratory as its parent.");
 		}
 		devices.add(device);
+		publishChange(ChangeEvent.Kind.DEVICE_ADDED, null, device, null, 0);
 	}
 
 	/**
@@ -340,6 +377,8 @@ public class Laboratory extends StorageLocation {
 	 *
 	 * @effect 	The given device is removed from the position it was registered at.
 	 *         	| removeAsDeviceAt(getIndexOfDevice(device))
+	 * @effect	The removal is published on the change feed, as a termination if the device is terminated
+	 * 			and as a move otherwise.
 	 *
 	 * @throws 	IllegalArgumentException
 	 *         	The given device is not in the laboratory.
@@ -363,6 +402,8 @@ public class Laboratory extends StorageLocation {
 			// Should not happen!
 			assert false;
 		}
+		// a device only leaves its laboratory when it moves or when it is terminated
+		publishChange(device.isTerminated() ? ChangeEvent.Kind.DEVICE_TERMINATED : ChangeEvent.Kind.DEVICE_MOVED, null, device, null, 0);
 	}
 
 	/**
@@ -400,6 +441,68 @@ public class Laboratory extends StorageLocation {
 
 
 
+	/**********************************************************
+	 * DEVICE POOL
+	 **********************************************************/
+
+	/**
+	 * A variable referencing the workbenches of this laboratory: laboratories of their own, that are never
+	 * exposed, each holding a kettle, a cooling box and an oven that this laboratory can use in parallel.
+	 *
+	 * @note	A laboratory can only hold one device of each type, so every extra logical device needs a
+	 * 			laboratory of its own. The workbenches never hold ingredients.
+	 */
+	private List<Laboratory> workbenches = List.of();
+
+	/**
+	 * Return the number of workbenches of this laboratory, i.e. the number of kettles, cooling boxes and
+	 * ovens that can be used in parallel on top of the devices of this laboratory itself.
+	 */
+	@Basic
+	public int getDevicePoolSize() {
+		return workbenches.size();
+	}
+
+	/**
+	 * A method to set the number of kettles, cooling boxes and ovens that can be used in parallel.
+	 *
+	 * @param 	size
+	 * 			The new number of workbenches, zero to disable the pool.
+	 *
+	 * @post	The size of the device pool is set to the given size.
+	 * 			| new.getDevicePoolSize() == size
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			The given size is negative.
+	 * 			| size < 0
+	 *
+	 * @note	The devices of this laboratory itself are not affected: there is still at most one device
+	 * 			of each type, and the pool is only used if this laboratory has a device of the same type.
+	 * @note	Only bulk intake is pooled: the preparation of the groups in addContainers() runs in parallel,
+	 * 			since every group has its own ingredients. Everything that touches the stock of this laboratory,
+	 * 			including addContainer(), execute() and transferTo(), only uses the devices of this laboratory.
+	 * @note	The ovens of the pool follow the noise source of the oven of this laboratory (cfr. addContainers()).
+	 */
+	public void setDevicePoolSize(int size) throws IllegalArgumentException {
+		if (size < 0) {
+			throw new IllegalArgumentException("The size of the device pool can't be negative.");
+		}
+		List<Laboratory> newWorkbenches = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			Laboratory workbench = (i < workbenches.size()) ? workbenches.get(i) : null;
+			if (workbench == null) {
+				workbench = new Laboratory(1);
+				new Kettle(workbench);
+				new CoolingBox(workbench, new Temperature());
+				new Oven(workbench, new Temperature());
+			}
+			newWorkbenches.add(workbench);
+		}
+		workbenches = List.copyOf(newWorkbenches);
+	}
+
+
+
 	/**********************************************************
 	 * INGREDIENTS
 	 **********************************************************/
@@ -447,12 +550,13 @@ public class Laboratory extends StorageLocation {
 	 * @pre		The given unit is effective.
 	 * 			| unit != null
 	 *
-	 * @effect	A new ingredient, with its amount subtracted with the given amount at the same unit,
+	 * @effect	A new ingredient, with its amount subtracted with the given amount,
+	 * 			expressed in the best unit for the amount that is left,
 	 * 			is added to the laboratory and the ingredient at given index is removed.
 	 * 			| addAsIngredient(new AlchemicIngredient(
-	 * 			|		(int) (getIngredientAt(index).getAmount()*getIngredientAt(index).getUnit().getConversionFor(Unit.getBestUnitForStateAndSpoons(ingredient.getState(), ingredient.getSpoonAmount() - (amount*unit.getSpoonEquivalent())))
-	 * 			|			- amount*unit.getConversionFor(Unit.getBestUnitForStateAndSpoons(ingredient.getState(), ingredient.getSpoonAmount() - (amount*unit.getSpoonEquivalent())))),
-	 * 			|		getIngredientAt(index).getUnit(),
+	 * 			|		(int) ((getIngredientAt(index).getBaseAmount() - amount*unit.getBaseEquivalent())
+	 * 			|			/ Unit.getBestUnitForStateAndBaseAmount(getIngredientAt(index).getState(), getIngredientAt(index).getBaseAmount() - amount*unit.getBaseEquivalent()).getBaseEquivalent()),
+	 * 			|		Unit.getBestUnitForStateAndBaseAmount(getIngredientAt(index).getState(), getIngredientAt(index).getBaseAmount() - amount*unit.getBaseEquivalent()),
 	 * 			|		new Temperature(getIngredientAt(index).getTemperature()),
 	 * 			|		getIngredientAt(index).getType(),
 	 * 			|		getIngredientAt(index).getState()
@@ -478,15 +582,16 @@ public class Laboratory extends StorageLocation {
 		}
 
 		AlchemicIngredient ingredient = getIngredientAt(index);
-		Unit newUnit = Unit.getBestUnitForStateAndSpoons(ingredient.getState(), ingredient.getSpoonAmount() - (amount*unit.getSpoonEquivalent()));
-		int amountLeft = (int) (ingredient.getAmount()*ingredient.getUnit().getConversionFor(newUnit) - amount*unit.getConversionFor(newUnit));
+		// all unit math is done in (exact) base quantities
+		long baseAmountLeft = ingredient.getBaseAmount() - amount*unit.getBaseEquivalent();
 
 		removeAsIngredient(ingredient);
-		// we don't check for amountLeft being positive due to nominal programming of amounts
-		if (amountLeft != 0) {
+		// we don't check for the amount left being positive due to nominal programming of amounts
+		if (baseAmountLeft != 0) {
+			Unit newUnit = Unit.getBestUnitForStateAndBaseAmount(ingredient.getState(), baseAmountLeft);
 			addAsIngredient(new AlchemicIngredient(
-					amountLeft,
-					ingredient.getUnit(),
+					(int) (baseAmountLeft / newUnit.getBaseEquivalent()),
+					newUnit,
 					new Temperature(ingredient.getTemperature()),
 					ingredient.getType(),
 					ingredient.getState()
@@ -576,13 +681,34 @@ public class Laboratory extends StorageLocation {
 	 * @note 	This still returns a double because we want the exact stored amount of a laboratory	.
 	 */
 	public double getStoredAmount() {
-		double amount = 0;
+		return (double) getStoredBaseAmount() / Unit.STOREROOM.getBaseEquivalent();
+	}
+
+	/**
+	 * A method for getting the total amount of ingredients stored in this laboratory,
+	 * expressed in base quantities.
+	 *
+	 * @return	The total size of ingredients stored in this laboratory in base quantities.
+	 * 			| result == sum( {for I in 0..getNbOfIngredients()-1: getIngredientAt(I).getBaseAmount()} )
+	 */
+	public long getStoredBaseAmount() {
+		long amount = 0;
 		for (int i = 0; i < getNbOfIngredients(); i++) {
-			amount += getIngredientAt(i).getStoreroomAmount();
+			amount += getIngredientAt(i).getBaseAmount();
 		}
 		return amount;
 	}
 
+	/**
+	 * A method for getting the capacity of this laboratory, expressed in base quantities.
+	 *
+	 * @return	The capacity of this laboratory in base quantities.
+	 * 			| result == getCapacity() * Unit.STOREROOM.getBaseEquivalent()
+	 */
+	public long getBaseCapacity() {
+		return getCapacity() * Unit.STOREROOM.getBaseEquivalent();
+	}
+
 	/**
 	 * A method for checking if a given container exceeds the capacity of this laboratory
 	 * if it were to be added.
@@ -591,7 +717,7 @@ public class Laboratory extends StorageLocation {
 	 * 			The container to check.
 	 *
 	 * @return	True if and only if the given container exceeds the capacity of this laboratory.
-	 * 			| result == getStoredAmount() + container.getContent().getStoreroomAmount() > getCapacity()
+	 * 			| result == getStoredBaseAmount() + container.getContent().getBaseAmount() > getBaseCapacity()
 	 *
 	 * @throws	NullPointerException
 	 * 			The container is null.
@@ -601,7 +727,7 @@ public class Laboratory extends StorageLocation {
 		if (container == null) {
 			throw new NullPointerException("The container is null!");
 		}
-		return getStoredAmount() + container.getContent().getStoreroomAmount() > getCapacity();
+		return getStoredBaseAmount() + container.getContent().getBaseAmount() > getBaseCapacity();
 	}
 
 	/**
@@ -618,7 +744,7 @@ public class Laboratory extends StorageLocation {
 	 * 			|	then getDeviceOfType(Kettle.class).addContainer(container)
 	 * 			|		&& getDeviceOfType(Kettle.class).addContainer(getAllOfIngredientAt(getIndexOfSimpleName(container.getContent().getSimpleName())))
 	 * 			|		&& getDeviceOfType(Kettle.class).executeOperation()
-	 * 			|		&& super.addContainer(getDeviceOfType(Kettle.class).getResult())
+	 * 			|		&& addMixedContainer(getDeviceOfType(Kettle.class).getResult())
 	 *
 	 * @throws 	NullPointerException
 	 * 			The container is null.
@@ -629,6 +755,9 @@ public class Laboratory extends StorageLocation {
 	 * @throws 	IllegalStateException
 	 * 			The content needs to be mixed with another ingredient with the same name but there isn't a kettle.
 	 * 			| hasIngredientWithSimpleName(container.getContent().getSimpleName()) && !hasDeviceOfType(Kettle.class)
+	 * @throws	IllegalStateException
+	 * 			The content needs to be mixed with another ingredient with the same name but the kettle is streaming.
+	 * 			| hasIngredientWithSimpleName(container.getContent().getSimpleName()) && hasStreamingKettle()
 	 */
 	@Override
 	public void addContainer(IngredientContainer container) throws NullPointerException, IllegalArgumentException, IllegalStateException {
@@ -637,13 +766,19 @@ public class Laboratory extends StorageLocation {
 			throw new NullPointerException("The container is null!");
 		}
 		if (exceedsCapacity(container)) {
+			CAPACITY_REJECTIONS.increment();
 			throw new IllegalArgumentException("The content of the container is too large to fit inside this lab!");
 		}
 		if (hasIngredientWithSimpleName(container.getContent().getSimpleName()) && !hasDeviceOfType(Kettle.class)) {
 			throw new IllegalStateException("There is already an ingredient with the same name in the lab, but there is no kettle in the lab!");
 		}
+		if (hasIngredientWithSimpleName(container.getContent().getSimpleName()) && hasStreamingKettle()) {
+			throw new IllegalStateException("There is already an ingredient with the same name in the lab, but the kettle is streaming!");
+		}
+		long start = System.nanoTime();
 		container = bringToStandardTemperature(container);
 		// mix with ingredients with same name
+		boolean mixed = false;
 		try {
 			int indexSameName = getIndexOfSimpleName(container.getContent().getSimpleName());
 			Kettle kettle = getDeviceOfType(Kettle.class);
@@ -651,10 +786,221 @@ public class Laboratory extends StorageLocation {
 			kettle.addContainer(getAllOfIngredientAt(indexSameName));
 			kettle.executeOperation();
 			container = kettle.getResult();
+			mixed = true;
 		} catch (IngredientNotPresentException | IllegalArgumentException e) {
 			// no ingredient with the same name
 		}
+		if (mixed) {
+			addMixedContainer(container);
+		} else {
+			super.addContainer(container);
+		}
+		ADD_CONTAINER_NANOS.recordSince(start);
+	}
+
+	/**
+	 * A method to add the ingredients of a collection of containers to this laboratory at once.
+	 *
+	 * @param 	containers
+	 * 			The containers of which the contents should be added to the laboratory.
+	 *
+	 * @effect	The containers are grouped by the simple name of their content. The contents of each group
+	 * 			are mixed in the kettle, if there is more than one, and the result is brought to its
+	 * 			standard temperature once. If there is already an ingredient with the same simple name
+	 * 			in this laboratory, it is mixed with the result in the kettle.
+	 * @post	If an exception is thrown, this laboratory and the given containers are left unchanged.
+	 *
+	 * @throws	NullPointerException
+	 * 			The collection or one of the containers is null.
+	 * 			| containers == null || containers.contains(null)
+	 * @throws	IllegalArgumentException
+	 * 			One of the containers is terminated or occurs more than once.
+	 * @throws	IllegalArgumentException
+	 * 			The contents of the containers together exceed the capacity.
+	 * 			| getStoredBaseAmount() + sum{ C.getContent().getBaseAmount() | C in containers } > getBaseCapacity()
+	 * @throws	IllegalArgumentException
+	 * 			An ingredient in this laboratory that has to be mixed doesn't fit in a container,
+	 * 			or the contents that have to be mixed together don't fit in a container, since the
+	 * 			result of the kettle would be cut to one.
+	 * @throws	IllegalStateException
+	 * 			Contents need to be mixed but there isn't a kettle or it is streaming, or they may need to be
+	 * 			cooled or heated but there isn't a cooling box or an oven. Since the oven can overshoot,
+	 * 			contents that may need to be heated need a cooling box as well.
+	 *
+	 * @note	Everything that can fail is checked before anything changes. Since the mix of a group
+	 * 			can only be as hot as its hottest content and as cold as its coldest one, and its standard
+	 * 			temperature is the standard temperature of one of its contents, a cooling box (or oven)
+	 * 			is only required if some content is hotter (or colder) than some standard temperature.
+	 * @note	Unlike repeated calls to addContainer(), the capacity is checked once, the stock is scanned
+	 * 			once, and every group goes through the temperature devices once.
+	 * @note	With a device pool, the groups are prepared in parallel on the workbenches. If the oven of this
+	 * 			laboratory has a noise source that can be split, such as a seeded one, every oven of the pool gets
+	 * 			a split of it, so a seeded laboratory stays deterministic. If it has a noise source that can't be split,
+	 * 			the groups are prepared one by one with the devices of this laboratory.
+	 */
+	public void addContainers(Collection<IngredientContainer> containers) throws NullPointerException, IllegalArgumentException, IllegalStateException {
+		if (containers == null) {
+			throw new NullPointerException("The collection of containers is null!");
+		}
+
+		// group the containers by simple name, in the order in which they arrive
+		Map<String, List<IngredientContainer>> groups = new LinkedHashMap<>();
+		Set<IngredientContainer> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+		long incomingBaseAmount = 0;
+		for (IngredientContainer container : containers) {
+			if (container == null) {
+				throw new NullPointerException("The container is null!");
+			}
+			if (container.isTerminated() || !seen.add(container)) {
+				throw new IllegalArgumentException("The containers must not be terminated and must occur only once!");
+			}
+			incomingBaseAmount += container.getContent().getBaseAmount();
+			groups.computeIfAbsent(container.getContent().getSimpleName(), name -> new ArrayList<>()).add(container);
+		}
+		if (getStoredBaseAmount() + incomingBaseAmount > getBaseCapacity()) {
+			CAPACITY_REJECTIONS.increment();
+			throw new IllegalArgumentException("The contents of the containers are too large to fit inside this lab!");
+		}
+
+		// a single pass over the stock for the simple names that arrive
+		Map<String, AlchemicIngredient> inStock = new HashMap<>();
+		for (int i = 0; i < getNbOfIngredients(); i++) {
+			AlchemicIngredient ingredient = getIngredientAt(i);
+			if (groups.containsKey(ingredient.getSimpleName())) {
+				inStock.putIfAbsent(ingredient.getSimpleName(), ingredient);
+				if (ingredient.getBaseAmount() > Unit.getMaxUnitForContainerWithState(ingredient.getState()).getBaseEquivalent()) {
+					throw new IllegalArgumentException("The ingredient " + ingredient.getSimpleName() + " in the lab is too large to be mixed!");
+				}
+			}
+		}
+
+		// check the devices that are needed
+		boolean needsKettle = false;
+		boolean needsCoolingBox = false;
+		boolean needsOven = false;
+		for (Map.Entry<String, List<IngredientContainer>> group : groups.entrySet()) {
+			boolean mixes = group.getValue().size() > 1 || inStock.containsKey(group.getKey());
+			needsKettle |= mixes;
+			// the kettle gives its result in a single container, so a mix must fit in one
+			long mixedBaseAmount = inStock.containsKey(group.getKey()) ? inStock.get(group.getKey()).getBaseAmount() : 0;
+			for (IngredientContainer container : group.getValue()) {
+				mixedBaseAmount += container.getContent().getBaseAmount();
+			}
+			State state = group.getValue().get(0).getContent().getState();
+			if (mixes && mixedBaseAmount > Unit.getMaxUnitForContainerWithState(state).getBaseEquivalent()) {
+				throw new IllegalArgumentException("The ingredients " + group.getKey() + " together are too large to be mixed!");
+			}
+			long hottest = Long.MIN_VALUE;
+			long coldest = Long.MAX_VALUE;
+			long hottestStandard = Long.MIN_VALUE;
+			long coldestStandard = Long.MAX_VALUE;
+			for (IngredientContainer container : group.getValue()) {
+				AlchemicIngredient content = container.getContent();
+				long temperature = content.getHotness() - content.getColdness();
+				long standardTemperature = content.getType().getStandardTemperature()[1] - content.getType().getStandardTemperature()[0];
+				hottest = Math.max(hottest, temperature);
+				coldest = Math.min(coldest, temperature);
+				hottestStandard = Math.max(hottestStandard, standardTemperature);
+				coldestStandard = Math.min(coldestStandard, standardTemperature);
+			}
+			boolean mayHeat = coldest < hottestStandard;
+			// the oven isn't exact, so heating may have to be followed by cooling
+			needsCoolingBox |= hottest > coldestStandard || mayHeat;
+			needsOven |= mayHeat;
+		}
+		if (needsKettle && !hasDeviceOfType(Kettle.class)) {
+			throw new IllegalStateException("Ingredients need to be mixed, but there is no kettle in the lab!");
+		}
+		if (needsKettle && hasStreamingKettle()) {
+			throw new IllegalStateException("Ingredients need to be mixed, but the kettle of the lab is streaming!");
+		}
+		if (needsCoolingBox && !hasDeviceOfType(CoolingBox.class)) {
+			throw new IllegalStateException("Ingredients may need to be cooled, but there is no cooling box in the lab!");
+		}
+		if (needsOven && !hasDeviceOfType(Oven.class)) {
+			throw new IllegalStateException("Ingredients may need to be heated, but there is no oven in the lab!");
+		}
+
+		// mix every group and bring it to its standard temperature once,
+		// in parallel on the workbenches if there is a device pool
+		List<List<IngredientContainer>> groupList = new ArrayList<>(groups.values());
+		IngredientContainer[] prepared = new IngredientContainer[groupList.size()];
+		RandomGenerator noiseSource = needsOven ? getDeviceOfType(Oven.class).getNoiseSource() : null;
+		// a noise source that can't be split can't be shared by the ovens of the pool
+		boolean canPool = noiseSource == null || noiseSource instanceof RandomGenerator.SplittableGenerator;
+		int nbOfWorkbenches = canPool ? Math.min(getDevicePoolSize(), groupList.size()) : 0;
+		if (nbOfWorkbenches < 2) {
+			for (int i = 0; i < groupList.size(); i++) {
+				prepared[i] = prepareGroup(groupList.get(i));
+			}
+		} else {
+			List<Laboratory> benches = workbenches;
+			for (int bench = 0; bench < nbOfWorkbenches; bench++) {
+				benches.get(bench).getDeviceOfType(Oven.class).setNoiseSource(
+						(noiseSource == null) ? null : ((RandomGenerator.SplittableGenerator) noiseSource).split());
+			}
+			IntStream.range(0, nbOfWorkbenches).parallel().forEach(bench -> {
+				for (int i = bench; i < groupList.size(); i += nbOfWorkbenches) {
+					prepared[i] = benches.get(bench).prepareGroup(groupList.get(i));
+				}
+			});
+		}
+
+		// mix with the ingredients with the same simple name and insert the results
+		Kettle kettle = needsKettle ? getDeviceOfType(Kettle.class) : null;
+		for (IngredientContainer container : prepared) {
+			String simpleName = container.getContent().getSimpleName();
+			if (inStock.containsKey(simpleName)) {
+				kettle.addContainer(container);
+				kettle.addContainer(getAllOfIngredientAt(getIndexOfSimpleName(simpleName)));
+				kettle.executeOperation();
+				addMixedContainer(kettle.getResult());
+			} else {
+				super.addContainer(container);
+			}
+		}
+	}
+
+	/**
+	 * A help method to add the content of a container that is the result of mixing ingredients
+	 * with the same simple name in the kettle.
+	 *
+	 * @param 	container
+	 * 			The container with the result.
+	 *
+	 * @effect	The content of the container is added.
+	 * 			| super.addContainer(container)
+	 * @effect	The merge is published on the change feed of this laboratory.
+	 * 			| publishChange(ChangeEvent.Kind.INGREDIENT_MERGED, container.getContent(), null, null, 0)
+	 */
+	@Model
+	private void addMixedContainer(IngredientContainer container) {
+		AlchemicIngredient result = container.getContent();
 		super.addContainer(container);
+		publishChange(ChangeEvent.Kind.INGREDIENT_MERGED, result, null, null, 0);
+	}
+
+	/**
+	 * A help method to mix the contents of a group of containers with the same simple name
+	 * and to bring the result to its standard temperature, with the devices of this laboratory.
+	 *
+	 * @param 	group
+	 * 			The containers of the group.
+	 *
+	 * @return	The container with the result.
+	 */
+	@Model
+	private IngredientContainer prepareGroup(List<IngredientContainer> group) {
+		IngredientContainer container = group.get(0);
+		if (group.size() > 1) {
+			Kettle kettle = getDeviceOfType(Kettle.class);
+			for (IngredientContainer member : group) {
+				kettle.addContainer(member);
+			}
+			kettle.executeOperation();
+			container = kettle.getResult();
+		}
+		return bringToStandardTemperature(container);
 	}
 
 	/**
@@ -712,6 +1058,8 @@ public class Laboratory extends StorageLocation {
 		}
 
 		// because the oven is not exact, we need to keep heating/cooling until the temperature is standard!
+		AlchemyEvents.TemperatureConvergence convergence = new AlchemyEvents.TemperatureConvergence(container.getContent(), temperature);
+		int iterations = 0;
 		while (container.getContent().isColderThan(temperature) || container.getContent().isHotterThan(temperature)) {
 			if (container.getContent().isHotterThan(temperature)) {
 				// too hot -> cool
@@ -728,12 +1076,340 @@ public class Laboratory extends StorageLocation {
 				oven.executeOperation();
 				container = oven.getResult(); 					// oven is not exact so we need a while loop
 			}
+			iterations++;
 		}
+		TEMPERATURE_ITERATIONS.record(iterations);
+		convergence.iterations = iterations;
+		convergence.commit();
 		return container;
 	}
 
 
 
+	/**********************************************************
+	 * TRANSFER
+	 **********************************************************/
+
+	/**
+	 * A method to transfer given amounts of ingredients from this laboratory to another laboratory at once.
+	 *
+	 * @param 	target
+	 * 			The laboratory that gets the ingredients.
+	 * @param 	baseAmounts
+	 * 			The amounts to transfer, in base quantities, per simple name.
+	 *
+	 * @effect	For every simple name, in the order of the map, the given amount is withdrawn from the ingredient
+	 * 			with that simple name in this laboratory and handed over to the target. If the target has no ingredient
+	 * 			with that simple name and the amount is at its standard temperature, it is added as it is. Otherwise
+	 * 			it is brought to its standard temperature and mixed with the ingredient of the target in its kettle,
+	 * 			like addContainer() does.
+	 * @post	If an exception is thrown while an amount is handed over, that amount is back in this laboratory
+	 * 			and the target is as it was before that amount. The amounts that were handed over before stay
+	 * 			in the target and the others stay in this laboratory, so nothing is lost or duplicated.
+	 * 			Ingredients that were in the devices of the target before are set aside during every handover,
+	 * 			and the devices of this laboratory aren't used at all.
+	 *
+	 * @throws	NullPointerException
+	 * 			The target, the map or one of its amounts is null.
+	 * 			| target == null || baseAmounts == null || baseAmounts.containsValue(null)
+	 * @throws	IllegalArgumentException
+	 * 			The target is this laboratory.
+	 * 			| target == this
+	 * @throws	IllegalArgumentException
+	 * 			There is no ingredient with one of the simple names in this laboratory, or one of the amounts
+	 * 			is not positive, is more than there is in stock, or can't be expressed in the units of its state.
+	 * @throws	IllegalArgumentException
+	 * 			The amounts together exceed the capacity of the target.
+	 * 			| target.getStoredBaseAmount() + sum{ baseAmounts.get(N) | N in baseAmounts.keySet() } > target.getBaseCapacity()
+	 * @throws	IllegalArgumentException
+	 * 			An amount has to be mixed or brought to its standard temperature, but it doesn't fit in a container
+	 * 			together with the ingredient of the target that it is mixed with.
+	 * @throws	IllegalStateException
+	 * 			An amount has to be mixed, cooled or heated, but the target doesn't have a kettle, a cooling box or an oven.
+	 * 			Since the oven can overshoot, an amount that has to be heated needs a cooling box as well.
+	 * @throws	IllegalStateException
+	 * 			The kettle of the target is streaming, so the devices of the target can't be set aside.
+	 * 			| target.hasStreamingKettle()
+	 *
+	 * @note	Everything that can fail is checked before anything changes, and the capacity of the target is
+	 * 			checked once. Standard temperatures belong to the ingredient types, so they are the same in every
+	 * 			laboratory: an amount that is at its standard temperature here, which is the case for everything
+	 * 			that was added with addContainer(), doesn't go through the cooling box or the oven of the target.
+	 * 			Such an amount isn't put in a container either, so it can be larger than the largest container.
+	 */
+	public void transferTo(Laboratory target, Map<String, Long> baseAmounts) throws NullPointerException, IllegalArgumentException, IllegalStateException {
+		if (target == null || baseAmounts == null) {
+			throw new NullPointerException("The target and the amounts must be effective!");
+		}
+		if (target == this) {
+			throw new IllegalArgumentException("A laboratory can't transfer ingredients to itself!");
+		}
+		if (target.hasStreamingKettle()) {
+			throw new IllegalStateException("The kettle of the target is streaming!");
+		}
+
+		// check everything before anything changes
+		long incomingBaseAmount = 0;
+		for (Map.Entry<String, Long> entry : baseAmounts.entrySet()) {
+			String simpleName = entry.getKey();
+			if (entry.getValue() == null) {
+				throw new NullPointerException("The amount of " + simpleName + " is null!");
+			}
+			if (simpleName == null || !hasIngredientWithSimpleName(simpleName)) {
+				throw new IllegalArgumentException("There is no ingredient " + simpleName + " in this lab!");
+			}
+			AlchemicIngredient ingredient = getIngredientAt(getIndexOfSimpleName(simpleName));
+			long baseAmount = entry.getValue();
+			if (baseAmount <= 0 || baseAmount > ingredient.getBaseAmount()
+					|| baseAmount % Unit.getBestUnitForStateAndBaseAmount(ingredient.getState(), baseAmount).getBaseEquivalent() != 0) {
+				throw new IllegalArgumentException("The amount of " + simpleName + " is not a valid amount to transfer!");
+			}
+			incomingBaseAmount += baseAmount;
+			boolean mixes = target.hasIngredientWithSimpleName(simpleName);
+			boolean hotter = ingredient.isHotterThanStandardTemperature();
+			boolean colder = ingredient.isColderThanStandardTemperature();
+			if (mixes || hotter || colder) {
+				long containedBaseAmount = baseAmount;
+				if (mixes) {
+					containedBaseAmount += target.getIngredientAt(target.getIndexOfSimpleName(simpleName)).getBaseAmount();
+				}
+				if (containedBaseAmount > Unit.getMaxUnitForContainerWithState(ingredient.getState()).getBaseEquivalent()) {
+					throw new IllegalArgumentException("The amount of " + simpleName + " is too large to be mixed in the target!");
+				}
+			}
+			if (mixes && !target.hasDeviceOfType(Kettle.class)) {
+				throw new IllegalStateException("The amount of " + simpleName + " needs to be mixed, but there is no kettle in the target!");
+			}
+			// the oven isn't exact, so heating may have to be followed by cooling
+			if ((hotter || colder) && !target.hasDeviceOfType(CoolingBox.class)) {
+				throw new IllegalStateException("The amount of " + simpleName + " may need to be cooled, but there is no cooling box in the target!");
+			}
+			if (colder && !target.hasDeviceOfType(Oven.class)) {
+				throw new IllegalStateException("The amount of " + simpleName + " needs to be heated, but there is no oven in the target!");
+			}
+		}
+		if (target.getStoredBaseAmount() + incomingBaseAmount > target.getBaseCapacity()) {
+			CAPACITY_REJECTIONS.increment();
+			throw new IllegalArgumentException("The amounts are too large to fit inside the target!");
+		}
+
+		// hand over the amounts one by one, undoing the one that fails
+		for (Map.Entry<String, Long> entry : baseAmounts.entrySet()) {
+			Deque<Withdrawal> undoLog = new ArrayDeque<>();
+			Deque<Withdrawal> targetUndoLog = new ArrayDeque<>();
+			AlchemicIngredient ingredient = withdrawBaseAmount(getIndexOfSimpleName(entry.getKey()), entry.getValue(), undoLog);
+			Map<Device, List<AlchemicIngredient>> setAside = target.setAsideDeviceContents();
+			try {
+				target.receive(ingredient, targetUndoLog);
+			} catch (RuntimeException e) {
+				target.discardDeviceContents();
+				target.rollback(targetUndoLog);
+				rollback(undoLog);
+				throw e;
+			} finally {
+				target.putBackDeviceContents(setAside);
+			}
+		}
+	}
+
+	/**
+	 * A help method to add an ingredient that is transferred from another laboratory to this laboratory.
+	 *
+	 * @param 	ingredient
+	 * 			The ingredient to add.
+	 * @param 	undoLog
+	 * 			The log on which the withdrawal of the ingredient it is mixed with is pushed.
+	 *
+	 * @effect	If there is no ingredient with the same simple name and the ingredient is at its standard
+	 * 			temperature, the ingredient is added as it is.
+	 * 			| if (!hasIngredientWithSimpleName(ingredient.getSimpleName())
+	 * 			|		&& !ingredient.isHotterThanStandardTemperature() && !ingredient.isColderThanStandardTemperature())
+	 * 			|	then addAsIngredient(ingredient)
+	 * @effect	Otherwise, the ingredient is brought to its standard temperature, mixed in the kettle with
+	 * 			the ingredient with the same simple name, if there is one, and the result is added.
+	 */
+	@Model
+	private void receive(AlchemicIngredient ingredient, Deque<Withdrawal> undoLog) {
+		String simpleName = ingredient.getSimpleName();
+		boolean atStandardTemperature = !ingredient.isHotterThanStandardTemperature() && !ingredient.isColderThanStandardTemperature();
+		if (atStandardTemperature && !hasIngredientWithSimpleName(simpleName)) {
+			addAsIngredient(ingredient);
+			return;
+		}
+		IngredientContainer container = bringToStandardTemperature(new IngredientContainer(ingredient));
+		if (hasIngredientWithSimpleName(simpleName)) {
+			int index = getIndexOfSimpleName(simpleName);
+			Kettle kettle = getDeviceOfType(Kettle.class);
+			kettle.addContainer(container);
+			kettle.addContainer(new IngredientContainer(withdrawBaseAmount(index, getIngredientAt(index).getBaseAmount(), undoLog)));
+			kettle.executeOperation();
+			addMixedContainer(kettle.getResult());
+		} else {
+			super.addContainer(container);
+		}
+	}
+
+	/**
+	 * A method to withdraw a given amount, in base quantities, of the ingredient at a given index
+	 * and log the withdrawal.
+	 *
+	 * @param 	index
+	 * 			The index of the ingredient to withdraw from.
+	 * @param 	baseAmount
+	 * 			The amount to withdraw, in base quantities.
+	 * @param 	undoLog
+	 * 			The log on which the withdrawal is pushed.
+	 *
+	 * @pre		The amount is positive, at most the amount of the ingredient, and a multiple of
+	 * 			the smallest unit of its state.
+	 *
+	 * @effect	The ingredient is removed, and if something is left, the rest is added at the end,
+	 * 			in the best unit for the amount that is left.
+	 * @return	A new ingredient with the given amount, in the best unit for that amount, and the temperature,
+	 * 			the type and the state of the ingredient at the given index. It isn't in a container.
+	 *
+	 * @note	Unlike getAmountOfIngredientAt(), the withdrawn amount can be larger than the largest container.
+	 */
+	@Model
+	private AlchemicIngredient withdrawBaseAmount(int index, long baseAmount, Deque<Withdrawal> undoLog) {
+		AlchemicIngredient original = getIngredientAt(index);
+		removeAsIngredient(original);
+		AlchemicIngredient leftover = null;
+		if (baseAmount != original.getBaseAmount()) {
+			leftover = withBaseAmount(original, original.getBaseAmount() - baseAmount);
+			addAsIngredient(leftover);
+		}
+		undoLog.push(new Withdrawal(index, original, leftover));
+		return withBaseAmount(original, baseAmount);
+	}
+
+	/**
+	 * Return a new ingredient with the given amount, in base quantities, expressed in the best unit for that amount,
+	 * and the temperature, the type and the state of the given ingredient.
+	 */
+	@Model
+	private static AlchemicIngredient withBaseAmount(AlchemicIngredient ingredient, long baseAmount) {
+		Unit unit = Unit.getBestUnitForStateAndBaseAmount(ingredient.getState(), baseAmount);
+		return new AlchemicIngredient(
+				(int) (baseAmount / unit.getBaseEquivalent()),
+				unit,
+				new Temperature(ingredient.getTemperature()),
+				ingredient.getType(),
+				ingredient.getState()
+		);
+	}
+
+
+
+	/**********************************************************
+	 * BREWABLE RECIPES
+	 **********************************************************/
+
+	/**
+	 * A variable referencing the trackers of the brewable recipes, per recipe book that has been queried.
+	 *
+	 * @note	Recipe books don't override equals(Object), so they are compared by reference.
+	 * 			A tracker doesn't reference its recipe book, so it disappears together with its recipe book.
+	 */
+	private final Map<RecipeBook, BrewableRecipes> brewableRecipes = new WeakHashMap<>();
+
+	/**
+	 * Return the recipes of the given recipe book that can be executed in this laboratory right now,
+	 * in the order of their pages.
+	 *
+	 * @param 	recipeBook
+	 * 			The recipe book.
+	 *
+	 * @return	The recipes of the recipe book for which this laboratory has the devices
+	 * 			and has enough of every ingredient, summed over all additions of the same ingredient.
+	 * 			| for each recipe in result:
+	 * 			|	recipeBook.hasAsRecipe(recipe) && hasDevicesForRecipe(recipe)
+	 * 			|	&& (for each I in 0..recipe.getNbOfIngredients()-1:
+	 * 			|		hasEnoughToObtain(recipe.getIngredientAt(I), 1))
+	 *
+	 * @throws	NullPointerException
+	 * 			The given recipe book is not effective.
+	 * 			| recipeBook == null
+	 *
+	 * @note	The first query for a recipe book computes the answer from scratch. From then on, every
+	 * 			ingredient that is added to or removed from this laboratory only updates the recipes
+	 * 			that need it, so a query doesn't check the stock of every recipe again.
+	 */
+	public List<Recipe> getBrewableRecipes(RecipeBook recipeBook) throws NullPointerException {
+		if (recipeBook == null) {
+			throw new NullPointerException("The recipe book must be effective.");
+		}
+		return brewableRecipes.computeIfAbsent(recipeBook, book -> new BrewableRecipes(this, book)).getBrewableRecipes(recipeBook);
+	}
+
+	/**
+	 * A method for adding an ingredient to this laboratory.
+	 *
+	 * @param 	ingredient
+	 * 			The ingredient to add.
+	 *
+	 * @effect	The ingredient is added using the superclass method.
+	 * 			| super.addAsIngredient(ingredient)
+	 * @effect	The trackers of the brewable recipes are updated.
+	 */
+	@Override @Model
+	protected void addAsIngredient(AlchemicIngredient ingredient) throws IllegalArgumentException {
+		super.addAsIngredient(ingredient);
+		stockChanged(ingredient, ingredient.getBaseAmount());
+	}
+
+	/**
+	 * A method for adding an ingredient to this laboratory at a given index.
+	 *
+	 * @param 	index
+	 * 			The index at which the ingredient is inserted.
+	 * @param 	ingredient
+	 * 			The ingredient to add.
+	 *
+	 * @effect	The ingredient is added using the superclass method.
+	 * 			| super.addAsIngredientAt(index, ingredient)
+	 * @effect	The trackers of the brewable recipes are updated.
+	 */
+	@Override @Model
+	protected void addAsIngredientAt(int index, AlchemicIngredient ingredient) throws IndexOutOfBoundsException, IllegalArgumentException {
+		super.addAsIngredientAt(index, ingredient);
+		stockChanged(ingredient, ingredient.getBaseAmount());
+	}
+
+	/**
+	 * A method for removing the ingredient at a given index from this laboratory.
+	 *
+	 * @param 	index
+	 * 			The index of the ingredient to be removed.
+	 *
+	 * @effect	The ingredient is removed using the superclass method.
+	 * 			| super.removeIngredientAt(index)
+	 * @effect	The trackers of the brewable recipes are updated.
+	 */
+	@Override
+	public void removeIngredientAt(int index) throws IndexOutOfBoundsException {
+		AlchemicIngredient ingredient = getIngredientAt(index);
+		super.removeIngredientAt(index);
+		stockChanged(ingredient, -ingredient.getBaseAmount());
+	}
+
+	/**
+	 * A method to let the trackers of the brewable recipes know that the stock of an ingredient has changed.
+	 *
+	 * @param 	ingredient
+	 * 			The ingredient that is added or removed.
+	 * @param 	difference
+	 * 			The change of the stock, in base quantities.
+	 */
+	@Model
+	private void stockChanged(AlchemicIngredient ingredient, long difference) {
+		for (BrewableRecipes brewable : brewableRecipes.values()) {
+			brewable.stockChanged(ingredient.getSimpleName(), difference);
+		}
+	}
+
+
+
 	/**********************************************************
 	 * RECIPE EXECUTION
 	 **********************************************************/
@@ -742,6 +1418,14 @@ public class Laboratory extends StorageLocation {
 	 * A method to execute a recipe in a laboratory an x amount of times.
 	 *
 	 * @note 	The specification for this method is not required.
+	 * @note	The execution is transactional: if the laboratory runs out of an ingredient halfway, or if
+	 * 			an operation throws, every withdrawal is undone in reverse order, the intermediate products
+	 * 			in the devices are discarded and the ingredients of the laboratory are restored exactly,
+	 * 			at their original positions. Only the withdrawals are logged, the inventory is never copied.
+	 * @note	Ingredients that are in the devices before the execution are set aside for its duration,
+	 * 			so they are neither mixed into the result nor discarded when the execution fails.
+	 * @note	A complete execution is published on the change feed after the changes of the ingredients it consists of.
+	 * @note	A streaming kettle can't be set aside, so the laboratory can't execute a recipe while its kettle is streaming.
 	 */
 	public void execute(Recipe recipe, int multiplier) throws IllegalStateException {
 
@@ -749,15 +1433,26 @@ public class Laboratory extends StorageLocation {
 		if (!isValidMultiplier(multiplier)) {
 			throw new IllegalArgumentException("The multiplier must be greater than zero.");
 		}
+		if (recipe.getNbOfOperations() == 0) {
+			throw new IllegalArgumentException("The recipe has no instructions.");
+		}
 		if (!hasDevicesForRecipe(recipe)) {
 			throw new IllegalStateException("The laboratory does not have the required devices for this recipe.");
 		}
+		if (hasStreamingKettle()) {
+			throw new IllegalStateException("The kettle of the laboratory is streaming.");
+		}
 
 		IngredientContainer currentIngredientContainer = null;
 		int addCounter = 0;
 		int i = 0;
 		int numberOfIterations = recipe.getNbOfOperations();
 		boolean enoughIngredientsLeft = true;
+		// the withdrawals of this execution, the most recent one first
+		Deque<Withdrawal> undoLog = new ArrayDeque<>();
+		AlchemyEvents.RecipeExecution execution = new AlchemyEvents.RecipeExecution(recipe, multiplier);
+		// whatever was in the devices before stays out of this execution
+		Map<Device, List<AlchemicIngredient>> setAside = setAsideDeviceContents();
 
 		// check if last instruction is a mix
 		// if not, add an extra while loop iteration
@@ -766,90 +1461,585 @@ public class Laboratory extends StorageLocation {
 			numberOfIterations++;
 		}
 
-		// loop over all iterations, while there are enough ingredients left
-		while (i < numberOfIterations && enoughIngredientsLeft) {
+		try {
+			// loop over all iterations, while there are enough ingredients left
+			while (i < numberOfIterations && enoughIngredientsLeft) {
 
-			Operation operation;
+				Operation operation;
 
-			if (i < recipe.getNbOfOperations()) {
-				// get the operation at the current index
-				operation = recipe.getOperationAt(i);
-			} else {
-				// the last operation was not a mix
-				operation = Operation.MIX;
-			}
+				if (i < recipe.getNbOfOperations()) {
+					// get the operation at the current index
+					operation = recipe.getOperationAt(i);
+				} else {
+					// the last operation was not a mix
+					operation = Operation.MIX;
+				}
+				long operationStart = System.nanoTime();
+				AlchemyEvents.RecipeStep step = new AlchemyEvents.RecipeStep(recipe, i, operation,
+						(operation == Operation.ADD) ? recipe.getIngredientAt(addCounter) : null);
 
-			// the first instruction is always add (cfr. class invariant on recipe)
-			if (operation == Operation.ADD) {
+				// the first instruction is always add (cfr. class invariant on recipe)
+				if (operation == Operation.ADD) {
 
-				// if this is the first operation or the last operation was mix, then we need to
-				// add a new ingredient to the kettle
-				if (currentIngredientContainer != null) {
-					getDeviceOfType(Kettle.class).addContainer(currentIngredientContainer);
-				}
+					// if this is the first operation or the last operation was mix, then we need to
+					// add a new ingredient to the kettle
+					if (currentIngredientContainer != null) {
+						getDeviceOfType(Kettle.class).addContainer(currentIngredientContainer);
+					}
+
+					AlchemicIngredient ingredientToAdd = recipe.getIngredientAt(addCounter);
+
+					// continue if we have enough ingredient left to add the next ingredient
+					if (hasEnoughToObtain(ingredientToAdd, multiplier)) {
+						currentIngredientContainer = withdraw(getIndexOfSimpleName(ingredientToAdd.getSimpleName()), ingredientToAdd.getAmount() * multiplier, ingredientToAdd.getUnit(), undoLog);
+					} else {
+						enoughIngredientsLeft = false;
+					}
+					// increment the add counter
+					addCounter++;
+
+				} else if (operation == Operation.COOL) {
 
-				AlchemicIngredient ingredientToAdd = recipe.getIngredientAt(addCounter);
+					Temperature currentTemperature = new Temperature(currentIngredientContainer.getContent().getTemperature());
+
+					// currentIngredient can't be null, since the first operation must be ADD
+					// add sets the currentIngredient to an effective object.
+					Temperature temperatureMinusTen = Temperature.add(currentTemperature, new Temperature(10, 0));
+
+					IngredientContainer container = currentIngredientContainer;
+
+					// use bring to temperature method
+					currentIngredientContainer = bringToTemperature(container, temperatureMinusTen.getTemperature());
+
+				} else if (operation == Operation.HEAT) {
+
+					// currentIngredient can't be null, since the first operation must be ADD
+					// add sets the currentIngredient to an effective object.
+					Temperature temperaturePlusTen = Temperature.add(new Temperature(currentIngredientContainer.getContent().getTemperature()), new Temperature(0, 10));
+
+					// use bring to temperature method (oven is not exact)
+					currentIngredientContainer = bringToTemperature(currentIngredientContainer, temperaturePlusTen.getTemperature());
 
-				// continue if we have enough ingredient left to add the next ingredient
-				if (hasEnoughToObtain(ingredientToAdd, multiplier)) {
-					currentIngredientContainer = getAmountOfIngredientAt(getIndexOfSimpleName(ingredientToAdd.getSimpleName()), ingredientToAdd.getAmount() * multiplier, ingredientToAdd.getUnit());
 				} else {
-					enoughIngredientsLeft = false;
+
+					// this is executed if the operation is MIX,
+					// or if the last operation was not a MIX (then we need to mix everything)
+
+					Kettle kettle = getDeviceOfType(Kettle.class);
+
+					// ingredients can already be added in the ADD instruction,
+					// here we also add the last ingredient to the kettle
+					kettle.addContainer(currentIngredientContainer);
+					kettle.executeOperation();
+
+					// replace the current ingredient with the result of the kettle
+					currentIngredientContainer = kettle.getResult();
+
 				}
-				// increment the add counter
-				addCounter++;
 
-			} else if (operation == Operation.COOL) {
+				EXECUTE_NANOS.get(operation).recordSince(operationStart);
+				step.commit();
 
-				Temperature currentTemperature = new Temperature(currentIngredientContainer.getContent().getTemperature());
+				// increment the operation counter (for the while loop)
+				i++;
 
-				// currentIngredient can't be null, since the first operation must be ADD
-				// add sets the currentIngredient to an effective object.
-				Temperature temperatureMinusTen = Temperature.add(currentTemperature, new Temperature(10, 0));
+			}
 
-				IngredientContainer container = currentIngredientContainer;
+			// add the resulting ingredient to the laboratory,
+			// if there is a resulting ingredient and there are enough ingredients left
+			if (currentIngredientContainer != null && enoughIngredientsLeft) {
+				// we can't use the addContainer method, because this brings the ingredient to standard temperature!
+				addAsIngredient(currentIngredientContainer.obtainContent());
+			}
+		} catch (RuntimeException e) {
+			discardDeviceContents();
+			rollback(undoLog);
+			putBackDeviceContents(setAside);
+			execution.commit();
+			throw e;
+		}
 
-				// use bring to temperature method
-				currentIngredientContainer = bringToTemperature(container, temperatureMinusTen.getTemperature());
+		// not enough ingredients left: undo everything that was withdrawn so far
+		if (!enoughIngredientsLeft) {
+			discardDeviceContents();
+			rollback(undoLog);
+		} else {
+			publishChange(ChangeEvent.Kind.RECIPE_EXECUTED, null, null, recipe, multiplier);
+		}
+		putBackDeviceContents(setAside);
+		execution.succeeded = enoughIngredientsLeft;
+		execution.commit();
 
-			} else if (operation == Operation.HEAT) {
+	}
 
-				// currentIngredient can't be null, since the first operation must be ADD
-				// add sets the currentIngredient to an effective object.
-				Temperature temperaturePlusTen = Temperature.add(new Temperature(currentIngredientContainer.getContent().getTemperature()), new Temperature(0, 10));
+	/**
+	 * A class representing a withdrawal of an ingredient from this laboratory during the execution
+	 * of a recipe, i.e. the removed ingredient, its original position and the ingredient that
+	 * was left in its place, if any.
+	 */
+	private static final class Withdrawal {
 
-				// use bring to temperature method (oven is not exact)
-				currentIngredientContainer = bringToTemperature(currentIngredientContainer, temperaturePlusTen.getTemperature());
+		private final int index;
+		private final AlchemicIngredient original;
+		private final AlchemicIngredient leftover;
 
-			} else {
+		private Withdrawal(int index, AlchemicIngredient original, AlchemicIngredient leftover) {
+			this.index = index;
+			this.original = original;
+			this.leftover = leftover;
+		}
 
-				// this is executed if the operation is MIX,
-				// or if the last operation was not a MIX (then we need to mix everything)
+	}
 
-				Kettle kettle = getDeviceOfType(Kettle.class);
+	/**
+	 * A method to withdraw a given amount of the ingredient at a given index and log the withdrawal.
+	 *
+	 * @param 	index
+	 * 			The index of the ingredient to withdraw from.
+	 * @param 	amount
+	 * 			The amount to withdraw.
+	 * @param 	unit
+	 * 			The unit of the amount.
+	 * @param 	undoLog
+	 * 			The log on which the withdrawal is pushed.
+	 *
+	 * @effect	The given amount of the ingredient at the given index is withdrawn.
+	 * 			| getAmountOfIngredientAt(index, amount, unit)
+	 * @return	The withdrawn amount, in a new container.
+	 * 			| result == getAmountOfIngredientAt(index, amount, unit)
+	 */
+	@Model
+	private IngredientContainer withdraw(int index, int amount, Unit unit, Deque<Withdrawal> undoLog) {
+		AlchemicIngredient original = getIngredientAt(index);
+		int nbOfIngredients = getNbOfIngredients();
+		IngredientContainer container = getAmountOfIngredientAt(index, amount, unit);
+		// if something is left, it is added at the end (in place of the removed ingredient)
+		AlchemicIngredient leftover = (getNbOfIngredients() == nbOfIngredients) ? getIngredientAt(nbOfIngredients-1) : null;
+		undoLog.push(new Withdrawal(index, original, leftover));
+		return container;
+	}
 
-				// ingredients can already be added in the ADD instruction,
-				// here we also add the last ingredient to the kettle
-				kettle.addContainer(currentIngredientContainer);
-				kettle.executeOperation();
+	/**
+	 * A method to undo all withdrawals of a failed execution or transfer.
+	 *
+	 * @param 	undoLog
+	 * 			The withdrawals to undo, the most recent one first.
+	 *
+	 * @effect	For every withdrawal, in reverse order, the leftover ingredient is removed
+	 * 			and the original ingredient is put back at its original position.
+	 * @post	The undo log is empty.
+	 * 			| undoLog.isEmpty()
+	 *
+	 * @note	The devices are left alone: the intermediate products of a failed execution are
+	 * 			discarded separately, with discardDeviceContents().
+	 */
+	@Model
+	private void rollback(Deque<Withdrawal> undoLog) {
+		while (!undoLog.isEmpty()) {
+			Withdrawal withdrawal = undoLog.pop();
+			if (withdrawal.leftover != null) {
+				removeAsIngredient(withdrawal.leftover);
+			}
+			addAsIngredientAt(withdrawal.index, withdrawal.original);
+		}
+	}
 
-				// replace the current ingredient with the result of the kettle
-				currentIngredientContainer = kettle.getResult();
+	/**
+	 * A method to take the ingredients that are in the devices of this laboratory out of them,
+	 * so that an execution or a transfer only finds its own ingredients in the devices.
+	 *
+	 * @return	Per device that wasn't empty, the ingredients that were in it, in order.
+	 * @post	All devices of this laboratory are empty.
+	 * 			| for each device in devices: device.isEmpty()
+	 */
+	@Model
+	private Map<Device, List<AlchemicIngredient>> setAsideDeviceContents() {
+		Map<Device, List<AlchemicIngredient>> contents = new IdentityHashMap<>();
+		for (Device device : devices) {
+			if (!device.isEmpty()) {
+				List<AlchemicIngredient> ingredients = new ArrayList<>();
+				while (!device.isEmpty()) {
+					ingredients.add(device.getIngredientAt(0));
+					device.removeIngredientAt(0);
+				}
+				contents.put(device, ingredients);
+			}
+		}
+		return contents;
+	}
 
+	/**
+	 * A method to discard the ingredients in the devices of this laboratory, i.e. the intermediate
+	 * products of a failed execution or transfer, after the contents from before were set aside.
+	 *
+	 * @post	All devices of this laboratory are empty.
+	 * 			| for each device in devices: device.isEmpty()
+	 */
+	@Model
+	private void discardDeviceContents() {
+		for (Device device : devices) {
+			while (!device.isEmpty()) {
+				device.removeIngredientAt(device.getNbOfIngredients()-1);
 			}
+		}
+	}
 
-			// increment the operation counter (for the while loop)
-			i++;
+	/**
+	 * A method to put the ingredients that were set aside back in their devices.
+	 *
+	 * @param 	contents
+	 * 			The ingredients that were set aside, per device.
+	 *
+	 * @effect	Every ingredient is added to its device again, in its original order.
+	 * 			| for each device in contents.keySet():
+	 * 			|	for each ingredient in contents.get(device): device.addAsIngredient(ingredient)
+	 */
+	@Model
+	private void putBackDeviceContents(Map<Device, List<AlchemicIngredient>> contents) {
+		for (Map.Entry<Device, List<AlchemicIngredient>> entry : contents.entrySet()) {
+			for (AlchemicIngredient ingredient : entry.getValue()) {
+				entry.getKey().addAsIngredient(ingredient);
+			}
+		}
+	}
 
+	/**
+	 * A method to predict the outcome of executing a recipe in this laboratory an x amount of times,
+	 * without changing the laboratory.
+	 *
+	 * @param 	recipe
+	 * 			The recipe to plan.
+	 * @param 	multiplier
+	 * 			The multiplier to plan with.
+	 *
+	 * @return	A plan with the amounts of the ingredients that would be consumed, the operations
+	 * 			that would be executed and, if the execution would not complete, the reason and
+	 * 			the operation at which it would stop.
+	 * 			| result.getRecipe() == recipe && result.getMultiplier() == multiplier
+	 * @return	If the laboratory does not have the required devices, the plan fails before the first operation.
+	 * 			| if (!hasDevicesForRecipe(recipe))
+	 * 			|	then result.getFailure() == RecipePlan.Failure.MISSING_DEVICES
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			The multiplier is not valid.
+	 * 			| !isValidMultiplier(multiplier)
+	 * @throws	IllegalArgumentException
+	 * 			The recipe has no instructions.
+	 * 			| recipe.getNbOfOperations() == 0
+	 *
+	 * @note	The simulation follows execute(), operation by operation, but only keeps track of the
+	 * 			states and amounts, so the temperatures and the noise of the oven don't matter.
+	 */
+	public RecipePlan plan(Recipe recipe, int multiplier) throws IllegalArgumentException {
+		if (!isValidMultiplier(multiplier)) {
+			throw new IllegalArgumentException("The multiplier must be greater than zero.");
+		}
+		if (recipe.getNbOfOperations() == 0) {
+			throw new IllegalArgumentException("The recipe has no instructions.");
+		}
+		RecipePlan plan = new RecipePlan(recipe, multiplier);
+		if (!hasDevicesForRecipe(recipe)) {
+			plan.fail(RecipePlan.Failure.MISSING_DEVICES, -1);
+			return plan;
 		}
 
-		// add the resulting ingredient to the laboratory,
-		// if there is a resulting ingredient and there are enough ingredients left
-		if (currentIngredientContainer != null && enoughIngredientsLeft) {
-			// we can't use the addContainer method, because this brings the ingredient to standard temperature!
-			addAsIngredient(currentIngredientContainer.obtainContent());
+		// the amounts that are left in the laboratory, per simple name
+		Map<String, Long> baseAmountsLeft = new HashMap<>();
+		// the contents of the kettle, per state, and the ingredient with the standard temperature closest to [0, 20]
+		long[] kettleBaseAmounts = new long[State.values().length];
+		long kettleSmallestDifference = Long.MAX_VALUE;
+		State kettleNewState = null;
+		// the current ingredient
+		State currentState = null;
+		long currentBaseAmount = 0;
+		long currentDifference = 0;
+
+		int addCounter = 0;
+		int numberOfIterations = recipe.getNbOfOperations();
+		if (recipe.getOperationAt(recipe.getNbOfOperations()-1) != Operation.MIX) {
+			numberOfIterations++;
 		}
 
+		for (int i = 0; i < numberOfIterations; i++) {
+			Operation operation = (i < recipe.getNbOfOperations()) ? recipe.getOperationAt(i) : Operation.MIX;
+			plan.addOperation(operation);
+			if (operation == Operation.ADD || operation == Operation.MIX) {
+				// the current ingredient goes into the kettle
+				if (currentState != null) {
+					kettleBaseAmounts[currentState.ordinal()] += currentBaseAmount;
+					if (currentDifference < kettleSmallestDifference
+							|| (currentDifference == kettleSmallestDifference && currentState == State.LIQUID)) {
+						kettleSmallestDifference = currentDifference;
+						kettleNewState = currentState;
+					}
+					currentState = null;
+				}
+			}
+			if (operation == Operation.ADD) {
+				AlchemicIngredient ingredientToAdd = recipe.getIngredientAt(addCounter++);
+				String simpleName = ingredientToAdd.getSimpleName();
+				if (!hasIngredientWithSimpleName(simpleName)) {
+					plan.fail(RecipePlan.Failure.INSUFFICIENT_INGREDIENT, i);
+					return plan;
+				}
+				AlchemicIngredient inStock = getIngredientAt(getIndexOfSimpleName(simpleName));
+				long needed = ingredientToAdd.getBaseAmount() * multiplier;
+				long left = baseAmountsLeft.computeIfAbsent(simpleName, name -> inStock.getBaseAmount());
+				if (needed > left) {
+					plan.fail(RecipePlan.Failure.INSUFFICIENT_INGREDIENT, i);
+					return plan;
+				}
+				if (needed > Unit.getMaxUnitForContainerWithState(inStock.getState()).getBaseEquivalent()) {
+					plan.fail(RecipePlan.Failure.CONTAINER_CAPACITY, i);
+					return plan;
+				}
+				baseAmountsLeft.put(simpleName, left - needed);
+				plan.addConsumed(simpleName, needed);
+				currentState = inStock.getState();
+				currentBaseAmount = needed;
+				currentDifference = inStock.getType().getStandardTemperatureDifference(new long[]{0, 20});
+			} else if (operation == Operation.MIX) {
+				// the values of the other state get floored to whole spoons (cfr. Kettle)
+				long otherBaseAmount = kettleBaseAmounts[kettleNewState.getNext().ordinal()];
+				long mixedBaseAmount = otherBaseAmount - otherBaseAmount % Unit.BASE_QUANTITIES_PER_SPOON
+						+ kettleBaseAmounts[kettleNewState.ordinal()];
+				// the excess of the result goes to waste (cfr. Device.getResult())
+				long maxBaseAmount = Unit.getMaxUnitForContainerWithState(kettleNewState).getBaseEquivalent();
+				if (mixedBaseAmount > maxBaseAmount) {
+					plan.addWaste(mixedBaseAmount - maxBaseAmount);
+					mixedBaseAmount = maxBaseAmount;
+				}
+				currentState = kettleNewState;
+				currentBaseAmount = mixedBaseAmount;
+				currentDifference = kettleSmallestDifference;
+				kettleBaseAmounts[State.LIQUID.ordinal()] = 0;
+				kettleBaseAmounts[State.POWDER.ordinal()] = 0;
+				kettleSmallestDifference = Long.MAX_VALUE;
+				kettleNewState = null;
+			}
+			// heating and cooling don't change the state or the amount
+		}
+		plan.setResult(currentState, currentBaseAmount);
+		return plan;
+	}
+
+	/**
+	 * A method to compute the largest multiplier with which a recipe can be executed completely
+	 * in this laboratory.
+	 *
+	 * @param 	recipe
+	 * 			The recipe to compute the multiplier for.
+	 *
+	 * @return	Zero if the recipe has no instructions or the laboratory does not have
+	 * 			the required devices for the recipe.
+	 * 			| if (recipe.getNbOfOperations() == 0 || !hasDevicesForRecipe(recipe))
+	 * 			|	then result == 0
+	 * @return	Otherwise, the largest multiplier for which the plan of the recipe is feasible,
+	 * 			or zero if there is no such multiplier.
+	 * 			| if (result > 0)
+	 * 			|	then plan(recipe, result).isFeasible() && !plan(recipe, result+1).isFeasible()
+	 *
+	 * @note	Every ingredient that is added is withdrawn from the stock with the same simple name,
+	 * 			so the multiplier is bounded by the stock divided by the total amount per batch and by
+	 * 			the largest container for every single addition. The result of the recipe never takes
+	 * 			more room than the ingredients that are withdrawn for it (the kettle floors and the
+	 * 			device truncates), so the capacity of the laboratory never bounds the multiplier.
+	 */
+	public int maxMultiplierFor(Recipe recipe) {
+		if (recipe.getNbOfOperations() == 0 || !hasDevicesForRecipe(recipe)) {
+			return 0;
+		}
+		Map<String, long[]> baseAmountsPerBatch = getBaseAmountsPerBatch(recipe);
+		return (int) getMaxMultiplier(baseAmountsPerBatch, getStockFor(baseAmountsPerBatch.keySet()));
+	}
+
+	/**
+	 * Return, per simple name of the ingredients that are added in a given recipe, the total amount
+	 * per batch and the largest single addition, in base quantities, and the largest multiplier
+	 * for which the amounts of all additions still fit in an integer.
+	 *
+	 * @param 	recipe
+	 * 			The recipe to compute the amounts for.
+	 */
+	@Model
+	private static Map<String, long[]> getBaseAmountsPerBatch(Recipe recipe) {
+		Map<String, long[]> baseAmountsPerBatch = new HashMap<>();
+		for (int i = 0; i < recipe.getNbOfIngredients(); i++) {
+			AlchemicIngredient ingredient = recipe.getIngredientAt(i);
+			long[] baseAmounts = baseAmountsPerBatch.computeIfAbsent(ingredient.getSimpleName(),
+					name -> new long[]{0, 0, Integer.MAX_VALUE});
+			baseAmounts[0] += ingredient.getBaseAmount();
+			baseAmounts[1] = Math.max(baseAmounts[1], ingredient.getBaseAmount());
+			// the amount of each addition is an integer (cfr. getAmountOfIngredientAt)
+			if (ingredient.getAmount() > 0) {
+				baseAmounts[2] = Math.min(baseAmounts[2], Integer.MAX_VALUE / ingredient.getAmount());
+			}
+		}
+		return baseAmountsPerBatch;
+	}
+
+	/**
+	 * Return, per given simple name of an ingredient in this laboratory, the amount in stock and
+	 * the capacity of the largest container for its state, in base quantities.
+	 *
+	 * @param 	simpleNames
+	 * 			The simple names to look up.
+	 *
+	 * @note	The simple names in a laboratory are unique, so a single pass over the stock suffices.
+	 */
+	@Model
+	private Map<String, long[]> getStockFor(Set<String> simpleNames) {
+		Map<String, long[]> stock = new HashMap<>();
+		for (int i = 0; i < getNbOfIngredients() && stock.size() < simpleNames.size(); i++) {
+			AlchemicIngredient inStock = getIngredientAt(i);
+			if (simpleNames.contains(inStock.getSimpleName())) {
+				stock.put(inStock.getSimpleName(), new long[]{
+						inStock.getBaseAmount(),
+						Unit.getMaxUnitForContainerWithState(inStock.getState()).getBaseEquivalent()
+				});
+			}
+		}
+		return stock;
+	}
+
+	/**
+	 * Return the largest multiplier for given amounts per batch and a given stock.
+	 *
+	 * @param 	baseAmountsPerBatch
+	 * 			The amounts per batch, as returned by getBaseAmountsPerBatch().
+	 * @param 	stock
+	 * 			The stock, as returned by getStockFor().
+	 *
+	 * @return	The multiplier is bounded by the stock divided by the total amount per batch,
+	 * 			by the largest container divided by the largest single addition and by the bound
+	 * 			for the integer amounts. It is zero if an ingredient is not in stock.
+	 */
+	@Model
+	private static long getMaxMultiplier(Map<String, long[]> baseAmountsPerBatch, Map<String, long[]> stock) {
+		long maxMultiplier = Integer.MAX_VALUE;
+		for (Map.Entry<String, long[]> entry : baseAmountsPerBatch.entrySet()) {
+			long[] baseAmounts = entry.getValue();
+			long[] inStock = stock.get(entry.getKey());
+			if (inStock == null) {
+				return 0;
+			}
+			maxMultiplier = Math.min(maxMultiplier, baseAmounts[2]);
+			if (baseAmounts[0] > 0) {
+				maxMultiplier = Math.min(maxMultiplier, inStock[0] / baseAmounts[0]);
+				maxMultiplier = Math.min(maxMultiplier, inStock[1] / baseAmounts[1]);
+			}
+		}
+		return maxMultiplier;
+	}
+
+	/**
+	 * A method to choose which recipes of a recipe book to execute in this laboratory, and with
+	 * which multipliers, so as to produce as much as possible of the given targets with the
+	 * ingredients that are in stock.
+	 *
+	 * @param 	recipeBook
+	 * 			The recipe book to choose the recipes from.
+	 * @param 	targets
+	 * 			The amount of the result of each recipe that is wanted, in base quantities.
+	 *
+	 * @return	A production plan with only recipes of the given recipe book that have a strictly
+	 * 			positive target, each of them at most once.
+	 * 			| for each I in 0..result.getNbOfRuns()-1:
+	 * 			|	recipeBook.hasAsRecipe(result.getRecipeAt(I)) && targets.get(result.getRecipeAt(I)) > 0
+	 * @return	The runs can be executed one after the other with the ingredients in stock:
+	 * 			together, they never withdraw more of an ingredient than this laboratory has.
+	 *
+	 * @throws	NullPointerException
+	 * 			The given recipe book or targets are not effective.
+	 * 			| recipeBook == null || targets == null
+	 *
+	 * @note	The plan is computed greedily, with bounds: as long as there are candidates, the recipe
+	 * 			which produces the most per batch, relative to how much it uses of the ingredients that
+	 * 			are still left, is run with the largest multiplier that is allowed by the stock that is
+	 * 			left, that doesn't exceed the target and that doesn't let the result go to waste.
+	 * 			The results of the recipes are not used as ingredients of other recipes.
+	 */
+	public ProductionPlan planProduction(RecipeBook recipeBook, Map<Recipe, Long> targets) throws NullPointerException {
+		if (recipeBook == null || targets == null) {
+			throw new NullPointerException("The recipe book and the targets must be effective.");
+		}
+		ProductionPlan production = new ProductionPlan();
+
+		// the candidates, with their amounts per batch and their result per batch
+		Map<Recipe, Map<String, long[]>> candidates = new LinkedHashMap<>();
+		Map<Recipe, Long> resultsPerBatch = new HashMap<>();
+		Set<String> simpleNames = new HashSet<>();
+		for (int i = 0; i < recipeBook.getNbOfRecipes(); i++) {
+			Recipe recipe = recipeBook.getRecipeAt(i);
+			if (recipe != null && targets.getOrDefault(recipe, 0L) > 0
+					&& recipe.getNbOfOperations() > 0 && hasDevicesForRecipe(recipe)) {
+				RecipePlan plan = plan(recipe, 1);
+				if (plan.isFeasible() && plan.getResultBaseAmount() > 0) {
+					Map<String, long[]> baseAmountsPerBatch = getBaseAmountsPerBatch(recipe);
+					candidates.put(recipe, baseAmountsPerBatch);
+					resultsPerBatch.put(recipe, plan.getResultBaseAmount());
+					simpleNames.addAll(baseAmountsPerBatch.keySet());
+				}
+			}
+		}
+		// the stock that is left after the runs that are chosen so far
+		Map<String, long[]> stock = getStockFor(simpleNames);
+
+		while (!candidates.isEmpty()) {
+			Recipe bestRecipe = null;
+			long bestMultiplier = 0;
+			double bestScore = -1;
+			Iterator<Map.Entry<Recipe, Map<String, long[]>>> iterator = candidates.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<Recipe, Map<String, long[]>> candidate = iterator.next();
+				long resultPerBatch = resultsPerBatch.get(candidate.getKey());
+				long target = targets.get(candidate.getKey());
+				long multiplier = Math.min(getMaxMultiplier(candidate.getValue(), stock),
+						(target + resultPerBatch - 1) / resultPerBatch);
+				if (multiplier == 0) {
+					// not enough left for a single batch
+					iterator.remove();
+					continue;
+				}
+				// the fraction of what is left that one batch uses
+				double scarcity = 0;
+				for (Map.Entry<String, long[]> entry : candidate.getValue().entrySet()) {
+					if (entry.getValue()[0] > 0) {
+						scarcity += (double) entry.getValue()[0] / stock.get(entry.getKey())[0];
+					}
+				}
+				double score = (scarcity == 0) ? Double.MAX_VALUE : resultPerBatch / scarcity;
+				if (score > bestScore) {
+					bestRecipe = candidate.getKey();
+					bestMultiplier = multiplier;
+					bestScore = score;
+				}
+			}
+			if (bestRecipe == null) {
+				break;
+			}
+
+			// don't let the result of the run go to waste
+			if (bestMultiplier > 1 && plan(bestRecipe, (int) bestMultiplier).getWastedBaseAmount() > 0) {
+				long low = 1;
+				long high = bestMultiplier;
+				while (low < high) {
+					long middle = (low + high + 1) / 2;
+					if (plan(bestRecipe, (int) middle).getWastedBaseAmount() > 0) {
+						high = middle - 1;
+					} else {
+						low = middle;
+					}
+				}
+				bestMultiplier = low;
+			}
+
+			production.addRun(bestRecipe, (int) bestMultiplier, plan(bestRecipe, (int) bestMultiplier).getResultBaseAmount());
+			for (Map.Entry<String, long[]> entry : candidates.remove(bestRecipe).entrySet()) {
+				stock.get(entry.getKey())[0] -= entry.getValue()[0] * bestMultiplier;
+			}
+		}
+		return production;
 	}
 
 	/**
@@ -899,13 +2089,13 @@ public class Laboratory extends StorageLocation {
 	 * 			| if !hasIngredientWithSimpleName(ingredient.getSimpleName())
 	 * 			| 	then result == false
 	 * @return  False if the amount of ingredient required is more than available in the laboratory.
-	 * 			| if ( ingredient.getSpoonAmount() * multiplier >
-	 * 			|	getIngredientAt(getIndexOfSimpleName(ingredient.getSimpleName())).getSpoonAmount() )
+	 * 			| if ( ingredient.getBaseAmount() * multiplier >
+	 * 			|	getIngredientAt(getIndexOfSimpleName(ingredient.getSimpleName())).getBaseAmount() )
 	 * 			|	then result == false
 	 * @return  True otherwise.
 	 * 			| if ( hasIngredientWithSimpleName(ingredient.getSimpleName()) && (
-	 * 			|	ingredient.getSpoonAmount() * multiplier <=
-	 * 	  		|	getIngredientAt(getIndexOfSimpleName(ingredient.getSimpleName())).getSpoonAmount()) )
+	 * 			|	ingredient.getBaseAmount() * multiplier <=
+	 * 	  		|	getIngredientAt(getIndexOfSimpleName(ingredient.getSimpleName())).getBaseAmount()) )
 	 * 	  		|	then result == true
 	 *
 	 * @throws 	IllegalArgumentException
@@ -919,7 +2109,7 @@ public class Laboratory extends StorageLocation {
 		if (!hasIngredientWithSimpleName(ingredient.getSimpleName())) {
 			return false;
 		} else {
-			if (ingredient.getSpoonAmount() * multiplier > getIngredientAt(getIndexOfSimpleName(ingredient.getSimpleName())).getSpoonAmount()) {
+			if (ingredient.getBaseAmount() * multiplier > getIngredientAt(getIndexOfSimpleName(ingredient.getSimpleName())).getBaseAmount()) {
 				return false;
 			}
 		}
@@ -939,4 +2129,36 @@ public class Laboratory extends StorageLocation {
 		return multiplier > 0;
 	}
 
+
+
+	/**********************************************************
+	 * METRICS
+	 **********************************************************/
+
+	/**
+	 * The time it takes to add a container to a laboratory, in nanoseconds.
+	 */
+	private static final Histogram ADD_CONTAINER_NANOS = Metrics.histogram("laboratory_add_container_nanos");
+
+	/**
+	 * The number of containers that are refused because they don't fit in a laboratory.
+	 */
+	private static final Counter CAPACITY_REJECTIONS = Metrics.counter("laboratory_capacity_rejections_total");
+
+	/**
+	 * The number of times a container goes through a cooling box or an oven to reach a temperature.
+	 */
+	private static final Histogram TEMPERATURE_ITERATIONS = Metrics.histogram("laboratory_bring_to_temperature_iterations");
+
+	/**
+	 * The time it takes to execute an instruction of a recipe, in nanoseconds, per operation.
+	 */
+	private static final Map<Operation, Histogram> EXECUTE_NANOS = new EnumMap<>(Operation.class);
+
+	static {
+		for (Operation operation : Operation.values()) {
+			EXECUTE_NANOS.put(operation, Metrics.histogram("laboratory_execute_" + operation.name().toLowerCase() + "_nanos"));
+		}
+	}
+
 }
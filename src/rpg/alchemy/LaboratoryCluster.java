@@ -0,0 +1,429 @@
+package rpg.alchemy;
+
+import be.kuleuven.cs.som.annotate.*;
+import rpg.State;
+import rpg.Unit;
+import rpg.recipe.Recipe;
+import rpg.recipe.RecipeBook;
+
+import java.util.*;
+
+/**
+ * A class representing a group of laboratories that act as one, each of them owning the ingredients
+ * whose simple names hash to it.
+ *
+ * @invar	Every shard is effective, not terminated, and occurs only once.
+ * 			| for each I in 0..getNbOfShards()-1:
+ * 			|	getShardAt(I) != null
+ * 			|	&& for each J in I+1..getNbOfShards()-1: getShardAt(I) != getShardAt(J)
+ * @invar	Between calls to the methods of this cluster, every shard only holds ingredients it owns,
+ * 			if ingredients are only added through this cluster.
+ * 			| for each I in 0..getNbOfShards()-1:
+ * 			|	for each J in 0..getShardAt(I).getNbOfIngredients()-1:
+ * 			|		getShardFor(getShardAt(I).getIngredientAt(J).getSimpleName()) == getShardAt(I)
+ *
+ * @note	The shards are ordinary laboratories, so they can run in the same process, as they do in the tests,
+ * 			or stand in for laboratories elsewhere. Only this cluster coordinates them: ingredients move between
+ * 			shards like devices move between laboratories, i.e. the ingredient itself is handed over, unchanged.
+ *
+ * @author	Vincent Van Schependom
+ * @author 	Arne Claerhout
+ * @author	Flor De Meulemeester
+ *
+ * @version	1.0
+ */
+public class LaboratoryCluster {
+
+	/**********************************************************
+	 * CONSTRUCTOR
+	 **********************************************************/
+
+	/**
+	 * A constructor for a new cluster of the given laboratories.
+	 *
+	 * @param 	shards
+	 * 			The laboratories of the cluster, in a fixed order.
+	 *
+	 * @post	The shards of the new cluster are the given laboratories, in the given order.
+	 * 			| new.getNbOfShards() == shards.size()
+	 * 			| && for each I in 0..shards.size()-1: new.getShardAt(I) == shards.get(I)
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			There are no shards, or a shard is null or occurs more than once.
+	 * 			| shards == null || shards.isEmpty() || shards.contains(null)
+	 * 			| || (for some I, J in 0..shards.size()-1: I != J && shards.get(I) == shards.get(J))
+	 */
+	public LaboratoryCluster(List<Laboratory> shards) throws IllegalArgumentException {
+		if (shards == null || shards.isEmpty()) {
+			throw new IllegalArgumentException("A cluster needs at least one laboratory!");
+		}
+		Set<Laboratory> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Laboratory shard : shards) {
+			if (shard == null || !seen.add(shard)) {
+				throw new IllegalArgumentException("The laboratories of a cluster must be effective and distinct!");
+			}
+		}
+		this.shards = List.copyOf(shards);
+	}
+
+
+
+	/**********************************************************
+	 * SHARDS
+	 **********************************************************/
+
+	/**
+	 * A variable referencing the laboratories of this cluster.
+	 */
+	private final List<Laboratory> shards;
+
+	/**
+	 * Return the number of laboratories of this cluster.
+	 */
+	@Basic @Immutable
+	public int getNbOfShards() {
+		return shards.size();
+	}
+
+	/**
+	 * Return the laboratory of this cluster at the given index.
+	 *
+	 * @param 	index
+	 * 			The index of the laboratory.
+	 *
+	 * @throws	IndexOutOfBoundsException
+	 * 			The index is not valid.
+	 * 			| index < 0 || index >= getNbOfShards()
+	 */
+	@Basic @Immutable
+	public Laboratory getShardAt(int index) throws IndexOutOfBoundsException {
+		return shards.get(index);
+	}
+
+	/**
+	 * Return the index of the laboratory of this cluster that owns the ingredients with the given simple name.
+	 *
+	 * @param 	simpleName
+	 * 			The simple name.
+	 *
+	 * @return	The hash of the simple name, modulo the number of laboratories.
+	 * 			| result == Math.floorMod(simpleName.hashCode(), getNbOfShards())
+	 */
+	public int getIndexOfShardFor(String simpleName) {
+		return Math.floorMod(simpleName.hashCode(), getNbOfShards());
+	}
+
+	/**
+	 * Return the laboratory of this cluster that owns the ingredients with the given simple name.
+	 *
+	 * @param 	simpleName
+	 * 			The simple name.
+	 *
+	 * @return	| result == getShardAt(getIndexOfShardFor(simpleName))
+	 */
+	public Laboratory getShardFor(String simpleName) {
+		return getShardAt(getIndexOfShardFor(simpleName));
+	}
+
+
+
+	/**********************************************************
+	 * CAPACITY
+	 **********************************************************/
+
+	/**
+	 * Return the capacity of this cluster, in storerooms.
+	 *
+	 * @return	The sum of the capacities of the laboratories.
+	 * 			| result == sum{ getShardAt(I).getCapacity() | I in 0..getNbOfShards()-1 }
+	 */
+	public long getCapacity() {
+		long capacity = 0;
+		for (Laboratory shard : shards) {
+			capacity += shard.getCapacity();
+		}
+		return capacity;
+	}
+
+	/**
+	 * Return the capacity of this cluster, in base quantities.
+	 *
+	 * @return	The sum of the capacities of the laboratories.
+	 * 			| result == sum{ getShardAt(I).getBaseCapacity() | I in 0..getNbOfShards()-1 }
+	 */
+	public long getBaseCapacity() {
+		long capacity = 0;
+		for (Laboratory shard : shards) {
+			capacity += shard.getBaseCapacity();
+		}
+		return capacity;
+	}
+
+	/**
+	 * Return the amount that is stored in this cluster, in base quantities.
+	 *
+	 * @return	The sum of the amounts that are stored in the laboratories.
+	 * 			| result == sum{ getShardAt(I).getStoredBaseAmount() | I in 0..getNbOfShards()-1 }
+	 */
+	public long getStoredBaseAmount() {
+		long stored = 0;
+		for (Laboratory shard : shards) {
+			stored += shard.getStoredBaseAmount();
+		}
+		return stored;
+	}
+
+
+
+	/**********************************************************
+	 * INGREDIENTS
+	 **********************************************************/
+
+	/**
+	 * A method to add the content of a container to this cluster.
+	 *
+	 * @param 	container
+	 * 			The container of which the content should be added.
+	 *
+	 * @effect	The content is added to the laboratory that owns its simple name.
+	 * 			| getShardFor(container.getContent().getSimpleName()).addContainer(container)
+	 *
+	 * @throws	NullPointerException
+	 * 			The container is null.
+	 * 			| container == null
+	 *
+	 * @note	The capacity of the owning laboratory counts, not the capacity of the cluster.
+	 */
+	public void addContainer(IngredientContainer container) throws NullPointerException, IllegalArgumentException, IllegalStateException {
+		if (container == null) {
+			throw new NullPointerException("The container is null!");
+		}
+		getShardFor(container.getContent().getSimpleName()).addContainer(container);
+	}
+
+	/**
+	 * Return whether there is an ingredient with the given simple name in this cluster.
+	 *
+	 * @param 	simpleName
+	 * 			The simple name.
+	 *
+	 * @return	| result == getShardFor(simpleName).hasIngredientWithSimpleName(simpleName)
+	 */
+	public boolean hasIngredientWithSimpleName(String simpleName) {
+		return getShardFor(simpleName).hasIngredientWithSimpleName(simpleName);
+	}
+
+	/**
+	 * Return the ingredient with the given simple name in this cluster.
+	 *
+	 * @param 	simpleName
+	 * 			The simple name.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			There is no ingredient with the given simple name.
+	 * 			| !hasIngredientWithSimpleName(simpleName)
+	 */
+	public AlchemicIngredient getIngredientWithSimpleName(String simpleName) throws IllegalArgumentException {
+		Laboratory shard = getShardFor(simpleName);
+		return shard.getIngredientAt(shard.getIndexOfSimpleName(simpleName));
+	}
+
+	/**
+	 * A method to hand over the ingredient at a given index from one laboratory to another.
+	 *
+	 * @param 	from
+	 * 			The laboratory that has the ingredient.
+	 * @param 	index
+	 * 			The index of the ingredient.
+	 * @param 	to
+	 * 			The laboratory that gets the ingredient.
+	 *
+	 * @effect	If the other laboratory has no ingredient with the same simple name, the ingredient is removed
+	 * 			from the one laboratory and added, unchanged, to the other.
+	 * 			| if (!to.hasIngredientWithSimpleName(from.getIngredientAt(index).getSimpleName()))
+	 * 			|	then to.addAsIngredient(from.getIngredientAt(index)) && from.removeIngredientAt(index)
+	 * @effect	Otherwise, the ingredient is transferred as a whole, so it is mixed with the ingredient
+	 * 			of the other laboratory.
+	 * 			| if (to.hasIngredientWithSimpleName(from.getIngredientAt(index).getSimpleName()))
+	 * 			|	then from.transferTo(to, Map.of(from.getIngredientAt(index).getSimpleName(),
+	 * 			|		from.getIngredientAt(index).getBaseAmount()))
+	 */
+	@Model
+	private static void move(Laboratory from, int index, Laboratory to) {
+		AlchemicIngredient ingredient = from.getIngredientAt(index);
+		if (to.hasIngredientWithSimpleName(ingredient.getSimpleName())) {
+			from.transferTo(to, Map.of(ingredient.getSimpleName(), ingredient.getBaseAmount()));
+			return;
+		}
+		from.removeIngredientAt(index);
+		to.addAsIngredient(ingredient);
+	}
+
+
+
+	/**********************************************************
+	 * RECIPE EXECUTION
+	 **********************************************************/
+
+	/**
+	 * A method to execute a recipe with a given multiplier in this cluster.
+	 *
+	 * @param 	recipe
+	 * 			The recipe to execute.
+	 * @param 	multiplier
+	 * 			The multiplier.
+	 *
+	 * @effect	The ingredients that the recipe adds are moved to the laboratory that executes the recipe,
+	 * 			the recipe is executed there, and every ingredient that laboratory doesn't own, including
+	 * 			the result and whatever is left of the moved ingredients, is moved to its owner.
+	 * 			An ingredient that its owner already has is mixed with it there.
+	 * 			| getExecutingShardFor(recipe, multiplier).execute(recipe, multiplier)
+	 *
+	 * @throws	IllegalStateException
+	 * 			No laboratory has the devices for the recipe and room for its ingredients,
+	 * 			or the owner of the result can't take it back.
+	 * 			| getExecutingShardFor(recipe, multiplier) == null
+	 * @throws	RuntimeException
+	 * 			The execution fails, or an ingredient can't be handed back to its owner. The exception of the
+	 * 			execution is thrown if there is one, and the first failing hand-back otherwise. The failures
+	 * 			of the other hand-backs are added to it as suppressed exceptions.
+	 *
+	 * @note	Ingredients are moved back to their owners, even if the execution fails. Every ingredient is tried,
+	 * 			even if another one fails, and an ingredient that can't be handed back stays in the executing laboratory.
+	 */
+	public void execute(Recipe recipe, int multiplier) throws IllegalArgumentException, IllegalStateException {
+		Laboratory executor = getExecutingShardFor(recipe, multiplier);
+		if (executor == null) {
+			throw new IllegalStateException("No laboratory of the cluster can execute this recipe!");
+		}
+		// route the ingredients that the recipe adds to the executing laboratory
+		for (String simpleName : getSimpleNamesOf(recipe)) {
+			Laboratory owner = getShardFor(simpleName);
+			if (owner != executor && owner.hasIngredientWithSimpleName(simpleName)) {
+				move(owner, owner.getIndexOfSimpleName(simpleName), executor);
+			}
+		}
+		RuntimeException failure = null;
+		try {
+			executor.execute(recipe, multiplier);
+		} catch (RuntimeException e) {
+			failure = e;
+		}
+		// route everything back to its owner, one failing ingredient doesn't keep the others back
+		for (int i = executor.getNbOfIngredients() - 1; i >= 0; i--) {
+			Laboratory owner = getShardFor(executor.getIngredientAt(i).getSimpleName());
+			if (owner != executor) {
+				try {
+					move(executor, i, owner);
+				} catch (RuntimeException e) {
+					if (failure == null) {
+						failure = e;
+					} else {
+						failure.addSuppressed(e);
+					}
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Return the laboratory of this cluster that would execute the given recipe with the given multiplier.
+	 *
+	 * @param 	recipe
+	 * 			The recipe.
+	 * @param 	multiplier
+	 * 			The multiplier.
+	 *
+	 * @return	Among the laboratories that have the devices for the recipe and room for the ingredients
+	 * 			that it adds and doesn't own, the one that owns the most of those ingredients, in base quantities,
+	 * 			and the first one if there is a tie; null if there is no such laboratory, or if the result
+	 * 			can't be handed back to its owner.
+	 *
+	 * @note	The ingredients that move the least choose the laboratory, so as few as possible are handed over.
+	 * @note	The result is at most what the recipe adds, and at most what is in stock of it. If another laboratory
+	 * 			owns the result, that laboratory needs room for that much, and if it already has some of the result,
+	 * 			a kettle, a cooling box and an oven to mix it, and a container that holds both.
+	 * 			Whatever is left of the moved ingredients goes back to where it came from, so it always fits.
+	 */
+	public Laboratory getExecutingShardFor(Recipe recipe, int multiplier) {
+		// the amounts in stock of the ingredients that the recipe adds, per owner
+		Map<Laboratory, Long> owned = new IdentityHashMap<>();
+		long total = 0;
+		long perBatch = 0;
+		for (int i = 0; i < recipe.getNbOfIngredients(); i++) {
+			perBatch += recipe.getIngredientAt(i).getBaseAmount();
+		}
+		for (String simpleName : getSimpleNamesOf(recipe)) {
+			Laboratory owner = getShardFor(simpleName);
+			if (owner.hasIngredientWithSimpleName(simpleName)) {
+				long baseAmount = owner.getIngredientAt(owner.getIndexOfSimpleName(simpleName)).getBaseAmount();
+				owned.merge(owner, baseAmount, Long::sum);
+				total += baseAmount;
+			}
+		}
+		long resultBaseAmount = (multiplier <= 0 || perBatch > total / multiplier) ? total : perBatch * multiplier;
+		String resultName = RecipeBook.getResultNameOf(recipe);
+		Laboratory resultOwner = (resultName == null) ? null : getShardFor(resultName);
+		Laboratory best = null;
+		long mostOwned = -1;
+		for (Laboratory shard : shards) {
+			long ownedByShard = owned.getOrDefault(shard, 0L);
+			boolean hasRoom = shard.getStoredBaseAmount() + (total - ownedByShard) <= shard.getBaseCapacity();
+			boolean canHandBack = resultOwner == null || resultOwner == shard || canTakeBack(resultOwner, resultName, resultBaseAmount);
+			if (shard.hasDevicesForRecipe(recipe) && hasRoom && canHandBack && ownedByShard > mostOwned) {
+				best = shard;
+				mostOwned = ownedByShard;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Return whether the given laboratory can take back a result with the given simple name and amount.
+	 *
+	 * @param 	owner
+	 * 			The laboratory that owns the result.
+	 * @param 	simpleName
+	 * 			The simple name of the result.
+	 * @param 	baseAmount
+	 * 			The largest amount of the result, in base quantities.
+	 *
+	 * @return	False if the laboratory doesn't have room for the result.
+	 * 			| if (owner.getStoredBaseAmount() + baseAmount > owner.getBaseCapacity())
+	 * 			|	then result == false
+	 * @return	Otherwise, if the laboratory has no ingredient with the simple name, true.
+	 * @return	Otherwise, whether the laboratory has the devices to mix the result with its ingredient,
+	 * 			and the two together fit in the largest container, whatever the state of the result.
+	 */
+	@Model
+	private static boolean canTakeBack(Laboratory owner, String simpleName, long baseAmount) {
+		if (owner.getStoredBaseAmount() + baseAmount > owner.getBaseCapacity()) {
+			return false;
+		}
+		if (!owner.hasIngredientWithSimpleName(simpleName)) {
+			return true;
+		}
+		long mixedBaseAmount = owner.getIngredientAt(owner.getIndexOfSimpleName(simpleName)).getBaseAmount() + baseAmount;
+		long maxContainerBaseAmount = Math.min(
+				Unit.getMaxUnitForContainerWithState(State.LIQUID).getBaseEquivalent(),
+				Unit.getMaxUnitForContainerWithState(State.POWDER).getBaseEquivalent());
+		return owner.hasDeviceOfType(Kettle.class) && owner.hasDeviceOfType(CoolingBox.class)
+				&& owner.hasDeviceOfType(Oven.class) && mixedBaseAmount <= maxContainerBaseAmount;
+	}
+
+	/**
+	 * Return the distinct simple names of the ingredients that the given recipe adds, in order.
+	 */
+	@Model
+	private static Set<String> getSimpleNamesOf(Recipe recipe) {
+		Set<String> simpleNames = new LinkedHashSet<>();
+		for (int i = 0; i < recipe.getNbOfIngredients(); i++) {
+			simpleNames.add(recipe.getIngredientAt(i).getSimpleName());
+		}
+		return simpleNames;
+	}
+
+}
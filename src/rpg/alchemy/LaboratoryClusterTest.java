@@ -0,0 +1,184 @@
+package rpg.alchemy;
+
+import org.junit.jupiter.api.*;
+import rpg.*;
+import rpg.recipe.Operation;
+import rpg.recipe.Recipe;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A JUnit 5 test class for testing the non-private methods of the LaboratoryCluster class.
+ *
+ * @author  Vincent Van Schependom
+ * @author 	Arne Claerhout
+ * @author	Flor De Meulemeester
+ *
+ * @version 1.0
+ */
+public class LaboratoryClusterTest {
+
+	private Laboratory shard0;
+	private Laboratory shard1;
+	private LaboratoryCluster cluster;
+	private IngredientType powderType;
+	private IngredientType powderTypeMixed;
+
+	@BeforeEach
+	public void setupFixture() {
+		shard0 = new Laboratory(2);
+		shard1 = new Laboratory(3);
+		for (Laboratory shard : List.of(shard0, shard1)) {
+			new Kettle(shard);
+			new Oven(shard, new Temperature());
+			new CoolingBox(shard, new Temperature());
+		}
+		cluster = new LaboratoryCluster(List.of(shard0, shard1));
+		powderType = new IngredientType(new Name(null, "Powder Sugar"), State.POWDER, new Temperature(), false);
+		powderTypeMixed = new IngredientType(new Name("Breakfast", "Oatmeal", "Seeds"), State.POWDER, new Temperature(), true);
+	}
+
+	@Test
+	public void testConstructor_illegal() {
+		assertThrows(IllegalArgumentException.class, () -> new LaboratoryCluster(List.of()));
+		assertThrows(IllegalArgumentException.class, () -> new LaboratoryCluster(List.of(shard0, shard0)));
+	}
+
+	@Test
+	public void testAddContainer() {
+		cluster.addContainer(new IngredientContainer(new AlchemicIngredient(1, Unit.SACHET, powderType)));
+		cluster.addContainer(new IngredientContainer(new AlchemicIngredient(5, Unit.SACHET, powderTypeMixed)));
+		// the simple names hash to different shards
+		assertSame(shard1, cluster.getShardFor("Powder Sugar"));
+		assertSame(shard0, cluster.getShardFor("Oatmeal mixed with Seeds"));
+		assertTrue(shard1.hasIngredientWithSimpleName("Powder Sugar"));
+		assertTrue(shard0.hasIngredientWithSimpleName("Oatmeal mixed with Seeds"));
+		assertTrue(cluster.hasIngredientWithSimpleName("Powder Sugar"));
+		assertEquals(6 * Unit.SACHET.getBaseEquivalent(), cluster.getStoredBaseAmount());
+		assertEquals(5, cluster.getCapacity());
+		assertEquals(5 * Unit.STOREROOM.getBaseEquivalent(), cluster.getBaseCapacity());
+	}
+
+	@Test
+	public void testExecute() {
+		cluster.addContainer(new IngredientContainer(new AlchemicIngredient(1, Unit.SACHET, powderType)));
+		cluster.addContainer(new IngredientContainer(new AlchemicIngredient(5, Unit.SACHET, powderTypeMixed)));
+		Recipe recipe = new Recipe();
+		recipe.addAsInstruction(new AlchemicIngredient(1, Unit.SACHET, powderType), Operation.ADD);
+		recipe.addAsInstruction(new AlchemicIngredient(5, Unit.SACHET, powderTypeMixed), Operation.ADD);
+		// shard 0 owns the most of what the recipe adds
+		assertSame(shard0, cluster.getExecutingShardFor(recipe, 1));
+		cluster.execute(recipe, 1);
+		AlchemicIngredient result = cluster.getIngredientWithSimpleName("Oatmeal mixed with Powder Sugar and Seeds");
+		assertEquals(6 * Unit.SACHET.getBaseEquivalent(), result.getBaseAmount());
+		assertEquals(1, shard0.getNbOfIngredients());
+		assertEquals(0, shard1.getNbOfIngredients());
+	}
+
+	@Test
+	public void testExecute_InsufficientMovesBack() {
+		cluster.addContainer(new IngredientContainer(new AlchemicIngredient(1, Unit.SACHET, powderType)));
+		cluster.addContainer(new IngredientContainer(new AlchemicIngredient(5, Unit.SACHET, powderTypeMixed)));
+		Recipe recipe = new Recipe();
+		recipe.addAsInstruction(new AlchemicIngredient(1, Unit.SACHET, powderType), Operation.ADD);
+		recipe.addAsInstruction(new AlchemicIngredient(5, Unit.SACHET, powderTypeMixed), Operation.ADD);
+		cluster.execute(recipe, 2);
+		// nothing is brewed, and every ingredient is back with its owner
+		assertEquals(1, shard0.getNbOfIngredients());
+		assertEquals(1, shard1.getNbOfIngredients());
+		assertEquals(Unit.SACHET.getBaseEquivalent(), cluster.getIngredientWithSimpleName("Powder Sugar").getBaseAmount());
+	}
+
+	@Test
+	public void testExecute_ResultOwnedElsewhere() {
+		IngredientType appleType = new IngredientType(new Name(null, "Apple"), State.POWDER, new Temperature(), false);
+		IngredientType pearType = new IngredientType(new Name(null, "Pear"), State.POWDER, new Temperature(), false);
+		IngredientType mixedType = new IngredientType(new Name(null, "Apple", "Pear"), State.POWDER, new Temperature(), true);
+		cluster.addContainer(new IngredientContainer(new AlchemicIngredient(1, Unit.SACHET, appleType)));
+		cluster.addContainer(new IngredientContainer(new AlchemicIngredient(1, Unit.SACHET, pearType)));
+		cluster.addContainer(new IngredientContainer(new AlchemicIngredient(1, Unit.SACHET, mixedType)));
+		// the ingredients are on shard 0, the result on shard 1
+		assertSame(shard0, cluster.getShardFor("Apple"));
+		assertSame(shard0, cluster.getShardFor("Pear"));
+		assertSame(shard1, cluster.getShardFor("Apple mixed with Pear"));
+		Recipe recipe = new Recipe();
+		recipe.addAsInstruction(new AlchemicIngredient(1, Unit.SACHET, appleType), Operation.ADD);
+		recipe.addAsInstruction(new AlchemicIngredient(1, Unit.SACHET, pearType), Operation.ADD);
+		assertSame(shard0, cluster.getExecutingShardFor(recipe, 1));
+		cluster.execute(recipe, 1);
+		// the result is mixed with what its owner already had
+		assertEquals(0, shard0.getNbOfIngredients());
+		assertEquals(1, shard1.getNbOfIngredients());
+		assertEquals(3 * Unit.SACHET.getBaseEquivalent(), cluster.getIngredientWithSimpleName("Apple mixed with Pear").getBaseAmount());
+	}
+
+	@Test
+	public void testExecute_HandBackFails() {
+		IngredientType appleType = new IngredientType(new Name(null, "Apple"), State.POWDER, new Temperature(), false);
+		IngredientType pearType = new IngredientType(new Name(null, "Pear"), State.POWDER, new Temperature(), false);
+		IngredientType honeyType = new IngredientType(new Name(null, "Honey"), State.POWDER, new Temperature(), false);
+		IngredientType mixedType = new IngredientType(new Name(null, "Apple", "Honey", "Pear"), State.POWDER, new Temperature(), true);
+		cluster.addContainer(new IngredientContainer(new AlchemicIngredient(1, Unit.SACHET, appleType)));
+		cluster.addContainer(new IngredientContainer(new AlchemicIngredient(1, Unit.SACHET, pearType)));
+		cluster.addContainer(new IngredientContainer(new AlchemicIngredient(2, Unit.SACHET, honeyType)));
+		cluster.addContainer(new IngredientContainer(new AlchemicIngredient(1, Unit.SACHET, mixedType)));
+		assertSame(shard1, cluster.getShardFor("Honey"));
+		assertSame(shard1, cluster.getShardFor("Apple mixed with Honey and Pear"));
+		Recipe recipe = new Recipe();
+		recipe.addAsInstruction(new AlchemicIngredient(1, Unit.SACHET, appleType), Operation.ADD);
+		recipe.addAsInstruction(new AlchemicIngredient(1, Unit.SACHET, pearType), Operation.ADD);
+		recipe.addAsInstruction(new AlchemicIngredient(1, Unit.SACHET, honeyType), Operation.ADD);
+		assertSame(shard0, cluster.getExecutingShardFor(recipe, 1));
+		// the owner of the result can't mix it while its kettle is streaming
+		shard1.getDeviceOfType(Kettle.class).startStreaming();
+		assertThrows(IllegalStateException.class, () -> cluster.execute(recipe, 1));
+		// the rest of the honey is still handed back, and the result stays with the laboratory that made it
+		assertEquals(Unit.SACHET.getBaseEquivalent(), shard1.getIngredientAt(shard1.getIndexOfSimpleName("Honey")).getBaseAmount());
+		assertEquals(1, shard0.getNbOfIngredients());
+		assertEquals(3 * Unit.SACHET.getBaseEquivalent(), shard0.getIngredientAt(0).getBaseAmount());
+		assertEquals(5 * Unit.SACHET.getBaseEquivalent(), shard0.getStoredBaseAmount() + shard1.getStoredBaseAmount());
+	}
+
+	@Test
+	public void testExecute_NoRoomForResult() {
+		Laboratory small = new Laboratory(1);
+		new Kettle(small);
+		LaboratoryCluster other = new LaboratoryCluster(List.of(shard0, small));
+		IngredientType appleType = new IngredientType(new Name(null, "Apple"), State.POWDER, new Temperature(), false);
+		IngredientType pearType = new IngredientType(new Name(null, "Pear"), State.POWDER, new Temperature(), false);
+		other.addContainer(new IngredientContainer(new AlchemicIngredient(1, Unit.SACHET, appleType)));
+		other.addContainer(new IngredientContainer(new AlchemicIngredient(1, Unit.SACHET, pearType)));
+		// fill the owner of the result
+		for (String simpleName : List.of("Honey", "Basil", "Cocoa", "Ginger", "Mint")) {
+			IngredientType type = new IngredientType(new Name(null, simpleName), State.POWDER, new Temperature(), false);
+			if (other.getShardFor(simpleName) == small) {
+				other.addContainer(new IngredientContainer(new AlchemicIngredient(1, Unit.CHEST, type)));
+			}
+		}
+		IngredientType fillerType = new IngredientType(new Name(null, "Basil", "Cocoa"), State.POWDER, new Temperature(), true);
+		other.addContainer(new IngredientContainer(new AlchemicIngredient(1, Unit.CHEST, fillerType)));
+		IngredientType otherFillerType = new IngredientType(new Name(null, "Cocoa", "Honey"), State.POWDER, new Temperature(), true);
+		other.addContainer(new IngredientContainer(new AlchemicIngredient(1, Unit.CHEST, otherFillerType)));
+		assertSame(small, other.getShardFor("Apple mixed with Pear"));
+		assertEquals(small.getBaseCapacity(), small.getStoredBaseAmount());
+		Recipe recipe = new Recipe();
+		recipe.addAsInstruction(new AlchemicIngredient(1, Unit.SACHET, appleType), Operation.ADD);
+		recipe.addAsInstruction(new AlchemicIngredient(1, Unit.SACHET, pearType), Operation.ADD);
+		assertNull(other.getExecutingShardFor(recipe, 1));
+		assertThrows(IllegalStateException.class, () -> other.execute(recipe, 1));
+		assertEquals(2, shard0.getNbOfIngredients());
+	}
+
+	@Test
+	public void testExecute_NoDevices() {
+		LaboratoryCluster other = new LaboratoryCluster(List.of(new Laboratory(1)));
+		Recipe recipe = new Recipe();
+		recipe.addAsInstruction(new AlchemicIngredient(1, Unit.SACHET, powderType), Operation.ADD);
+		recipe.addAsInstruction(Operation.HEAT);
+		assertNull(other.getExecutingShardFor(recipe, 1));
+		assertThrows(IllegalStateException.class, () -> other.execute(recipe, 1));
+	}
+
+}
@@ -2,8 +2,30 @@ package rpg.alchemy;
 
 import org.junit.jupiter.api.*;
 import rpg.*;
+import rpg.exceptions.ChangeFeedGapException;
 import rpg.recipe.Operation;
 import rpg.recipe.Recipe;
+import rpg.recipe.RecipeBook;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -282,6 +304,17 @@ public class LaboratoryTest {
 		assertEquals(2, lab.getNbOfIngredients());
 	}
 
+	@Test
+	public void testGetAmountOfIngredientAt_Exact() {
+		IngredientType type = new IngredientType(new Name(null, "Name"), State.LIQUID, new Temperature(0, 20), false);
+		lab.addContainer(new IngredientContainer(new AlchemicIngredient(1, Unit.VIAL, type)));
+		// 5 spoons minus 3 drops leaves 37 drops
+		lab.getAmountOfIngredientAt(0, 3, Unit.DROP);
+		assertEquals(37 * Unit.DROP.getBaseEquivalent(), lab.getIngredientAt(0).getBaseAmount());
+		assertEquals(Unit.DROP, lab.getIngredientAt(0).getUnit());
+		assertEquals(37, lab.getIngredientAt(0).getAmount());
+	}
+
 	@Test
 	public void testGetAmountOfIngredientAt_IllegalCase() {
 		assertThrows(IndexOutOfBoundsException.class, () -> {
@@ -493,6 +526,353 @@ public class LaboratoryTest {
 		});
 	}
 
+	@Test
+	public void testAddContainers() {
+		otherLab.addContainer(new IngredientContainer(powder));
+		AlchemicIngredient morePowder = new AlchemicIngredient(2, Unit.SACHET, powderType);
+		AlchemicIngredient coldPowder = new AlchemicIngredient(3, Unit.SACHET, new Temperature(50, 0), powderType);
+		long expectedBaseAmount = otherLab.getStoredBaseAmount() + morePowder.getBaseAmount() + coldPowder.getBaseAmount() + liquid.getBaseAmount();
+		otherLab.addContainers(List.of(new IngredientContainer(morePowder), new IngredientContainer(liquid), new IngredientContainer(coldPowder)));
+		assertEquals(2, otherLab.getNbOfIngredients());
+		assertEquals(expectedBaseAmount, otherLab.getStoredBaseAmount());
+		AlchemicIngredient sugar = otherLab.getIngredientAt(otherLab.getIndexOfSimpleName("Powder Sugar"));
+		assertArrayEquals(powderType.getStandardTemperature(), new long[]{sugar.getColdness(), sugar.getHotness()});
+		assertTrue(otherLab.hasIngredientWithSimpleName("Sprite"));
+	}
+
+	@Test
+	public void testAddContainers_DevicePool() {
+		otherLab.setDevicePoolSize(4);
+		assertEquals(4, otherLab.getDevicePoolSize());
+		// the pool doesn't show up as devices of the laboratory
+		assertEquals(4, otherLab.getNbOfDevices());
+		List<IngredientContainer> containers = new ArrayList<>();
+		long expectedBaseAmount = 0;
+		for (String name : new String[]{"Name", "Nameezg", "Nameazrvnoiaerv", "Nameajernva", "Nameaeerjnjaerv", "Nameaerlrjkfn"}) {
+			IngredientType type = new IngredientType(new Name(null, name), State.POWDER, new Temperature(0, 20), false);
+			AlchemicIngredient hot = new AlchemicIngredient(1, Unit.SACHET, new Temperature(0, 80), type);
+			AlchemicIngredient cold = new AlchemicIngredient(2, Unit.SACHET, new Temperature(40, 0), type);
+			expectedBaseAmount += hot.getBaseAmount() + cold.getBaseAmount();
+			containers.add(new IngredientContainer(hot));
+			containers.add(new IngredientContainer(cold));
+		}
+		otherLab.addContainers(containers);
+		assertEquals(6, otherLab.getNbOfIngredients());
+		assertEquals(expectedBaseAmount, otherLab.getStoredBaseAmount());
+		for (int i = 0; i < otherLab.getNbOfIngredients(); i++) {
+			assertEquals(0, otherLab.getIngredientAt(i).getColdness());
+			assertEquals(20, otherLab.getIngredientAt(i).getHotness());
+		}
+		otherLab.setDevicePoolSize(0);
+		assertEquals(0, otherLab.getDevicePoolSize());
+		assertThrows(IllegalArgumentException.class, () -> otherLab.setDevicePoolSize(-1));
+	}
+
+	@Test
+	public void testAddContainers_DevicePoolFollowsNoiseSource() {
+		otherLab.setDevicePoolSize(4);
+		// a noise source that can't be split is only used by the oven of the laboratory itself
+		AtomicInteger nbOfDeviations = new AtomicInteger();
+		Random random = new Random(42);
+		otherOven.setNoiseSource(() -> {
+			nbOfDeviations.incrementAndGet();
+			return random.nextLong();
+		});
+		List<IngredientContainer> containers = new ArrayList<>();
+		for (String name : new String[]{"Name", "Nameezg", "Nameazrvnoiaerv", "Nameajernva"}) {
+			IngredientType type = new IngredientType(new Name(null, name), State.POWDER, new Temperature(0, 20), false);
+			containers.add(new IngredientContainer(new AlchemicIngredient(1, Unit.SACHET, new Temperature(40, 0), type)));
+		}
+		otherLab.addContainers(containers);
+		assertEquals(4, otherLab.getNbOfIngredients());
+		assertTrue(nbOfDeviations.get() >= 4);
+		for (int i = 0; i < otherLab.getNbOfIngredients(); i++) {
+			assertEquals(20, otherLab.getIngredientAt(i).getHotness());
+		}
+	}
+
+	@Test
+	public void testChangeFeed() throws InterruptedException {
+		List<ChangeEvent> events = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch completed = new CountDownLatch(1);
+		// the devices of the fixture are changes too
+		long nbOfChangesBefore = otherLab.getNbOfChanges();
+		otherLab.getChangeFeed().subscribe(new Flow.Subscriber<>() {
+			private Flow.Subscription subscription;
+			@Override
+			public void onSubscribe(Flow.Subscription subscription) {
+				this.subscription = subscription;
+				subscription.request(1);
+			}
+			@Override
+			public void onNext(ChangeEvent event) {
+				events.add(event);
+				subscription.request(1);
+			}
+			@Override
+			public void onError(Throwable throwable) {
+			}
+			@Override
+			public void onComplete() {
+				completed.countDown();
+			}
+		});
+		otherLab.addContainer(new IngredientContainer(powder));
+		otherLab.addContainer(new IngredientContainer(new AlchemicIngredient(10, Unit.PINCH, powderType)));
+		otherLab.addContainer(new IngredientContainer(mixedPowder));
+		Recipe recipe = new Recipe();
+		recipe.addAsInstruction(new AlchemicIngredient(1, Unit.SPOON, powderType), Operation.ADD);
+		recipe.addAsInstruction(new AlchemicIngredient(1, Unit.SPOON, powderTypeMixed), Operation.ADD);
+		otherLab.execute(recipe, 1);
+		otherTransmogrifier.move(lab);
+		Transmogrifier device = new Transmogrifier(otherLab);
+		device.terminate();
+		long nbOfChanges = otherLab.getNbOfChanges();
+		// a materialized view of the stock, built from the events alone
+		Map<String, Long> view = new HashMap<>();
+		for (int i = 0; i < otherLab.getNbOfIngredients(); i++) {
+			view.put(otherLab.getIngredientAt(i).getSimpleName(), otherLab.getIngredientAt(i).getBaseAmount());
+		}
+		otherLab.terminate();
+		assertTrue(completed.await(10, TimeUnit.SECONDS));
+		assertThrows(IllegalStateException.class, otherLab::getChangeFeed);
+
+		assertEquals(nbOfChanges - nbOfChangesBefore, events.size());
+		Map<String, Long> materialized = new HashMap<>();
+		List<ChangeEvent.Kind> kinds = new ArrayList<>();
+		for (int i = 0; i < events.size(); i++) {
+			ChangeEvent event = events.get(i);
+			assertEquals(nbOfChangesBefore + i + 1, event.getSequenceNumber());
+			assertSame(otherLab, event.getLocation());
+			kinds.add(event.getKind());
+			if (event.getKind() == ChangeEvent.Kind.INGREDIENT_ADDED) {
+				materialized.put(event.getSimpleName(), event.getBaseAmount());
+			} else if (event.getKind() == ChangeEvent.Kind.INGREDIENT_REMOVED) {
+				materialized.remove(event.getSimpleName());
+			}
+		}
+		assertEquals(view, materialized);
+		// the second powder is mixed with the first one in the kettle
+		assertEquals(List.of(ChangeEvent.Kind.INGREDIENT_ADDED, ChangeEvent.Kind.INGREDIENT_REMOVED,
+				ChangeEvent.Kind.INGREDIENT_ADDED, ChangeEvent.Kind.INGREDIENT_MERGED), kinds.subList(0, 4));
+		assertEquals(powder.getBaseAmount() + 10 * Unit.PINCH.getBaseEquivalent(), events.get(3).getBaseAmount());
+		assertEquals(List.of(ChangeEvent.Kind.RECIPE_EXECUTED, ChangeEvent.Kind.DEVICE_MOVED,
+				ChangeEvent.Kind.DEVICE_ADDED, ChangeEvent.Kind.DEVICE_TERMINATED), kinds.subList(kinds.size() - 4, kinds.size()));
+		assertSame(recipe, events.get(events.size() - 4).getRecipe());
+		assertSame(otherTransmogrifier, events.get(events.size() - 3).getDevice());
+		assertSame(device, events.get(events.size() - 1).getDevice());
+	}
+
+	@Test
+	public void testChangeFeed_SlowSubscriber() throws InterruptedException {
+		List<ChangeEvent> events = Collections.synchronizedList(new ArrayList<>());
+		List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch blocked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch failed = new CountDownLatch(1);
+		CountDownLatch completed = new CountDownLatch(1);
+		long nbOfChangesBefore = otherLab.getNbOfChanges();
+		otherLab.getChangeFeed().subscribe(new Flow.Subscriber<>() {
+			@Override
+			public void onSubscribe(Flow.Subscription subscription) {
+				subscription.request(Long.MAX_VALUE);
+			}
+			@Override
+			public void onNext(ChangeEvent event) {
+				events.add(event);
+				// the subscriber hangs on its first event, so its buffer fills up
+				blocked.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			@Override
+			public void onError(Throwable throwable) {
+				errors.add(throwable);
+				failed.countDown();
+			}
+			@Override
+			public void onComplete() {
+				completed.countDown();
+			}
+		});
+		otherLab.addContainer(new IngredientContainer(new AlchemicIngredient(1, Unit.PINCH, powderType)));
+		assertTrue(blocked.await(10, TimeUnit.SECONDS));
+		// twice as many changes as the buffer holds don't wait for the subscriber at all
+		assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+			for (int i = 0; i < StorageLocation.CHANGE_FEED_BUFFER_SIZE; i++) {
+				otherLab.addContainer(new IngredientContainer(new AlchemicIngredient(1, Unit.PINCH, liquidType)));
+				otherLab.removeIngredientAt(otherLab.getIndexOfSimpleName("Sprite"));
+			}
+		});
+		long nbOfChanges = otherLab.getNbOfChanges();
+		release.countDown();
+		assertTrue(failed.await(10, TimeUnit.SECONDS));
+		// the subscription is cancelled, so the end of the feed doesn't reach the subscriber anymore
+		otherLab.terminate();
+		assertFalse(completed.await(100, TimeUnit.MILLISECONDS));
+
+		// the subscriber got the events before the gap, in order, and then an error that says where the gap starts
+		assertTrue(events.size() < nbOfChanges - nbOfChangesBefore);
+		for (int i = 0; i < events.size(); i++) {
+			assertEquals(nbOfChangesBefore + i + 1, events.get(i).getSequenceNumber());
+		}
+		assertEquals(1, errors.size());
+		ChangeFeedGapException gap = assertInstanceOf(ChangeFeedGapException.class, errors.get(0));
+		assertEquals(events.get(events.size() - 1).getSequenceNumber(), gap.getLastSequenceNumber());
+	}
+
+	@Test
+	public void testTransferTo() {
+		otherLab.addContainer(new IngredientContainer(powder));
+		otherLab.addContainer(new IngredientContainer(mixedPowder));
+		long powderBaseAmount = powder.getBaseAmount();
+		long mixedPowderBaseAmount = mixedPowder.getBaseAmount();
+		Map<String, Long> baseAmounts = new LinkedHashMap<>();
+		baseAmounts.put("Powder Sugar", 40 * Unit.PINCH.getBaseEquivalent());
+		baseAmounts.put("Oatmeal mixed with Seeds", mixedPowderBaseAmount);
+		// the target doesn't need any devices for ingredients at their standard temperature
+		otherLab.transferTo(lab, baseAmounts);
+		assertEquals(2, lab.getNbOfIngredients());
+		assertEquals(1, otherLab.getNbOfIngredients());
+		assertEquals(40 * Unit.PINCH.getBaseEquivalent(), lab.getIngredientAt(lab.getIndexOfSimpleName("Powder Sugar")).getBaseAmount());
+		assertEquals(mixedPowderBaseAmount, lab.getIngredientAt(lab.getIndexOfSimpleName("Oatmeal mixed with Seeds")).getBaseAmount());
+		assertEquals(powderBaseAmount - 40 * Unit.PINCH.getBaseEquivalent(), otherLab.getIngredientAt(0).getBaseAmount());
+		// mixing in the target needs a kettle
+		Map<String, Long> rest = Map.of("Powder Sugar", otherLab.getIngredientAt(0).getBaseAmount());
+		assertThrows(IllegalStateException.class, () -> otherLab.transferTo(lab, rest));
+		assertEquals(1, otherLab.getNbOfIngredients());
+		new Kettle(lab);
+		otherLab.transferTo(lab, rest);
+		assertEquals(0, otherLab.getNbOfIngredients());
+		assertEquals(2, lab.getNbOfIngredients());
+		assertEquals(powderBaseAmount, lab.getIngredientAt(lab.getIndexOfSimpleName("Powder Sugar")).getBaseAmount());
+		assertEquals(powderBaseAmount + mixedPowderBaseAmount, lab.getStoredBaseAmount());
+	}
+
+	@Test
+	public void testTransferTo_ColdAmountMidBatch() {
+		otherLab.addContainer(new IngredientContainer(mixedPowder));
+		otherLab.addContainer(new IngredientContainer(new AlchemicIngredient(1, Unit.SACHET, powderType)));
+		recipe.addAsInstruction(new AlchemicIngredient(1, Unit.SACHET, powderType), Operation.ADD);
+		recipe.addAsInstruction(Operation.COOL);
+		otherLab.execute(recipe, 1);
+		AlchemicIngredient cooled = otherLab.getIngredientAt(otherLab.getIndexOfSimpleName("Powder Sugar"));
+		assertTrue(cooled.isColderThanStandardTemperature());
+		Map<String, Long> baseAmounts = new LinkedHashMap<>();
+		baseAmounts.put("Oatmeal mixed with Seeds", mixedPowder.getBaseAmount());
+		baseAmounts.put("Powder Sugar", cooled.getBaseAmount());
+		// the oven may overshoot, so heating needs a cooling box too: the batch fails before the first amount moves
+		Oven targetOven = new Oven(lab, new Temperature());
+		assertThrows(IllegalStateException.class, () -> otherLab.transferTo(lab, baseAmounts));
+		assertEquals(0, lab.getNbOfIngredients());
+		assertEquals(2, otherLab.getNbOfIngredients());
+		// with a cooling box, the cold amount is brought to its standard temperature, and the contents
+		// of the devices of either laboratory are left alone
+		new CoolingBox(lab, new Temperature());
+		targetOven.addContainer(new IngredientContainer(new AlchemicIngredient(1, Unit.SPOON, liquidType)));
+		otherKettle.addContainer(new IngredientContainer(liquid));
+		otherLab.transferTo(lab, baseAmounts);
+		assertEquals(0, otherLab.getNbOfIngredients());
+		assertEquals(2, lab.getNbOfIngredients());
+		AlchemicIngredient transferred = lab.getIngredientAt(lab.getIndexOfSimpleName("Powder Sugar"));
+		assertFalse(transferred.isColderThanStandardTemperature());
+		assertFalse(transferred.isHotterThanStandardTemperature());
+		assertEquals(1, targetOven.getNbOfIngredients());
+		assertSame(liquid, otherKettle.getIngredientAt(0));
+	}
+
+	@Test
+	public void testTransferTo_IllegalCase() {
+		otherLab.addContainer(new IngredientContainer(powder));
+		long powderBaseAmount = powder.getBaseAmount();
+		assertThrows(NullPointerException.class, () -> otherLab.transferTo(null, Map.of()));
+		assertThrows(IllegalArgumentException.class, () -> otherLab.transferTo(otherLab, Map.of()));
+		// one invalid amount: nothing is transferred
+		Map<String, Long> baseAmounts = new LinkedHashMap<>();
+		baseAmounts.put("Powder Sugar", powderBaseAmount);
+		baseAmounts.put("Sprite", 1L);
+		assertThrows(IllegalArgumentException.class, () -> otherLab.transferTo(lab, baseAmounts));
+		assertThrows(IllegalArgumentException.class, () -> otherLab.transferTo(lab, Map.of("Powder Sugar", powderBaseAmount + 1)));
+		assertThrows(IllegalArgumentException.class, () -> otherLab.transferTo(lab, Map.of("Powder Sugar", 0L)));
+		assertEquals(1, otherLab.getNbOfIngredients());
+		assertEquals(powderBaseAmount, otherLab.getIngredientAt(0).getBaseAmount());
+		assertEquals(0, lab.getNbOfIngredients());
+	}
+
+	@Test
+	public void testStreamingKettle_IllegalCase() {
+		otherLab.addContainer(new IngredientContainer(liquid));
+		Kettle streamingKettle = otherLab.getDeviceOfType(Kettle.class);
+		streamingKettle.startStreaming();
+		streamingKettle.addContainer(new IngredientContainer(new AlchemicIngredient(5, Unit.SPOON, liquidType)));
+		assertFalse(streamingKettle.isEmpty());
+		// the laboratory can't use the kettle, so nothing ends up in its stock and the stream goes on
+		IngredientContainer container = new IngredientContainer(new AlchemicIngredient(1, Unit.SPOON, liquidType));
+		assertThrows(IllegalStateException.class, () -> otherLab.addContainer(container));
+		assertThrows(IllegalStateException.class, () -> otherLab.addContainers(List.of(container)));
+		recipe.addAsInstruction(new AlchemicIngredient(1, Unit.SPOON, liquidType), Operation.ADD);
+		recipe.addAsInstruction(Operation.COOL);
+		assertThrows(IllegalStateException.class, () -> otherLab.execute(recipe, 1));
+		lab.addContainer(new IngredientContainer(new AlchemicIngredient(1, Unit.SPOON, liquidType)));
+		assertThrows(IllegalStateException.class, () -> lab.transferTo(otherLab, Map.of("Sprite", Unit.SPOON.getBaseEquivalent())));
+		assertEquals(1, otherLab.getNbOfIngredients());
+		assertEquals(liquid.getBaseAmount(), otherLab.getStoredBaseAmount());
+		assertFalse(container.isTerminated());
+		assertTrue(streamingKettle.isStreaming());
+		assertEquals(1, streamingKettle.getNbOfStreamedIngredients());
+		// the streamed amount can't be lost by terminating or moving the kettle either
+		assertThrows(IllegalStateException.class, streamingKettle::terminate);
+		assertThrows(IllegalStateException.class, () -> streamingKettle.move(new Laboratory(1)));
+		assertSame(otherLab, streamingKettle.getLaboratory());
+		// once the mix is taken out, the laboratory can use the kettle again
+		streamingKettle.executeOperation();
+		assertEquals(5 * Unit.SPOON.getBaseEquivalent(), streamingKettle.getResult().getContent().getBaseAmount());
+		otherLab.addContainer(container);
+		assertEquals(liquid.getBaseAmount() + Unit.SPOON.getBaseEquivalent(), otherLab.getStoredBaseAmount());
+	}
+
+	@Test
+	public void testAddContainers_IllegalCase() {
+		// too large: nothing is added
+		Laboratory laboratory = new Laboratory(1);
+		new Kettle(laboratory);
+		List<IngredientContainer> containers = new ArrayList<>();
+		for (String name : new String[]{"Name", "Nameezg", "Nameazrvnoiaerv", "Nameajernva", "Nameaeerjnjaerv", "Nameaerlrjkfn"}) {
+			IngredientType type = new IngredientType(new Name(null, name), State.POWDER, new Temperature(0, 20), false);
+			containers.add(new IngredientContainer(new AlchemicIngredient(1, Unit.CHEST, type)));
+		}
+		assertThrows(IllegalArgumentException.class, () -> laboratory.addContainers(containers));
+		assertEquals(0, laboratory.getNbOfIngredients());
+		// no kettle: nothing is added and the containers keep their contents
+		lab.addContainer(new IngredientContainer(liquid));
+		IngredientContainer sugar1 = new IngredientContainer(new AlchemicIngredient(1, Unit.SACHET, powderType));
+		IngredientContainer sugar2 = new IngredientContainer(new AlchemicIngredient(1, Unit.SACHET, powderType));
+		assertThrows(IllegalStateException.class, () -> lab.addContainers(List.of(sugar1, sugar2)));
+		assertEquals(1, lab.getNbOfIngredients());
+		assertNotNull(sugar1.getContent());
+		assertNotNull(sugar2.getContent());
+		assertThrows(NullPointerException.class, () -> lab.addContainers(null));
+		// a container twice, or a terminated one: nothing is added
+		assertThrows(IllegalArgumentException.class, () -> otherLab.addContainers(List.of(sugar1, sugar1)));
+		IngredientContainer emptied = new IngredientContainer(new AlchemicIngredient(1, Unit.SACHET, powderTypeMixed));
+		emptied.terminate();
+		assertThrows(IllegalArgumentException.class, () -> otherLab.addContainers(List.of(sugar1, emptied)));
+		// a mix that doesn't fit in one container would be cut by the kettle: nothing is added
+		IngredientContainer chest1 = new IngredientContainer(new AlchemicIngredient(1, Unit.CHEST, powderType));
+		IngredientContainer chest2 = new IngredientContainer(new AlchemicIngredient(1, Unit.CHEST, powderType));
+		assertThrows(IllegalArgumentException.class, () -> otherLab.addContainers(List.of(sugar1, chest1, chest2)));
+		assertEquals(0, otherLab.getNbOfIngredients());
+		// a cold content may overshoot in the oven, so a cooling box is needed as well: nothing is added
+		Laboratory ovenOnly = new Laboratory(1);
+		new Oven(ovenOnly, new Temperature());
+		IngredientContainer cold = new IngredientContainer(new AlchemicIngredient(1, Unit.SACHET, new Temperature(20, 0), powderTypeMixed));
+		assertThrows(IllegalStateException.class, () -> ovenOnly.addContainers(List.of(sugar1, cold)));
+		assertEquals(0, ovenOnly.getNbOfIngredients());
+	}
+
 	@Test
 	public void testHasProperDevices() {
 		Laboratory otherlab = new Laboratory(2);
@@ -567,6 +947,41 @@ public class LaboratoryTest {
 		assertNull(otherLab.getIngredientAt(0).getSpecialName());
 	}
 
+	@Test
+	public void testExecute_FlightRecorderEvents() throws IOException {
+		recipe.addAsInstruction(new AlchemicIngredient(1, Unit.SACHET, powderType), Operation.ADD);
+		recipe.addAsInstruction(Operation.HEAT);
+		recipe.addAsInstruction(mixedPowder, Operation.ADD);
+		otherLab.addContainer(new IngredientContainer(new AlchemicIngredient(1, Unit.SACHET, powderType)));
+		otherLab.addContainer(new IngredientContainer(mixedPowder));
+		Path file = Files.createTempFile("alchemy", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("rpg.alchemy.RecipeExecution").withoutThreshold();
+			recording.enable("rpg.alchemy.RecipeStep").withoutThreshold();
+			recording.enable("rpg.alchemy.DeviceOperation").withoutThreshold();
+			recording.start();
+			otherLab.execute(recipe, 1);
+			recording.stop();
+			recording.dump(file);
+		}
+		Map<String, Integer> counts = new HashMap<>();
+		for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+			counts.merge(event.getEventType().getName(), 1, Integer::sum);
+			if (event.getEventType().getName().equals("rpg.alchemy.RecipeExecution")) {
+				assertEquals(1, event.getInt("multiplier"));
+				assertEquals("Powder Sugar, Oatmeal mixed with Seeds", event.getString("ingredients"));
+				assertTrue(event.getBoolean("succeeded"));
+			}
+		}
+		Files.delete(file);
+		assertEquals(1, counts.get("rpg.alchemy.RecipeExecution"));
+		// ADD, HEAT, ADD and the final MIX
+		assertEquals(4, counts.get("rpg.alchemy.RecipeStep"));
+		// at least the oven and the kettle
+		assertTrue(counts.get("rpg.alchemy.DeviceOperation") >= 2);
+		assertNull(counts.get("rpg.alchemy.TemperatureConvergence"));
+	}
+
 	@Test
 	public void testExecute_MixTwoIngredients_Twice() {
 		AlchemicIngredient recipeIngr1 = new AlchemicIngredient(1, Unit.SACHET, new Temperature(20, 0), powderType);
@@ -629,4 +1044,215 @@ public class LaboratoryTest {
 		assertNull(otherLab.getIngredientAt(0).getSpecialName());
 	}
 
+	@Test
+	public void testPlan_MixCoolHeat() {
+		AlchemicIngredient recipeIngr1 = new AlchemicIngredient(1, Unit.SACHET, new Temperature(20, 0), powderType);
+		recipe.addAsInstruction(recipeIngr1, Operation.ADD);
+		recipe.addAsInstruction(Operation.COOL);
+		recipe.addAsInstruction(mixedPowder, Operation.ADD);
+		recipe.addAsInstruction(Operation.HEAT);
+		recipe.addAsInstruction(Operation.MIX);
+		recipe.addAsInstruction(Operation.COOL);
+		recipe.addAsInstruction(heatedLiquid, Operation.ADD);
+		recipe.addAsInstruction(Operation.COOL);
+		otherLab.addContainer(new IngredientContainer(new AlchemicIngredient(2, Unit.SACHET, new Temperature(20, 0), powderType)));
+		otherLab.addContainer(new IngredientContainer(mixedPowder));
+		otherLab.addContainer(new IngredientContainer(mixedPowder));
+		otherLab.addContainer(new IngredientContainer(heatedLiquid));
+		otherLab.addContainer(new IngredientContainer(heatedLiquid));
+		RecipePlan plan = otherLab.plan(recipe, 2);
+		// the laboratory is not changed
+		assertEquals(3, otherLab.getNbOfIngredients());
+		assertTrue(plan.isFeasible());
+		assertEquals(State.LIQUID, plan.getResultState());
+		assertEquals(324 * Unit.BASE_QUANTITIES_PER_SPOON, plan.getResultBaseAmount());
+		assertEquals(2 * Unit.SACHET.getBaseEquivalent(), plan.getConsumedBaseAmount("Powder Sugar"));
+		assertEquals(3, plan.getConsumedSimpleNames().size());
+		assertEquals(3, plan.getNbOfOperations(Operation.ADD));
+		assertEquals(3, plan.getNbOfOperations(Operation.COOL));
+		assertEquals(1, plan.getNbOfOperations(Operation.HEAT));
+		// the explicit mix and the final mix
+		assertEquals(2, plan.getNbOfOperations(Operation.MIX));
+		assertEquals(0, plan.getWastedBaseAmount());
+		otherLab.execute(recipe, 2);
+		assertEquals(plan.getResultBaseAmount(), otherLab.getIngredientAt(0).getBaseAmount());
+	}
+
+	@Test
+	public void testPlan_Insufficient() {
+		AlchemicIngredient recipeIngr1 = new AlchemicIngredient(1, Unit.SACHET, new Temperature(20, 0), powderType);
+		recipe.addAsInstruction(recipeIngr1, Operation.ADD);
+		recipe.addAsInstruction(Operation.COOL);
+		recipe.addAsInstruction(mixedPowder, Operation.ADD);
+		otherLab.addContainer(new IngredientContainer(new AlchemicIngredient(2, Unit.SACHET, new Temperature(20, 0), powderType)));
+		otherLab.addContainer(new IngredientContainer(mixedPowder));
+		RecipePlan plan = otherLab.plan(recipe, 2);
+		assertFalse(plan.isFeasible());
+		assertEquals(RecipePlan.Failure.INSUFFICIENT_INGREDIENT, plan.getFailure());
+		assertEquals(2, plan.getFailingOperationIndex());
+		assertNull(plan.getResultState());
+		assertEquals(2, otherLab.getNbOfIngredients());
+	}
+
+	@Test
+	public void testExecute_InsufficientRollsBack() {
+		AlchemicIngredient recipeIngr1 = new AlchemicIngredient(1, Unit.SACHET, new Temperature(20, 0), powderType);
+		recipe.addAsInstruction(recipeIngr1, Operation.ADD);
+		recipe.addAsInstruction(Operation.COOL);
+		recipe.addAsInstruction(mixedPowder, Operation.ADD);
+		otherLab.addContainer(new IngredientContainer(new AlchemicIngredient(2, Unit.SACHET, new Temperature(20, 0), powderType)));
+		otherLab.addContainer(new IngredientContainer(mixedPowder));
+		AlchemicIngredient first = otherLab.getIngredientAt(0);
+		AlchemicIngredient second = otherLab.getIngredientAt(1);
+		long storedBaseAmount = otherLab.getStoredBaseAmount();
+		// the first ingredient is withdrawn and cooled, the second one is not sufficient
+		otherLab.execute(recipe, 2);
+		assertEquals(2, otherLab.getNbOfIngredients());
+		assertSame(first, otherLab.getIngredientAt(0));
+		assertSame(second, otherLab.getIngredientAt(1));
+		assertEquals(storedBaseAmount, otherLab.getStoredBaseAmount());
+		assertTrue(otherCoolingBox.isEmpty());
+		assertTrue(otherKettle.isEmpty());
+	}
+
+	@Test
+	public void testExecute_InsufficientKeepsDeviceContents() {
+		AlchemicIngredient recipeIngr1 = new AlchemicIngredient(1, Unit.SACHET, new Temperature(20, 0), powderType);
+		recipe.addAsInstruction(recipeIngr1, Operation.ADD);
+		recipe.addAsInstruction(Operation.COOL);
+		recipe.addAsInstruction(mixedPowder, Operation.ADD);
+		otherLab.addContainer(new IngredientContainer(new AlchemicIngredient(2, Unit.SACHET, new Temperature(20, 0), powderType)));
+		otherLab.addContainer(new IngredientContainer(mixedPowder));
+		// something the caller put in the kettle before the execution
+		otherKettle.addContainer(new IngredientContainer(liquid));
+		long storedBaseAmount = otherLab.getStoredBaseAmount();
+		// the first ingredient goes into the kettle too, before the second one turns out to be insufficient
+		otherLab.execute(recipe, 2);
+		assertEquals(storedBaseAmount, otherLab.getStoredBaseAmount());
+		assertEquals(1, otherKettle.getNbOfIngredients());
+		assertSame(liquid, otherKettle.getIngredientAt(0));
+		assertTrue(otherCoolingBox.isEmpty());
+		// a complete execution doesn't mix it into the result either
+		otherLab.execute(recipe, 1);
+		assertEquals(1, otherKettle.getNbOfIngredients());
+		assertSame(liquid, otherKettle.getIngredientAt(0));
+		assertEquals(storedBaseAmount, otherLab.getStoredBaseAmount());
+	}
+
+	@Test
+	public void testMaxMultiplierFor() {
+		AlchemicIngredient recipeIngr1 = new AlchemicIngredient(1, Unit.SACHET, new Temperature(20, 0), powderType);
+		recipe.addAsInstruction(recipeIngr1, Operation.ADD);
+		recipe.addAsInstruction(Operation.COOL);
+		recipe.addAsInstruction(mixedPowder, Operation.ADD);
+		recipe.addAsInstruction(Operation.HEAT);
+		recipe.addAsInstruction(Operation.MIX);
+		recipe.addAsInstruction(Operation.COOL);
+		recipe.addAsInstruction(heatedLiquid, Operation.ADD);
+		assertEquals(0, otherLab.maxMultiplierFor(recipe));
+		otherLab.addContainer(new IngredientContainer(new AlchemicIngredient(2, Unit.SACHET, new Temperature(20, 0), powderType)));
+		otherLab.addContainer(new IngredientContainer(mixedPowder));
+		otherLab.addContainer(new IngredientContainer(mixedPowder));
+		// no heated liquid in stock
+		assertEquals(0, otherLab.maxMultiplierFor(recipe));
+		otherLab.addContainer(new IngredientContainer(heatedLiquid));
+		otherLab.addContainer(new IngredientContainer(heatedLiquid));
+		// 2 sachets of powder, 10 sachets of mixed powder and 16 bottles of heated liquid
+		int max = otherLab.maxMultiplierFor(recipe);
+		assertEquals(2, max);
+		assertTrue(otherLab.plan(recipe, max).isFeasible());
+		assertFalse(otherLab.plan(recipe, max + 1).isFeasible());
+		assertEquals(0, lab.maxMultiplierFor(recipe));
+	}
+
+	@Test
+	public void testPlanProduction() {
+		// both recipes need powder sugar, the second one produces more per batch
+		Recipe cooledSugar = new Recipe();
+		cooledSugar.addAsInstruction(new AlchemicIngredient(1, Unit.SACHET, new Temperature(20, 0), powderType), Operation.ADD);
+		cooledSugar.addAsInstruction(Operation.COOL);
+		recipe.addAsInstruction(new AlchemicIngredient(1, Unit.SACHET, new Temperature(20, 0), powderType), Operation.ADD);
+		recipe.addAsInstruction(mixedPowder, Operation.ADD);
+		RecipeBook recipeBook = new RecipeBook();
+		recipeBook.addAsRecipe(cooledSugar);
+		recipeBook.addAsRecipe(recipe);
+		otherLab.addContainer(new IngredientContainer(new AlchemicIngredient(2, Unit.SACHET, new Temperature(20, 0), powderType)));
+		otherLab.addContainer(new IngredientContainer(mixedPowder));
+		otherLab.addContainer(new IngredientContainer(mixedPowder));
+
+		Map<Recipe, Long> targets = new HashMap<>();
+		targets.put(cooledSugar, 10000L);
+		// a single batch of the mix: 6 sachets
+		targets.put(recipe, 6 * Unit.SACHET.getBaseEquivalent());
+		ProductionPlan production = otherLab.planProduction(recipeBook, targets);
+		assertEquals(2, production.getNbOfRuns());
+		assertSame(recipe, production.getRecipeAt(0));
+		assertEquals(1, production.getMultiplierFor(recipe));
+		assertEquals(1, production.getMultiplierFor(cooledSugar));
+		assertEquals(7 * Unit.SACHET.getBaseEquivalent(), production.getTotalResultBaseAmount());
+
+		// without a target for the mix, the mix is not produced
+		targets.remove(recipe);
+		production = otherLab.planProduction(recipeBook, targets);
+		assertEquals(1, production.getNbOfRuns());
+		assertEquals(2, production.getMultiplierFor(cooledSugar));
+		assertEquals(0, production.getMultiplierFor(recipe));
+		assertThrows(NullPointerException.class, () -> otherLab.planProduction(recipeBook, null));
+	}
+
+	@Test
+	public void testGetBrewableRecipes() {
+		Recipe cooledSugar = new Recipe();
+		cooledSugar.addAsInstruction(new AlchemicIngredient(1, Unit.SACHET, new Temperature(20, 0), powderType), Operation.ADD);
+		cooledSugar.addAsInstruction(Operation.COOL);
+		recipe.addAsInstruction(new AlchemicIngredient(1, Unit.SACHET, new Temperature(20, 0), powderType), Operation.ADD);
+		recipe.addAsInstruction(mixedPowder, Operation.ADD);
+		RecipeBook recipeBook = new RecipeBook();
+		recipeBook.addAsRecipe(cooledSugar);
+		recipeBook.addAsRecipe(recipe);
+		assertTrue(otherLab.getBrewableRecipes(recipeBook).isEmpty());
+
+		otherLab.addContainer(new IngredientContainer(new AlchemicIngredient(1, Unit.SACHET, new Temperature(20, 0), powderType)));
+		assertEquals(List.of(cooledSugar), otherLab.getBrewableRecipes(recipeBook));
+		otherLab.addContainer(new IngredientContainer(mixedPowder));
+		assertEquals(List.of(cooledSugar, recipe), otherLab.getBrewableRecipes(recipeBook));
+
+		// executing the mix uses up the sugar and the mixed powder
+		otherLab.execute(recipe, 1);
+		assertTrue(otherLab.getBrewableRecipes(recipeBook).isEmpty());
+		otherLab.addContainer(new IngredientContainer(new AlchemicIngredient(5, Unit.SACHET, powderTypeMixed)));
+		assertTrue(otherLab.getBrewableRecipes(recipeBook).isEmpty());
+
+		// changes to the recipe book are picked up
+		Recipe mixedOnly = new Recipe();
+		mixedOnly.addAsInstruction(new AlchemicIngredient(1, Unit.SACHET, powderTypeMixed), Operation.ADD);
+		recipeBook.addAsRecipe(mixedOnly);
+		assertEquals(List.of(mixedOnly), otherLab.getBrewableRecipes(recipeBook));
+		mixedOnly.addAsInstruction(Operation.HEAT);
+		otherOven.move(new Laboratory(1));
+		assertTrue(otherLab.getBrewableRecipes(recipeBook).isEmpty());
+		assertThrows(NullPointerException.class, () -> otherLab.getBrewableRecipes(null));
+	}
+
+	@Test
+	public void testGetBrewableRecipes_TrackerDoesntReferenceRecipeBook() {
+		recipe.addAsInstruction(new AlchemicIngredient(1, Unit.SACHET, new Temperature(20, 0), powderType), Operation.ADD);
+		RecipeBook recipeBook = new RecipeBook();
+		recipeBook.addAsRecipe(recipe);
+		otherLab.getBrewableRecipes(recipeBook);
+		// the trackers are weakly keyed by their recipe book, so they may not reference it, nor any recipe,
+		// since a recipe references its recipe books
+		for (Field field : BrewableRecipes.class.getDeclaredFields()) {
+			assertFalse(field.getGenericType().getTypeName().contains("rpg.recipe."), field.getName());
+		}
+	}
+
+	@Test
+	public void testPlan_MissingDevices() {
+		recipe.addAsInstruction(powder, Operation.ADD);
+		recipe.addAsInstruction(Operation.HEAT);
+		assertEquals(RecipePlan.Failure.MISSING_DEVICES, lab.plan(recipe, 1).getFailure());
+		assertThrows(IllegalArgumentException.class, () -> lab.plan(recipe, 0));
+	}
+
 }
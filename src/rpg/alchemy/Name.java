@@ -3,6 +3,9 @@ package rpg.alchemy;
 import rpg.exceptions.IllegalNameException;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import be.kuleuven.cs.som.annotate.*;
 
 /**
@@ -22,21 +25,71 @@ public class Name {
 
 	/**********************************************************
 	 * CLASS PROPERTIES
+	 *
+	 * @note	The validation tables must be declared before WATER,
+	 * 			since creating WATER already validates its name.
 	 **********************************************************/
 
 	/**
-	 * A variable referencing the default name, water.
-	 *
-	 * @note 	We make this variable public because it is a constant and
-	 * 			clients can use it freely, i.e. they can't do illegal things with it.
+	 * A variable referencing the words that are not allowed in a name (ignoring case).
 	 */
-	public static final Name WATER = new Name(null, "Water");
+	private static final String[] ILLEGAL_WORDS = {"mixed", "with", "and", "heated", "cooled"};
 
 	/**
 	 * A variable referencing the allowed symbols for a name.
 	 */
 	private static final String ALLOWED_NAME_SYMBOLS = " '()";
 
+	/**
+	 * Variables referencing the flags of the character classes used for validating names.
+	 */
+	private static final byte LETTER = 1, UPPERCASE = 2, LEGAL_SYMBOL = 4, STARTS_ILLEGAL_WORD = 8;
+
+	/**
+	 * A variable referencing the precomputed character classes of all ASCII characters.
+	 */
+	private static final byte[] ASCII_CLASSES = new byte[128];
+
+	static {
+		for (char c = 0; c < ASCII_CLASSES.length; c++) {
+			if (Character.isLetter(c)) ASCII_CLASSES[c] |= LETTER;
+			if (Character.isUpperCase(c)) ASCII_CLASSES[c] |= UPPERCASE;
+			if (ALLOWED_NAME_SYMBOLS.indexOf(c) != -1) ASCII_CLASSES[c] |= LEGAL_SYMBOL;
+		}
+		for (String word : ILLEGAL_WORDS) {
+			ASCII_CLASSES[word.charAt(0)] |= STARTS_ILLEGAL_WORD;
+			ASCII_CLASSES[Character.toUpperCase(word.charAt(0))] |= STARTS_ILLEGAL_WORD;
+		}
+	}
+
+	/**
+	 * A variable referencing the maximum number of valid names that are remembered.
+	 */
+	private static final int MAX_NB_OF_CACHED_NAMES = 1024;
+
+	/**
+	 * A variable referencing the most recently used valid names, mapped to true.
+	 *
+	 * @note	The least recently used name is forgotten once the cache is full.
+	 * @note	Names are looked up with get(), which moves them to the back of the access order.
+	 * 			Since even a lookup reorders the entries, every access is synchronized.
+	 */
+	private static final Map<String, Boolean> VALID_NAMES = Collections.synchronizedMap(
+			new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+					return size() > MAX_NB_OF_CACHED_NAMES;
+				}
+			});
+
+	/**
+	 * A variable referencing the default name, water.
+	 *
+	 * @note 	We make this variable public because it is a constant and
+	 * 			clients can use it freely, i.e. they can't do illegal things with it.
+	 */
+	public static final Name WATER = new Name(null, "Water");
+
 
 
 	/**********************************************************
@@ -53,6 +106,8 @@ public class Name {
 	 *
 	 * @post	The simple name parts are set to the given simple name parts.
 	 * 			| Arrays.equals(new.getSimpleNameParts(), simpleNameParts)
+	 * @post	The simple name is rendered once from the given simple name parts.
+	 * 			| new.getSimpleName().equals(renderSimpleName(simpleNameParts))
 	 * @effect	The special name of the new name is set to the given special name.
 	 * 			| setSpecialName(specialName)
 	 *
@@ -74,6 +129,7 @@ public class Name {
 		// order the simple name parts and store them
 		Arrays.sort(simpleNameParts);
 		this.simpleNameParts = simpleNameParts;
+		this.simpleName = renderSimpleName(simpleNameParts);
 		setSpecialName(specialName);
 	}
 
@@ -96,42 +152,63 @@ public class Name {
 		return simpleNameParts;
 	}
 
+	/**
+	 * A variable referencing the simple name, which is rendered once from the simple name parts.
+	 */
+	private final String simpleName;
+
 	/**
 	 * A method that returns the simple name.
+	 */
+	@Basic @Immutable
+	public String getSimpleName() {
+		return simpleName;
+	}
+
+	/**
+	 * A method that renders the simple name of the given sorted simple name parts.
+	 *
+	 * @param 	simpleNameParts
+	 * 			The simple name parts to render.
 	 *
-	 * @return	The first name part if the name is not mixed
-	 * 			| if (!isMixed())
-	 * 			| 	then result == getSimpleNameParts()[0]
-	 * @return	The first name part followed by "mixed with" and the second name part if the name is mixed
-	 * 			and the length of the simple name parts is 2.
-	 * 			| if (isMixed() && getSimpleNameParts().length == 2)
-	 * 			| 	then result == (getSimpleNameParts()[0] + " mixed with " + getSimpleNameParts()[1])
+	 * @return	The first name part if there is only one part.
+	 * 			| if (simpleNameParts.length == 1)
+	 * 			| 	then result == simpleNameParts[0]
+	 * @return	The first name part followed by "mixed with" and the second name part if
+	 * 			the length of the simple name parts is 2.
+	 * 			| if (simpleNameParts.length == 2)
+	 * 			| 	then result == (simpleNameParts[0] + " mixed with " + simpleNameParts[1])
 	 * @return	The first name part followed by "mixed with" and the other name parts separated by commas
 	 * 			and the last name part preceded by "and" if the length of the simple name parts
 	 * 			is greater than 2.
-	 * 			| if (isMixed() && getSimpleNameParts().length > 2)
-	 * 			|	then result == ( getSimpleNameParts()[0] + " mixed with " +
-	 * 			|		getSimpleNameParts()[1] + ", " + ... + " and " + getSimpleNameParts()[getSimpleNameParts().length-1] )
+	 * 			| if (simpleNameParts.length > 2)
+	 * 			|	then result == ( simpleNameParts[0] + " mixed with " +
+	 * 			|		simpleNameParts[1] + ", " + ... + " and " + simpleNameParts[simpleNameParts.length-1] )
 	 */
-	@Immutable
-	public String getSimpleName() {
-		if (!isMixed()) {
+	@Model
+	private static String renderSimpleName(String[] simpleNameParts) {
+		if (simpleNameParts.length == 1) {
 			return simpleNameParts[0];
-		} else {
-			// first part
-			String toReturn = simpleNameParts[0] + " mixed with " + simpleNameParts[1];
-			// middle parts
-			for (int i = 2; i < simpleNameParts.length; i++) {
-				if (i != simpleNameParts.length - 1) {
-					toReturn += ", ";
-				} else {
-					// last part
-					toReturn += " and ";
-				}
-				toReturn += simpleNameParts[i];
+		}
+		// compute the exact length first, so the name is built in linear time
+		int length = " mixed with ".length() + " and ".length() - ", ".length();
+		for (String simpleNamePart : simpleNameParts) {
+			length += simpleNamePart.length() + ", ".length();
+		}
+		StringBuilder builder = new StringBuilder(length);
+		// first part
+		builder.append(simpleNameParts[0]).append(" mixed with ").append(simpleNameParts[1]);
+		// middle parts
+		for (int i = 2; i < simpleNameParts.length; i++) {
+			if (i != simpleNameParts.length - 1) {
+				builder.append(", ");
+			} else {
+				// last part
+				builder.append(" and ");
 			}
-			return toReturn;
+			builder.append(simpleNameParts[i]);
 		}
+		return builder.toString();
 	}
 
 	/**
@@ -207,6 +284,50 @@ public class Name {
 			throw new IllegalNameException(specialName);
 		}
 		this.specialName = specialName;
+		// the full names contain the special name, so they must be rendered again
+		Arrays.fill(fullNames, null);
+	}
+
+
+
+	/**********************************************************
+	 * FULL NAME
+	 **********************************************************/
+
+	/**
+	 * A variable referencing the full names of this name that are already rendered,
+	 * indexed by the ordinal of their temperature class.
+	 */
+	private final String[] fullNames = new String[TemperatureClass.values().length];
+
+	/**
+	 * A method for getting the full name of an ingredient with this name and the given temperature class.
+	 *
+	 * @param 	temperatureClass
+	 * 			The temperature class of the ingredient.
+	 *
+	 * @return	If the name is mixed and has a special name then the full name is
+	 * 			the special name followed by the prefixed simple name in brackets.
+	 * 			| if (isMixed() && getSpecialName() != null)
+	 * 			|   then result.equals(getSpecialName() + " (" + temperatureClass.getPrefix() + getSimpleName() + ")")
+	 * @return	Otherwise the full name is just the prefixed simple name.
+	 * 			| if !(isMixed() && getSpecialName() != null)
+	 * 			|   then result.equals(temperatureClass.getPrefix() + getSimpleName())
+	 *
+	 * @note	Every full name is rendered only once, until the special name changes.
+	 */
+	public String getFullName(TemperatureClass temperatureClass) {
+		String fullName = fullNames[temperatureClass.ordinal()];
+		if (fullName == null) {
+			String extendedSimpleName = temperatureClass.getPrefix() + getSimpleName();
+			if (isMixed() && getSpecialName() != null) {
+				fullName = getSpecialName() + " (" + extendedSimpleName + ")";
+			} else {
+				fullName = extendedSimpleName;
+			}
+			fullNames[temperatureClass.ordinal()] = fullName;
+		}
+		return fullName;
 	}
 
 
@@ -240,15 +361,119 @@ public class Name {
 	 * 			|	&& !containsIllegalWords(name)
 	 * 			|	&& !containsIllegalSymbols(name)
 	 * 			|	&& !containsIllegalPart(name.split(" ") )
+	 *
+	 * @note	A name with an empty part in front of another part (i.e. a leading space or
+	 * 			two consecutive spaces) is not a valid name.
+	 * @note	The name is checked in a single scan, and the most recently validated
+	 * 			valid names are remembered.
 	 */
 	public static boolean isValidName(String name) {
-		return (
-				name != null
-				&& !name.isEmpty()
-				&& !containsIllegalWords(name)
-				&& !containsIllegalSymbols(name)
-				&& !containsIllegalPart(name.split(" "))
-		);
+		if (name == null || name.isEmpty()) {
+			return false;
+		}
+		if (VALID_NAMES.get(name) != null) {
+			return true;
+		}
+		if (!scanName(name)) {
+			return false;
+		}
+		VALID_NAMES.put(name, Boolean.TRUE);
+		return true;
+	}
+
+	/**
+	 * A method for checking the symbols, the casing, the part lengths and the words
+	 * of a given effective, non-empty name in a single scan, without creating any objects.
+	 *
+	 * @param 	name
+	 * 			The name to check.
+	 *
+	 * @return	True if and only if the name doesn't contain any illegal words, the name doesn't
+	 * 			contain any illegal symbols and the name doesn't contain any illegal parts, where
+	 * 			the parts are split in the same way as name.split(" ").
+	 * 			| result ==
+	 * 			|	( !containsIllegalWords(name)
+	 * 			|	&& !containsIllegalSymbols(name)
+	 * 			|	&& !containsIllegalPart(name.split(" ") )
+	 */
+	@Model
+	private static boolean scanName(String name) {
+		int length = name.length();
+		int nbOfParts = 0;
+		int nbOfPendingEmptyParts = 0;
+		int shortestPartLength = Integer.MAX_VALUE;
+		int partLength = 0;
+		for (int i = 0; i <= length; i++) {
+			if (i == length || name.charAt(i) == ' ') {
+				// end of a part; like String.split, trailing empty parts are dropped
+				if (partLength == 0) {
+					nbOfPendingEmptyParts++;
+				} else {
+					if (nbOfPendingEmptyParts > 0) {
+						return false;
+					}
+					nbOfParts++;
+					shortestPartLength = Math.min(shortestPartLength, partLength);
+					partLength = 0;
+				}
+				continue;
+			}
+			char symbol = name.charAt(i);
+			int flags = symbol < ASCII_CLASSES.length ? ASCII_CLASSES[symbol] : nonAsciiClass(symbol);
+			// a letter or an allowed symbol
+			if ((flags & (LETTER | LEGAL_SYMBOL)) == 0) {
+				return false;
+			}
+			// the first letter of a part must be uppercase or a legal symbol, the rest can't be uppercase
+			if (partLength == 0 ? (flags & (UPPERCASE | LEGAL_SYMBOL)) == 0 : (flags & UPPERCASE) != 0) {
+				return false;
+			}
+			if ((flags & STARTS_ILLEGAL_WORD) != 0 && startsIllegalWordAt(name, i)) {
+				return false;
+			}
+			partLength++;
+		}
+		if (nbOfParts == 1) {
+			return shortestPartLength >= 3;
+		}
+		return nbOfParts == 0 || shortestPartLength >= 2;
+	}
+
+	/**
+	 * Return the character class flags of a given non-ASCII symbol.
+	 *
+	 * @param 	symbol
+	 * 			The symbol to classify.
+	 */
+	@Model
+	private static int nonAsciiClass(char symbol) {
+		int flags = 0;
+		if (Character.isLetter(symbol)) flags |= LETTER;
+		if (Character.isUpperCase(symbol)) flags |= UPPERCASE;
+		return flags;
+	}
+
+	/**
+	 * A method for checking whether an illegal word starts at a given index of a given string.
+	 *
+	 * @param 	str
+	 * 			The string to check.
+	 * @param 	index
+	 * 			The index to check.
+	 *
+	 * @return	True if and only if one of the illegal words occurs (ignoring case)
+	 * 			in the string at the given index.
+	 * 			| result == ( for some word in ILLEGAL_WORDS:
+	 * 			|	str.regionMatches(true, index, word, 0, word.length()) )
+	 */
+	@Model
+	private static boolean startsIllegalWordAt(String str, int index) {
+		for (String word : ILLEGAL_WORDS) {
+			if (str.regionMatches(true, index, word, 0, word.length())) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
@@ -266,11 +491,12 @@ public class Name {
 	 * 			|		|| str.toLowerCase().contains("cooled") )
 	 */
 	public static boolean containsIllegalWords(String str) {
-		return (str.toLowerCase().contains("mixed")
-				|| str.toLowerCase().contains("with")
-				|| str.toLowerCase().contains("and")
-				|| str.toLowerCase().contains("heated")
-				|| str.toLowerCase().contains("cooled"));
+		for (int i = 0; i < str.length(); i++) {
+			if (startsIllegalWordAt(str, i)) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
@@ -29,6 +29,24 @@ public class NameTest {
 		assertTrue(Name.isValidName("Ab Cd's Ef"));
 	}
 
+	@Test
+	public void testIsValidNameSpaces() {
+		assertFalse(Name.isValidName(" Abc"));
+		assertFalse(Name.isValidName("Abc  Def"));
+		assertTrue(Name.isValidName("Abc "));
+		assertFalse(Name.isValidName("Sandwich"));
+		assertFalse(Name.isValidName("MIXED"));
+	}
+
+	@Test
+	public void testIsValidNameRepeated() {
+		// the second check is answered by the cache of valid names
+		assertTrue(Name.isValidName("Lizard's Tale"));
+		assertTrue(Name.isValidName("Lizard's Tale"));
+		assertFalse(Name.isValidName("Lizard's tale with"));
+		assertFalse(Name.isValidName("Lizard's tale with"));
+	}
+
 	@Test
 	public void testConstructor1() {
 		Name name = new Name(null, "Red Mushroom Gas");
@@ -67,4 +85,27 @@ public class NameTest {
 		assertNull(name.getSpecialName());
 	}
 
+	@Test
+	public void testSimpleNameManyParts() {
+		String[] parts = new String[300];
+		for (int i = 0; i < parts.length; i++) {
+			parts[i] = "Part" + (char) ('a' + i % 26) + (char) ('a' + i / 26);
+		}
+		Name name = new Name(null, parts);
+		String simpleName = name.getSimpleName();
+		assertTrue(simpleName.startsWith("Partaa mixed with Partab, "));
+		assertTrue(simpleName.endsWith(" and Partzk"));
+		assertSame(simpleName, name.getSimpleName());
+	}
+
+	@Test
+	public void testFullName() {
+		Name name = new Name(null, "Beer", "Coke");
+		assertEquals("Heated Beer mixed with Coke", name.getFullName(TemperatureClass.HEATED));
+		assertEquals("Beer mixed with Coke", name.getFullName(TemperatureClass.STANDARD));
+		name.setSpecialName("Mazout");
+		assertEquals("Mazout (Cooled Beer mixed with Coke)", name.getFullName(TemperatureClass.COOLED));
+		assertEquals("Mazout (Beer mixed with Coke)", name.getFullName(TemperatureClass.STANDARD));
+	}
+
 }
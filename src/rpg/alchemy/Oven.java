@@ -1,7 +1,9 @@
 package rpg.alchemy;
 
 import be.kuleuven.cs.som.annotate.*;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 import static java.lang.Math.abs;
 
@@ -35,6 +37,97 @@ public class Oven extends TemperatureDevice {
 		super(laboratory, temperature);
 	}
 
+	/**
+	 * A constructor for an oven given a temperature, a given laboratory and a seed for its noise.
+	 *
+	 * @param 	laboratory
+	 * 			The laboratory in which the oven is placed.
+	 * @param 	temperature
+	 *			The temperature for this oven to heat to.
+	 * @param 	seed
+	 * 			The seed for the deterministic noise of this oven.
+	 *
+	 * @effect 	An oven with given temperature and laboratory is created.
+	 * 	 		| this(laboratory, temperature)
+	 * @effect 	The noise of the oven is seeded with the given seed.
+	 * 			| setNoiseSeed(seed)
+	 */
+	@Raw
+	public Oven(Laboratory laboratory, Temperature temperature, long seed) throws IllegalArgumentException, NullPointerException {
+		this(laboratory, temperature);
+		setNoiseSeed(seed);
+	}
+
+
+
+	/**********************************************************
+	 * NOISE
+	 **********************************************************/
+
+	/**
+	 * A variable referencing the maximum deviation of the oven from its temperature.
+	 */
+	private static final int MAX_DEVIATION = 5;
+
+	/**
+	 * A variable referencing the source of the noise of this oven.
+	 *
+	 * @note	If this is null, the thread local random generator of the executing thread is used.
+	 */
+	private RandomGenerator noiseSource = null;
+
+	/**
+	 * Return the source of the noise of this oven, or null if the thread local
+	 * random generator of the executing thread is used.
+	 */
+	@Basic
+	public RandomGenerator getNoiseSource() {
+		return noiseSource;
+	}
+
+	/**
+	 * A method to set the source of the noise of this oven.
+	 *
+	 * @param 	noiseSource
+	 * 			The new source of noise, or null to use the thread local random generator
+	 * 			of the executing thread.
+	 *
+	 * @post	The noise source of this oven is set to the given noise source.
+	 * 			| new.getNoiseSource() == noiseSource
+	 */
+	public void setNoiseSource(RandomGenerator noiseSource) {
+		this.noiseSource = noiseSource;
+	}
+
+	/**
+	 * A method to make the noise of this oven deterministic, starting from a given seed.
+	 *
+	 * @param 	seed
+	 * 			The seed for the noise.
+	 *
+	 * @effect	The noise source of this oven is set to a new splittable random generator with the given seed.
+	 * 			| setNoiseSource(new SplittableRandom(seed))
+	 *
+	 * @note	Two ovens with the same seed and the same operations deviate in exactly the same way,
+	 * 			so runs can be replayed.
+	 */
+	public void setNoiseSeed(long seed) {
+		setNoiseSource(new SplittableRandom(seed));
+	}
+
+	/**
+	 * A method for getting the next deviation of this oven from its temperature.
+	 *
+	 * @return	The next deviation from the noise source of this oven, or from the thread
+	 * 			local random generator of the executing thread if the noise source is null.
+	 * 			| result >= -MAX_DEVIATION && result < MAX_DEVIATION
+	 */
+	@Model
+	private int getNextDeviation() {
+		RandomGenerator random = (getNoiseSource() == null) ? ThreadLocalRandom.current() : getNoiseSource();
+		return random.nextInt(-MAX_DEVIATION, MAX_DEVIATION);
+	}
+
 
 
 	/**********************************************************
@@ -55,16 +148,17 @@ public class Oven extends TemperatureDevice {
 	 */
 	@Override
 	public void executeOperation() throws IllegalStateException {
+		AlchemyEvents.DeviceOperation event = new AlchemyEvents.DeviceOperation(this);
 		super.executeOperation();
 		// if the temperature of the oven is higher than the temperature of the ingredient, do nothing
 		if (!getTemperatureObject().isColderThan(getIngredientAt(0).getTemperature())) {
-			Random random = new Random();
 			// if the temperature of the ingredient is lower than the temperature of the oven, heat the ingredient
 			long difference = getTemperatureObject().difference(getIngredientAt(0).getTemperature())
-					+ random.nextInt(-5,5);
+					+ getNextDeviation();
 			// negative differences do nothing
 			getIngredientAt(0).heat(difference);
 		}
+		event.commit();
 	}
 
 
@@ -0,0 +1,77 @@
+package rpg.alchemy;
+
+import rpg.State;
+import rpg.Unit;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * A small benchmark of the loop that brings added containers to their standard temperature,
+ * for every kind of noise source of the oven.
+ *
+ * @note	Run it with java rpg.alchemy.OvenBenchmark [number of containers]. Every round adds that many cold
+ * 			containers to a laboratory with an oven and a cooling box, one at a time, and removes the result again.
+ * 			The first rounds only warm up the JIT. The source that creates a new Random for every deviation
+ * 			stands in for the oven before it had a noise source.
+ *
+ * @author	Vincent Van Schependom
+ * @author 	Arne Claerhout
+ * @author	Flor De Meulemeester
+ *
+ * @version	1.0
+ */
+public class OvenBenchmark {
+
+	/**
+	 * The number of rounds that only warm up the JIT.
+	 */
+	private static final int NB_OF_WARM_UP_ROUNDS = 3;
+
+	/**
+	 * The number of rounds that are measured.
+	 */
+	private static final int NB_OF_ROUNDS = 5;
+
+	/**
+	 * Run the benchmark.
+	 *
+	 * @param 	args
+	 * 			Optionally, the number of containers per round.
+	 */
+	public static void main(String[] args) {
+		int nbOfContainers = (args.length > 0) ? Integer.parseInt(args[0]) : 200_000;
+		RandomGenerator newRandomPerCall = () -> new Random().nextLong();
+		System.out.printf("new Random per call:  %.2f us per container%n", run(newRandomPerCall, nbOfContainers));
+		System.out.printf("thread local random:  %.2f us per container%n", run(null, nbOfContainers));
+		System.out.printf("seeded random:        %.2f us per container%n", run(new SplittableRandom(42), nbOfContainers));
+	}
+
+	/**
+	 * Return the time to add a cold container, in microseconds, with the given noise source,
+	 * averaged over a round and taking the best of the measured rounds.
+	 */
+	private static double run(RandomGenerator noiseSource, int nbOfContainers) {
+		Laboratory laboratory = new Laboratory(1);
+		Oven oven = new Oven(laboratory, new Temperature());
+		oven.setNoiseSource(noiseSource);
+		new CoolingBox(laboratory, new Temperature());
+		// warm and stored at 50, so every container at 20 has to be heated
+		IngredientType type = new IngredientType(new Name(null, "Tea"), State.LIQUID, new Temperature(0, 50), false);
+		double best = Double.MAX_VALUE;
+		for (int round = 0; round < NB_OF_WARM_UP_ROUNDS + NB_OF_ROUNDS; round++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < nbOfContainers; i++) {
+				laboratory.addContainer(new IngredientContainer(new AlchemicIngredient(1, Unit.SPOON, new Temperature(0, 20), type)));
+				laboratory.removeIngredientAt(0);
+			}
+			double microsPerContainer = (System.nanoTime() - start) / 1000.0 / nbOfContainers;
+			if (round >= NB_OF_WARM_UP_ROUNDS) {
+				best = Math.min(best, microsPerContainer);
+			}
+		}
+		return best;
+	}
+
+}
@@ -83,4 +83,28 @@ public class OvenTest {
             oven.executeOperation();
         });
     }
+
+    @Test
+    public void executeOperation_seededNoise() {
+        Laboratory seededLab = new Laboratory(2);
+        Laboratory otherLab = new Laboratory(2);
+        Oven seededOven = new Oven(seededLab, new Temperature(0, 150), 42);
+        Oven otherSeededOven = new Oven(otherLab, new Temperature(0, 150), 42);
+        AlchemicIngredient otherIngredient = new AlchemicIngredient(10, Unit.SPOON, type1);
+        seededOven.addContainer(container1);
+        otherSeededOven.addContainer(new IngredientContainer(Unit.BARREL, otherIngredient));
+        seededOven.executeOperation();
+        otherSeededOven.executeOperation();
+        // the same seed gives the same deviation
+        assertEquals(seededOven.getResult().getContent().getHotness(), otherSeededOven.getResult().getContent().getHotness());
+    }
+
+    @Test
+    public void setNoiseSource() {
+        assertNull(oven.getNoiseSource());
+        oven.setNoiseSeed(7);
+        assertNotNull(oven.getNoiseSource());
+        oven.setNoiseSource(null);
+        assertNull(oven.getNoiseSource());
+    }
 }
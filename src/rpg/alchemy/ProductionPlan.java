@@ -0,0 +1,169 @@
+package rpg.alchemy;
+
+import be.kuleuven.cs.som.annotate.*;
+import rpg.recipe.Recipe;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A class representing a choice of recipes to execute in a laboratory, one after the other,
+ * each with a multiplier.
+ *
+ * @invar	The multiplier of each run must always be valid.
+ * 			| for each I in 0..getNbOfRuns()-1:
+ * 			|	Laboratory.isValidMultiplier(getMultiplierAt(I))
+ *
+ * @author	Vincent Van Schependom
+ * @author 	Arne Claerhout
+ * @author	Flor De Meulemeester
+ *
+ * @version	1.0
+ */
+public class ProductionPlan {
+
+	/**********************************************************
+	 * CONSTRUCTOR
+	 **********************************************************/
+
+	/**
+	 * A constructor for a new, empty production plan.
+	 *
+	 * @post	The new production plan has no runs.
+	 * 			| new.getNbOfRuns() == 0
+	 */
+	@Raw
+	protected ProductionPlan() {
+	}
+
+
+
+	/**********************************************************
+	 * RUNS
+	 **********************************************************/
+
+	/**
+	 * A variable referencing the recipes that are executed, in order.
+	 */
+	private final List<Recipe> recipes = new ArrayList<>();
+
+	/**
+	 * A variable referencing the multipliers with which the recipes are executed.
+	 */
+	private final List<Integer> multipliers = new ArrayList<>();
+
+	/**
+	 * A variable referencing the predicted amounts of the results of the recipes, in base quantities.
+	 */
+	private final List<Long> resultBaseAmounts = new ArrayList<>();
+
+	/**
+	 * Return the number of runs in this production plan.
+	 */
+	@Basic
+	public int getNbOfRuns() {
+		return recipes.size();
+	}
+
+	/**
+	 * Return the recipe of the run at the given index.
+	 *
+	 * @param 	index
+	 * 			The index of the run.
+	 *
+	 * @throws	IndexOutOfBoundsException
+	 * 			The index is not valid.
+	 * 			| index < 0 || index >= getNbOfRuns()
+	 */
+	@Basic
+	public Recipe getRecipeAt(int index) throws IndexOutOfBoundsException {
+		return recipes.get(index);
+	}
+
+	/**
+	 * Return the multiplier of the run at the given index.
+	 *
+	 * @param 	index
+	 * 			The index of the run.
+	 *
+	 * @throws	IndexOutOfBoundsException
+	 * 			The index is not valid.
+	 * 			| index < 0 || index >= getNbOfRuns()
+	 */
+	@Basic
+	public int getMultiplierAt(int index) throws IndexOutOfBoundsException {
+		return multipliers.get(index);
+	}
+
+	/**
+	 * Return the predicted amount of the result of the run at the given index, in base quantities.
+	 *
+	 * @param 	index
+	 * 			The index of the run.
+	 *
+	 * @throws	IndexOutOfBoundsException
+	 * 			The index is not valid.
+	 * 			| index < 0 || index >= getNbOfRuns()
+	 */
+	@Basic
+	public long getResultBaseAmountAt(int index) throws IndexOutOfBoundsException {
+		return resultBaseAmounts.get(index);
+	}
+
+	/**
+	 * Return the multiplier with which the given recipe is executed, or zero if it isn't.
+	 *
+	 * @param 	recipe
+	 * 			The recipe to check.
+	 *
+	 * @return	The multiplier of the run with the given recipe, or zero if there is no such run.
+	 * 			| if (for some I in 0..getNbOfRuns()-1: getRecipeAt(I) == recipe)
+	 * 			|	then (for some I in 0..getNbOfRuns()-1: getRecipeAt(I) == recipe && result == getMultiplierAt(I))
+	 * 			|	else result == 0
+	 */
+	public int getMultiplierFor(Recipe recipe) {
+		for (int i = 0; i < getNbOfRuns(); i++) {
+			if (getRecipeAt(i) == recipe) {
+				return getMultiplierAt(i);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Return the total predicted amount of the results of all runs, in base quantities.
+	 *
+	 * @return	The sum of the results of all runs.
+	 * 			| result == sum{ getResultBaseAmountAt(I) | I in 0..getNbOfRuns()-1 }
+	 */
+	public long getTotalResultBaseAmount() {
+		long total = 0;
+		for (long resultBaseAmount : resultBaseAmounts) {
+			total += resultBaseAmount;
+		}
+		return total;
+	}
+
+	/**
+	 * A method to add a run at the end of this production plan.
+	 *
+	 * @param 	recipe
+	 * 			The recipe that is executed.
+	 * @param 	multiplier
+	 * 			The multiplier with which the recipe is executed.
+	 * @param 	resultBaseAmount
+	 * 			The predicted amount of the result, in base quantities.
+	 *
+	 * @post	The run is added at the last index.
+	 * 			| new.getRecipeAt(getNbOfRuns()) == recipe
+	 * 			| && new.getMultiplierAt(getNbOfRuns()) == multiplier
+	 * 			| && new.getResultBaseAmountAt(getNbOfRuns()) == resultBaseAmount
+	 */
+	@Model
+	protected void addRun(Recipe recipe, int multiplier, long resultBaseAmount) {
+		recipes.add(recipe);
+		multipliers.add(multiplier);
+		resultBaseAmounts.add(resultBaseAmount);
+	}
+
+}
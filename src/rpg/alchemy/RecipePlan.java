@@ -0,0 +1,335 @@
+package rpg.alchemy;
+
+import be.kuleuven.cs.som.annotate.*;
+import rpg.State;
+import rpg.recipe.Operation;
+import rpg.recipe.Recipe;
+
+import java.util.*;
+
+/**
+ * A class representing the predicted outcome of executing a recipe in a laboratory,
+ * without changing the laboratory.
+ *
+ * @invar	The multiplier of a plan must always be valid.
+ * 			| Laboratory.isValidMultiplier(getMultiplier())
+ * @invar	A plan which is feasible has no failure.
+ * 			| isFeasible() == (getFailure() == null)
+ *
+ * @author	Vincent Van Schependom
+ * @author 	Arne Claerhout
+ * @author	Flor De Meulemeester
+ *
+ * @version	1.0
+ */
+public class RecipePlan {
+
+	/**********************************************************
+	 * FAILURES
+	 **********************************************************/
+
+	/**
+	 * An enumeration of the reasons for which the execution of a recipe fails.
+	 */
+	public enum Failure {
+		/**
+		 * The laboratory doesn't have the devices that are needed for the recipe.
+		 */
+		MISSING_DEVICES,
+		/**
+		 * The laboratory doesn't have enough of an ingredient that is added.
+		 */
+		INSUFFICIENT_INGREDIENT,
+		/**
+		 * An ingredient that is added doesn't fit in a single container.
+		 */
+		CONTAINER_CAPACITY
+	}
+
+
+
+	/**********************************************************
+	 * CONSTRUCTOR
+	 **********************************************************/
+
+	/**
+	 * A constructor for a new, feasible plan for a given recipe and multiplier.
+	 *
+	 * @param 	recipe
+	 * 			The recipe that is planned.
+	 * @param 	multiplier
+	 * 			The multiplier with which the recipe is planned.
+	 *
+	 * @post	The recipe and the multiplier of the new plan are set to the given recipe and multiplier.
+	 * 			| new.getRecipe() == recipe && new.getMultiplier() == multiplier
+	 * @post	The new plan is feasible and has no consumed ingredients or operations.
+	 * 			| new.isFeasible() && new.getConsumedSimpleNames().isEmpty()
+	 */
+	@Raw
+	protected RecipePlan(Recipe recipe, int multiplier) {
+		this.recipe = recipe;
+		this.multiplier = multiplier;
+	}
+
+
+
+	/**********************************************************
+	 * RECIPE AND MULTIPLIER
+	 **********************************************************/
+
+	/**
+	 * A variable referencing the recipe that is planned.
+	 */
+	private final Recipe recipe;
+
+	/**
+	 * Return the recipe that is planned.
+	 */
+	@Basic @Immutable
+	public Recipe getRecipe() {
+		return recipe;
+	}
+
+	/**
+	 * A variable referencing the multiplier with which the recipe is planned.
+	 */
+	private final int multiplier;
+
+	/**
+	 * Return the multiplier with which the recipe is planned.
+	 */
+	@Basic @Immutable
+	public int getMultiplier() {
+		return multiplier;
+	}
+
+
+
+	/**********************************************************
+	 * CONSUMED INGREDIENTS
+	 **********************************************************/
+
+	/**
+	 * A variable referencing the amounts of the ingredients that are consumed, in base quantities,
+	 * per simple name, in the order in which they are first added.
+	 */
+	private final Map<String, Long> consumedBaseAmounts = new LinkedHashMap<>();
+
+	/**
+	 * Return the simple names of the ingredients that are consumed, in the order in which they are first added.
+	 */
+	public List<String> getConsumedSimpleNames() {
+		return new ArrayList<>(consumedBaseAmounts.keySet());
+	}
+
+	/**
+	 * Return the amount of the ingredient with the given simple name that is consumed,
+	 * expressed in base quantities.
+	 *
+	 * @param 	simpleName
+	 * 			The simple name of the ingredient.
+	 *
+	 * @return	Zero if the ingredient is not consumed.
+	 * 			| if (!getConsumedSimpleNames().contains(simpleName))
+	 * 			|	then result == 0
+	 */
+	public long getConsumedBaseAmount(String simpleName) {
+		return consumedBaseAmounts.getOrDefault(simpleName, 0L);
+	}
+
+	/**
+	 * A method to register that a given amount of an ingredient with a given simple name is consumed.
+	 *
+	 * @param 	simpleName
+	 * 			The simple name of the consumed ingredient.
+	 * @param 	baseAmount
+	 * 			The consumed amount, in base quantities.
+	 *
+	 * @post	The consumed amount of the ingredient is incremented with the given amount.
+	 * 			| new.getConsumedBaseAmount(simpleName) == getConsumedBaseAmount(simpleName) + baseAmount
+	 */
+	@Model
+	protected void addConsumed(String simpleName, long baseAmount) {
+		consumedBaseAmounts.merge(simpleName, baseAmount, Long::sum);
+	}
+
+
+
+	/**********************************************************
+	 * OPERATIONS
+	 **********************************************************/
+
+	/**
+	 * A variable referencing the number of operations of each type that are executed,
+	 * including the final mix that is added when the recipe doesn't end with one.
+	 */
+	private final Map<Operation, Integer> operationCounts = new EnumMap<>(Operation.class);
+
+	/**
+	 * Return the number of operations of the given type that are executed before the plan ends or fails.
+	 *
+	 * @param 	operation
+	 * 			The type of operation.
+	 *
+	 * @note	Every heat operation uses the oven at least once, since the oven is not exact.
+	 */
+	public int getNbOfOperations(Operation operation) {
+		return operationCounts.getOrDefault(operation, 0);
+	}
+
+	/**
+	 * A method to register that an operation of the given type is executed.
+	 *
+	 * @param 	operation
+	 * 			The executed operation.
+	 *
+	 * @post	The number of operations of the given type is incremented with one.
+	 * 			| new.getNbOfOperations(operation) == getNbOfOperations(operation) + 1
+	 */
+	@Model
+	protected void addOperation(Operation operation) {
+		operationCounts.merge(operation, 1, Integer::sum);
+	}
+
+
+
+	/**********************************************************
+	 * RESULT
+	 **********************************************************/
+
+	/**
+	 * A variable referencing the state of the predicted result.
+	 */
+	private State resultState = null;
+
+	/**
+	 * Return the state of the predicted result, or null if the plan fails.
+	 */
+	@Basic
+	public State getResultState() {
+		return resultState;
+	}
+
+	/**
+	 * A variable referencing the amount of the predicted result, in base quantities.
+	 */
+	private long resultBaseAmount = 0;
+
+	/**
+	 * Return the amount of the predicted result in base quantities, or zero if the plan fails.
+	 */
+	@Basic
+	public long getResultBaseAmount() {
+		return resultBaseAmount;
+	}
+
+	/**
+	 * A variable referencing the amount that goes to waste because a result doesn't fit
+	 * in a single container, in base quantities.
+	 */
+	private long wastedBaseAmount = 0;
+
+	/**
+	 * Return the amount that goes to waste because a result doesn't fit in a single container,
+	 * in base quantities.
+	 */
+	@Basic
+	public long getWastedBaseAmount() {
+		return wastedBaseAmount;
+	}
+
+	/**
+	 * A method to register that a given amount goes to waste.
+	 *
+	 * @param 	baseAmount
+	 * 			The wasted amount, in base quantities.
+	 *
+	 * @post	The wasted amount is incremented with the given amount.
+	 * 			| new.getWastedBaseAmount() == getWastedBaseAmount() + baseAmount
+	 */
+	@Model
+	protected void addWaste(long baseAmount) {
+		wastedBaseAmount += baseAmount;
+	}
+
+	/**
+	 * A method to set the predicted result of this plan.
+	 *
+	 * @param 	state
+	 * 			The state of the result.
+	 * @param 	baseAmount
+	 * 			The amount of the result, in base quantities.
+	 *
+	 * @post	The state and amount of the result are set to the given state and amount.
+	 * 			| new.getResultState() == state && new.getResultBaseAmount() == baseAmount
+	 */
+	@Model
+	protected void setResult(State state, long baseAmount) {
+		this.resultState = state;
+		this.resultBaseAmount = baseAmount;
+	}
+
+
+
+	/**********************************************************
+	 * FEASIBILITY
+	 **********************************************************/
+
+	/**
+	 * A variable referencing the reason why the plan fails, or null if it doesn't.
+	 */
+	private Failure failure = null;
+
+	/**
+	 * A variable referencing the index of the operation at which the plan fails, or -1 if it doesn't.
+	 */
+	private int failingOperationIndex = -1;
+
+	/**
+	 * Return the reason why the plan fails, or null if it doesn't.
+	 */
+	@Basic
+	public Failure getFailure() {
+		return failure;
+	}
+
+	/**
+	 * Return the index of the operation at which the plan fails, or -1 if it doesn't
+	 * or if it fails before the first operation.
+	 */
+	@Basic
+	public int getFailingOperationIndex() {
+		return failingOperationIndex;
+	}
+
+	/**
+	 * Return whether the recipe can be executed completely.
+	 *
+	 * @return	True if and only if the plan has no failure.
+	 * 			| result == (getFailure() == null)
+	 */
+	public boolean isFeasible() {
+		return getFailure() == null;
+	}
+
+	/**
+	 * A method to register that the plan fails at a given operation for a given reason.
+	 *
+	 * @param 	failure
+	 * 			The reason of the failure.
+	 * @param 	operationIndex
+	 * 			The index of the operation at which the plan fails.
+	 *
+	 * @post	The failure and the index of the failing operation are set to the given failure and index.
+	 * 			| new.getFailure() == failure && new.getFailingOperationIndex() == operationIndex
+	 * @effect	The plan has no result.
+	 * 			| setResult(null, 0)
+	 */
+	@Model
+	protected void fail(Failure failure, int operationIndex) {
+		this.failure = failure;
+		this.failingOperationIndex = operationIndex;
+		setResult(null, 0);
+	}
+
+}
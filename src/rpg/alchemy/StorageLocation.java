@@ -2,10 +2,17 @@ package rpg.alchemy;
 
 import be.kuleuven.cs.som.annotate.*;
 import rpg.Unit;
+import rpg.exceptions.ChangeFeedGapException;
 import rpg.exceptions.IngredientNotPresentException;
+import rpg.metrics.Counter;
+import rpg.metrics.Metrics;
+import rpg.recipe.Recipe;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
 
 /**
  * A class representing a location for a storage, i.e. a location that contains
@@ -171,6 +178,8 @@ public abstract class StorageLocation {
      *          are shifted left by 1 position.
      *          | for each I in index+1..getNbOfIngredients():
      *          |   new.getIngredientAt(I-1) = getIngredientAt(I)
+     * @effect  The removal is published on the change feed.
+     *          | publishChange(ChangeEvent.Kind.INGREDIENT_REMOVED, getIngredientAt(index), null, null, 0)
      *
      * @throws  IndexOutOfBoundsException
      *          The index is negative or is bigger than the size of ingredients
@@ -180,7 +189,9 @@ public abstract class StorageLocation {
         if (index < 0 || index >= getNbOfIngredients()) {
             throw new IndexOutOfBoundsException();
         }
-        ingredients.remove(index);
+        AlchemicIngredient ingredient = ingredients.remove(index);
+        removeFromNamePartIndex(ingredient);
+        publishChange(ChangeEvent.Kind.INGREDIENT_REMOVED, ingredient, null, null, 0);
     }
 
     /**
@@ -202,6 +213,8 @@ public abstract class StorageLocation {
      *          | new.getNbOfIngredients() == getNbOfIngredients() + 1
      * @post    The given ingredient is inserted at the last index.
      *          | new.getIngredientAt(getNbOfIngredients()-1) == ingredient
+     * @effect  The addition is published on the change feed.
+     *          | publishChange(ChangeEvent.Kind.INGREDIENT_ADDED, ingredient, null, null, 0)
      *
      * @throws  IllegalArgumentException
      *          The ingredient is not valid.
@@ -221,6 +234,54 @@ public abstract class StorageLocation {
             throw new IllegalArgumentException("Ingredient already present!");
         }
         ingredients.add(ingredient);
+        addToNamePartIndex(ingredient);
+        publishChange(ChangeEvent.Kind.INGREDIENT_ADDED, ingredient, null, null, 0);
+    }
+
+    /**
+     * A method for adding an ingredient to the storage location at a given index.
+     *
+     * @param   index
+     *          The index at which the ingredient is inserted.
+     * @param   ingredient
+     *          The ingredient to add.
+     *
+     * @post    The number of ingredients registered in this storage location is
+     *          incremented with 1.
+     *          | new.getNbOfIngredients() == getNbOfIngredients() + 1
+     * @post    The given ingredient is inserted at the given index.
+     *          | new.getIngredientAt(index) == ingredient
+     * @post    All the elements at and to the right of the given index
+     *          are shifted right by 1 position.
+     *          | for each I in index..getNbOfIngredients()-1:
+     *          |   new.getIngredientAt(I+1) == getIngredientAt(I)
+     * @effect  The addition is published on the change feed.
+     *          | publishChange(ChangeEvent.Kind.INGREDIENT_ADDED, ingredient, null, null, 0)
+     *
+     * @throws  IndexOutOfBoundsException
+     *          The index is negative or is bigger than the number of ingredients.
+     *          | (index < 0) || (index > getNbOfIngredients())
+     * @throws  IllegalArgumentException
+     *          The ingredient is not valid.
+     *          | !canHaveAsIngredient(ingredient)
+     * @throws  IllegalArgumentException
+     *          The ingredient is already present.
+     *          | hasAsIngredient(ingredient)
+     */
+    @Model
+    protected void addAsIngredientAt(int index, AlchemicIngredient ingredient) throws IndexOutOfBoundsException, IllegalArgumentException {
+        if (index < 0 || index > getNbOfIngredients()) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (!canHaveAsIngredient(ingredient)) {
+            throw new IllegalArgumentException("Invalid ingredient!");
+        }
+        if (hasAsIngredient(ingredient)) {
+            throw new IllegalArgumentException("Ingredient already present!");
+        }
+        ingredients.add(index, ingredient);
+        addToNamePartIndex(ingredient);
+        publishChange(ChangeEvent.Kind.INGREDIENT_ADDED, ingredient, null, null, 0);
     }
 
     /**
@@ -359,9 +420,9 @@ public abstract class StorageLocation {
      *          |           if getIngredientAt(I).equals(container.getContent())
      *          |               then removeAsIngredient( getIngredientAt(I)) &&
      *          |                    addAsIngredient( new AlchemicIngredient(
-     *          |                       (int)((getIngredientAt(I).getSpoonAmount() +
-     *          |                           container.getContent().getSpoonAmount())/Unit.getBestUnitForStateAndSpoons(getIngredientAt(I).getState(), getIngredientAt(I).getSpoonAmount() + container.getContent().getSpoonAmount()).getSpoonEquivalent()),
-     *          |                       Unit.getBestUnitForStateAndSpoons(getIngredientAt(I).getState(), getIngredientAt(I).getSpoonAmount() + container.getContent().getSpoonAmount()),
+     *          |                       (int)((getIngredientAt(I).getBaseAmount() +
+     *          |                           container.getContent().getBaseAmount())/Unit.getBestUnitForStateAndBaseAmount(getIngredientAt(I).getState(), getIngredientAt(I).getBaseAmount() + container.getContent().getBaseAmount()).getBaseEquivalent()),
+     *          |                       Unit.getBestUnitForStateAndBaseAmount(getIngredientAt(I).getState(), getIngredientAt(I).getBaseAmount() + container.getContent().getBaseAmount()),
      *          |                       new Temperature(getIngredientAt(I).getTemperature()),
      *          |                       getIngredientAt(I).getType(),
      *          |                       getIngredientAt(I).getState()
@@ -389,9 +450,10 @@ public abstract class StorageLocation {
         try {
             // if the ingredient is already present, combine them
             AlchemicIngredient alreadyInLocation = getIngredientAt(getIndexOfIngredient(container.getContent()));
-            Unit newUnit = Unit.getBestUnitForStateAndSpoons(alreadyInLocation.getState(), alreadyInLocation.getSpoonAmount() + container.getContent().getSpoonAmount());
+            long newBaseAmount = alreadyInLocation.getBaseAmount() + container.getContent().getBaseAmount();
+            Unit newUnit = Unit.getBestUnitForStateAndBaseAmount(alreadyInLocation.getState(), newBaseAmount);
             AlchemicIngredient replacement = new AlchemicIngredient(
-                    (int)((alreadyInLocation.getSpoonAmount() + container.getContent().getSpoonAmount())/newUnit.getSpoonEquivalent()),
+                    (int) (newBaseAmount / newUnit.getBaseEquivalent()),     // exact, every unit of a state is a multiple of its smallest unit
                     newUnit,
                     new Temperature(alreadyInLocation.getTemperature()),
                     alreadyInLocation.getType(),
@@ -402,6 +464,7 @@ public abstract class StorageLocation {
             addAsIngredient(replacement);
             // terminate the old ingredient
             alreadyInLocation.terminate();
+            publishChange(ChangeEvent.Kind.INGREDIENT_MERGED, replacement, null, null, 0);
         } catch (IngredientNotPresentException e) {
             addAsIngredient(container.getContent());
         }
@@ -411,6 +474,349 @@ public abstract class StorageLocation {
 
 
 
+    /**********************************************************
+     * NAME PART INDEX
+     **********************************************************/
+
+    /**
+     * A variable referencing an index from every simple name part to the ingredients
+     * in this storage location that have that part in their simple name.
+     *
+     * @invar   Each ingredient of this storage location is indexed under each of its simple name parts.
+     *          | for each I in 0..getNbOfIngredients()-1:
+     *          |   for each part in getIngredientAt(I).getType().getName().getSimpleNameParts():
+     *          |       namePartIndex.get(part).contains(getIngredientAt(I))
+     * @invar   The index contains no empty sets.
+     *          | for each part in namePartIndex.keySet():
+     *          |   !namePartIndex.get(part).isEmpty()
+     *
+     * @note    The keys are sorted, so the ingredients with a name part starting with a given prefix
+     *          are found in a single contiguous range of keys.
+     */
+    private final TreeMap<String, Set<AlchemicIngredient>> namePartIndex = new TreeMap<>();
+
+    /**
+     * A method for registering the simple name parts of a given ingredient in the name part index.
+     *
+     * @param   ingredient
+     *          The ingredient to register.
+     */
+    @Model
+    private void addToNamePartIndex(AlchemicIngredient ingredient) {
+        for (String part : ingredient.getType().getName().getSimpleNameParts()) {
+            namePartIndex.computeIfAbsent(part, key -> Collections.newSetFromMap(new IdentityHashMap<>()))
+                    .add(ingredient);
+        }
+    }
+
+    /**
+     * A method for removing the simple name parts of a given ingredient from the name part index.
+     *
+     * @param   ingredient
+     *          The ingredient to remove.
+     */
+    @Model
+    private void removeFromNamePartIndex(AlchemicIngredient ingredient) {
+        for (String part : ingredient.getType().getName().getSimpleNameParts()) {
+            Set<AlchemicIngredient> indexed = namePartIndex.get(part);
+            if (indexed != null) {
+                indexed.remove(ingredient);
+                if (indexed.isEmpty()) {
+                    namePartIndex.remove(part);
+                }
+            }
+        }
+    }
+
+    /**
+     * A method for getting all ingredients in this storage location which have a given part in their simple name.
+     *
+     * @param   part
+     *          The simple name part to look for.
+     *
+     * @return  A new list with all ingredients in this storage location that have the given part
+     *          as one of their simple name parts.
+     *          | for each I in 0..getNbOfIngredients()-1:
+     *          |   result.contains(getIngredientAt(I)) ==
+     *          |       Arrays.asList(getIngredientAt(I).getType().getName().getSimpleNameParts()).contains(part)
+     *
+     * @note    This takes time proportional to the size of the result.
+     */
+    public List<AlchemicIngredient> getIngredientsWithNamePart(String part) {
+        Set<AlchemicIngredient> indexed = (part == null) ? null : namePartIndex.get(part);
+        if (indexed == null) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(indexed);
+    }
+
+    /**
+     * A method for getting all ingredients in this storage location which have a part
+     * starting with a given prefix in their simple name.
+     *
+     * @param   prefix
+     *          The prefix to look for.
+     *
+     * @return  A new list without duplicates, with all ingredients in this storage location that have
+     *          a simple name part starting with the given prefix.
+     *          | for each I in 0..getNbOfIngredients()-1:
+     *          |   result.contains(getIngredientAt(I)) ==
+     *          |       ( for some part in getIngredientAt(I).getType().getName().getSimpleNameParts():
+     *          |           part.startsWith(prefix) )
+     *
+     * @note    This takes time proportional to the size of the result (and logarithmic in the number of parts).
+     */
+    public List<AlchemicIngredient> getIngredientsWithNamePartPrefix(String prefix) {
+        if (prefix == null) {
+            return new ArrayList<>();
+        }
+        Set<AlchemicIngredient> result = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Map.Entry<String, Set<AlchemicIngredient>> entry : namePartIndex.tailMap(prefix, true).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            result.addAll(entry.getValue());
+        }
+        return new ArrayList<>(result);
+    }
+
+
+
+    /**********************************************************
+     * CHANGE FEED
+     **********************************************************/
+
+    /**
+     * The maximum number of change events that are buffered for a subscriber of a change feed,
+     * i.e. the default buffer size of a submission publisher.
+     */
+    public static final int CHANGE_FEED_BUFFER_SIZE = Flow.defaultBufferSize();
+
+    /**
+     * The executor that delivers the change events of all storage locations to their subscribers.
+     *
+     * @note    The change feeds have daemon threads of their own, so a slow subscriber doesn't take threads
+     *          from the common pool, which addContainers() of a laboratory with a device pool runs on.
+     */
+    private static final ExecutorService CHANGE_FEED_EXECUTOR = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "change-feed");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The number of change events that are dropped, over all subscribers of all change feeds.
+     */
+    private static final Counter CHANGE_FEED_DROPS = Metrics.counter("storage_location_change_feed_drops_total");
+
+    /**
+     * A variable referencing the publisher of the change feed of this storage location,
+     * or null if nobody asked for the change feed yet.
+     */
+    private volatile SubmissionPublisher<ChangeEvent> changeFeed = null;
+
+    /**
+     * A class for the subscriptions of a change feed, that hands the change events over to a subscriber
+     * and tells it, with a change feed gap exception, when it missed events.
+     *
+     * @note    The gap is signaled on the thread that delivers the events, right after the last event before
+     *          the gap, or at the latest instead of the next event or of the completion of the feed. The
+     *          subscription is cancelled then, so the subscriber gets nothing after the error.
+     */
+    private static class ChangeFeedSubscriber implements Flow.Subscriber<ChangeEvent> {
+
+        /**
+         * A variable referencing the subscriber to which the change events are handed over.
+         */
+        private final Flow.Subscriber<? super ChangeEvent> subscriber;
+
+        /**
+         * A variable referencing the subscription of this subscriber.
+         */
+        private Flow.Subscription subscription;
+
+        /**
+         * A variable holding the sequence number of the first change event that was dropped for this
+         * subscriber, or zero if none was dropped. It is set on the thread that publishes the changes.
+         */
+        private volatile long firstDroppedSequenceNumber = 0;
+
+        /**
+         * A variable holding the sequence number of the last change event that was handed over.
+         */
+        private long lastSequenceNumber = 0;
+
+        /**
+         * A variable holding whether the subscriber got an error or a completion.
+         */
+        private boolean isDone = false;
+
+        /**
+         * Initialize a new subscription of a change feed for the given subscriber.
+         *
+         * @throws  NullPointerException
+         *          The subscriber is null.
+         *          | subscriber == null
+         */
+        private ChangeFeedSubscriber(Flow.Subscriber<? super ChangeEvent> subscriber) {
+            if (subscriber == null) {
+                throw new NullPointerException("The subscriber is null!");
+            }
+            this.subscriber = subscriber;
+        }
+
+        /**
+         * Register that the change event with the given sequence number is dropped for this subscriber.
+         */
+        private void dropped(long sequenceNumber) {
+            if (firstDroppedSequenceNumber == 0) {
+                firstDroppedSequenceNumber = sequenceNumber;
+            }
+        }
+
+        /**
+         * Tell the subscriber that it missed events, after cancelling the subscription if it is still going on.
+         */
+        private void signalGap(boolean cancel) {
+            isDone = true;
+            if (cancel) {
+                subscription.cancel();
+            }
+            subscriber.onError(new ChangeFeedGapException(lastSequenceNumber));
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscriber.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(ChangeEvent event) {
+            if (isDone) {
+                return;
+            }
+            long firstDropped = firstDroppedSequenceNumber;
+            if (firstDropped != 0 && event.getSequenceNumber() > firstDropped) {
+                signalGap(true);
+                return;
+            }
+            lastSequenceNumber = event.getSequenceNumber();
+            subscriber.onNext(event);
+            firstDropped = firstDroppedSequenceNumber;
+            if (!isDone && firstDropped != 0 && lastSequenceNumber == firstDropped - 1) {
+                signalGap(true);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (!isDone) {
+                isDone = true;
+                subscriber.onError(throwable);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (!isDone) {
+                if (firstDroppedSequenceNumber != 0) {
+                    signalGap(false);
+                } else {
+                    isDone = true;
+                    subscriber.onComplete();
+                }
+            }
+        }
+
+    }
+
+    /**
+     * A variable holding the number of changes of this storage location.
+     */
+    private long nbOfChanges = 0;
+
+    /**
+     * Return the number of changes of this storage location, i.e. the sequence number of its last change.
+     *
+     * @note    A view can read this number together with the ingredients, and then apply only the change events
+     *          with a larger sequence number.
+     */
+    @Basic
+    public long getNbOfChanges() {
+        return nbOfChanges;
+    }
+
+    /**
+     * Return the change feed of this storage location.
+     *
+     * @return  A publisher of a change event for every change of this storage location, in order, to every
+     *          subscriber, from the moment it subscribes. Every subscriber has a buffer of at most
+     *          CHANGE_FEED_BUFFER_SIZE events and gets events as it requests them.
+     *
+     * @throws  IllegalStateException
+     *          This storage location is terminated.
+     *          | isTerminated()
+     *
+     * @note    The events are delivered asynchronously, on threads of the change feeds. When the buffer of
+     *          a subscriber is full, the next event is dropped for that subscriber right away, so a slow subscriber
+     *          never stalls this storage location. After the events that were buffered before the gap, the subscriber
+     *          gets a ChangeFeedGapException with the sequence number of the last event it got, and its subscription
+     *          is cancelled. A storage location isn't thread safe, so a view has to catch up on the thread that
+     *          changes this storage location: subscribe again, and read the ingredients together with getNbOfChanges().
+     * @note    As long as nobody subscribes, changes only count, and no events are created.
+     * @note    The feed is completed when this storage location is terminated.
+     */
+    public Flow.Publisher<ChangeEvent> getChangeFeed() throws IllegalStateException {
+        if (isTerminated()) {
+            throw new IllegalStateException("The storage location is terminated!");
+        }
+        if (changeFeed == null) {
+            synchronized (this) {
+                if (changeFeed == null) {
+                    changeFeed = new SubmissionPublisher<>(CHANGE_FEED_EXECUTOR, CHANGE_FEED_BUFFER_SIZE);
+                }
+            }
+        }
+        SubmissionPublisher<ChangeEvent> publisher = changeFeed;
+        return subscriber -> publisher.subscribe(new ChangeFeedSubscriber(subscriber));
+    }
+
+    /**
+     * A method to count a change of this storage location and publish it to the subscribers of its change feed.
+     *
+     * @param   kind
+     *          The kind of the change.
+     * @param   ingredient
+     *          The ingredient of the change, or null.
+     * @param   device
+     *          The device of the change, or null.
+     * @param   recipe
+     *          The recipe of the change, or null.
+     * @param   multiplier
+     *          The multiplier with which the recipe is executed, or zero.
+     *
+     * @post    The number of changes is incremented by one.
+     *          | new.getNbOfChanges() == getNbOfChanges() + 1
+     * @effect  If there are subscribers, a change event with the new number of changes is offered to them.
+     *          It is dropped at once for every subscriber whose buffer is full, which is then told about the gap.
+     */
+    @Model
+    protected void publishChange(ChangeEvent.Kind kind, AlchemicIngredient ingredient, Device device, Recipe recipe, int multiplier) {
+        nbOfChanges++;
+        SubmissionPublisher<ChangeEvent> publisher = changeFeed;
+        if (publisher != null && publisher.hasSubscribers()) {
+            publisher.offer(new ChangeEvent(this, nbOfChanges, kind, ingredient, device, recipe, multiplier), (subscriber, event) -> {
+                // don't retry: the subscriber is told about the gap after its buffered events
+                ((ChangeFeedSubscriber) subscriber).dropped(event.getSequenceNumber());
+                CHANGE_FEED_DROPS.increment();
+                return false;
+            });
+        }
+    }
+
+
+
     /**********************************************************
      * DESTRUCTION
      **********************************************************/
@@ -435,6 +841,7 @@ public abstract class StorageLocation {
      *          the storage location becomes terminated.
      *          | if (!isTerminated())
      *          |   then new.isTerminated() == true
+     * @effect  The change feed, if there is one, is completed.
      * @throws  IllegalStateException
      *          The storage location is already terminated.
      *          | isTerminated()
@@ -444,6 +851,9 @@ public abstract class StorageLocation {
             throw new IllegalStateException("Already terminated!");
         }
     	isTerminated = true;
+        if (changeFeed != null) {
+            changeFeed.close();
+        }
     }
 
 }
@@ -226,4 +226,35 @@ public class StorageLocationTest {
         assertTrue(lab.isTerminated());
     }
 
+    @Test
+    public void testGetIngredientsWithNamePart() {
+        kettle.addContainer(new IngredientContainer(mixedPowder));
+        kettle.addContainer(new IngredientContainer(mixedLiquid));
+        kettle.addContainer(container2);
+        assertEquals(1, kettle.getIngredientsWithNamePart("Seeds").size());
+        assertSame(mixedPowder, kettle.getIngredientsWithNamePart("Seeds").get(0));
+        assertSame(mixedLiquid, kettle.getIngredientsWithNamePart("Coke").get(0));
+        assertTrue(kettle.getIngredientsWithNamePart("Cok").isEmpty());
+        assertTrue(kettle.getIngredientsWithNamePart(null).isEmpty());
+        // the index is updated when an ingredient is removed
+        kettle.removeAsIngredient(mixedLiquid);
+        assertTrue(kettle.getIngredientsWithNamePart("Coke").isEmpty());
+        assertTrue(kettle.getIngredientsWithNamePart("Water").isEmpty());
+    }
+
+    @Test
+    public void testGetIngredientsWithNamePartPrefix() {
+        kettle.addContainer(new IngredientContainer(mixedPowder));
+        kettle.addContainer(new IngredientContainer(mixedLiquid));
+        kettle.addContainer(container2);
+        assertEquals(1, kettle.getIngredientsWithNamePartPrefix("Wat").size());
+        assertSame(mixedLiquid, kettle.getIngredientsWithNamePartPrefix("Wat").get(0));
+        assertEquals(1, kettle.getIngredientsWithNamePartPrefix("Po").size());
+        assertSame(powder, kettle.getIngredientsWithNamePartPrefix("Po").get(0));
+        assertEquals(1, kettle.getIngredientsWithNamePartPrefix("Oat").size());
+        assertSame(mixedPowder, kettle.getIngredientsWithNamePartPrefix("Oat").get(0));
+        assertEquals(3, kettle.getIngredientsWithNamePartPrefix("").size());
+        assertTrue(kettle.getIngredientsWithNamePartPrefix("Z").isEmpty());
+    }
+
 }
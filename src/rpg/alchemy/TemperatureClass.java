@@ -0,0 +1,49 @@
+package rpg.alchemy;
+
+import be.kuleuven.cs.som.annotate.*;
+
+/**
+ * An enumeration of the temperature classes of an ingredient compared to
+ * the standard temperature of its type, with the prefix used in its full name.
+ *
+ * @author	Vincent Van Schependom
+ * @author 	Arne Claerhout
+ * @author	Flor De Meulemeester
+ *
+ * @version	1.0
+ */
+public enum TemperatureClass {
+
+	/**
+	 * The possible temperature classes for an ingredient.
+	 */
+	STANDARD(""), HEATED("Heated "), COOLED("Cooled ");
+
+	/**
+	 * A variable referencing the prefix of the name of an ingredient in this temperature class.
+	 */
+	private final String prefix;
+
+	/**
+	 * Initialize a new temperature class with a given prefix.
+	 *
+	 * @param 	prefix
+	 * 			The prefix for the new temperature class.
+	 *
+	 * @post	The prefix of the new temperature class is set to the given prefix.
+	 * 			| new.getPrefix().equals(prefix)
+	 */
+	@Model
+	TemperatureClass(String prefix) {
+		this.prefix = prefix;
+	}
+
+	/**
+	 * Return the prefix of the name of an ingredient in this temperature class.
+	 */
+	@Basic @Immutable
+	public String getPrefix() {
+		return prefix;
+	}
+
+}
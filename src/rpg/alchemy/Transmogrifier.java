@@ -3,6 +3,13 @@ package rpg.alchemy;
 import be.kuleuven.cs.som.annotate.*;
 import rpg.Unit;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
 public class Transmogrifier extends Device{
 
 	/**********************************************************
@@ -38,19 +45,126 @@ public class Transmogrifier extends Device{
 	 * @effect	The only ingredient is removed and added again with the next state,
 	 * 			if conversion does not result in a spoon amount of 0.
 	 * 			| removeAsIngredient(getIngredientAt(0))
-	 * 			| && if ((int) getIngredientAt(0).getSpoonAmount() != 0)
-	 * 			|	then addAsIngredient (new AlchemicIngredient( (int) getIngredientAt(0).getSpoonAmount(),
+	 * 			| && if (getIngredientAt(0).getBaseAmount() / Unit.SPOON.getBaseEquivalent() != 0)
+	 * 			|	then addAsIngredient (new AlchemicIngredient( (int) (getIngredientAt(0).getBaseAmount() / Unit.SPOON.getBaseEquivalent()),
 	 * 			|		 Unit.SPOON, new Temperature(getIngredientAt(0).getTemperature()),
 	 * 			|		 getIngredientAt(0).getType(), getIngredientAt(0).getState().getNext() ) )
 	 */
 	@Override
 	public void executeOperation() {
+		AlchemyEvents.DeviceOperation event = new AlchemyEvents.DeviceOperation(this);
 		super.executeOperation();
 		AlchemicIngredient ing = getIngredientAt(0);
 		removeAsIngredient(ing);
-		if ((int) ing.getSpoonAmount() != 0) {
-			addAsIngredient(new AlchemicIngredient((int) ing.getSpoonAmount(), Unit.SPOON, new Temperature(ing.getTemperature()), ing.getType(), ing.getState().getNext()));
+		AlchemicIngredient result = transmogrify(ing);
+		if (result != null) {
+			addAsIngredient(result);
+		}
+		event.commit();
+	}
+
+	/**
+	 * A method for transmogrifying the contents of a collection of containers at once, without
+	 * putting them in this transmogrifier one by one.
+	 *
+	 * @param 	containers
+	 * 			The containers of which the contents should be transmogrified.
+	 *
+	 * @return	For every container, in order, a new container with its content in the next state,
+	 * 			truncated to whole spoons, with the same type and temperature. Contents of less than
+	 * 			a spoon are lost entirely and have no container in the result.
+	 * 			| result.size() == count{ C in containers | C.getContent().getBaseAmount() >= Unit.SPOON.getBaseEquivalent() }
+	 * @effect	The given containers are emptied.
+	 * 			| for each C in containers:
+	 * 			|	C.obtainContent()
+	 * @post	The amounts that are lost by the truncation are added to the truncated amount of this transmogrifier.
+	 * 			| new.getTruncatedBaseAmount() == getTruncatedBaseAmount()
+	 * 			|	+ sum{ C.getContent().getBaseAmount() % Unit.SPOON.getBaseEquivalent() | C in containers }
+	 *
+	 * @throws	NullPointerException
+	 * 			The collection or one of the containers is null.
+	 * 			| containers == null || containers.contains(null)
+	 * @throws	IllegalArgumentException
+	 * 			One of the contents can't be transmogrified.
+	 * 			| for some C in containers: !canHaveAsIngredient(C.getContent())
+	 * @throws	IllegalArgumentException
+	 * 			One of the containers is terminated or occurs more than once.
+	 * @throws	IllegalStateException
+	 * 			This transmogrifier is terminated.
+	 * 			| isTerminated()
+	 *
+	 * @note	Every container is checked before anything is transmogrified. Each content goes straight
+	 * 			from its container to its result, so no container is allocated apart from the result, and
+	 * 			the ingredient types are reused rather than created again.
+	 */
+	public List<IngredientContainer> transmogrifyAll(Collection<IngredientContainer> containers) throws NullPointerException, IllegalArgumentException, IllegalStateException {
+		if (isTerminated()) {
+			throw new IllegalStateException("The device can't be used, since the device is terminated!");
+		}
+		if (containers == null) {
+			throw new NullPointerException("The collection of containers is null!");
+		}
+		Set<IngredientContainer> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (IngredientContainer container : containers) {
+			if (container == null) {
+				throw new NullPointerException("Container is null!");
+			}
+			if (container.isTerminated() || !seen.add(container)) {
+				throw new IllegalArgumentException("The containers must not be terminated and must occur only once!");
+			}
+			if (!canHaveAsIngredient(container.getContent())) {
+				throw new IllegalArgumentException("Invalid contents in container!");
+			}
+		}
+		List<IngredientContainer> results = new ArrayList<>(containers.size());
+		for (IngredientContainer container : containers) {
+			AlchemicIngredient result = transmogrify(container.obtainContent());
+			if (result != null) {
+				results.add(new IngredientContainer(Unit.getMinUnitForContainerWithIngredient(result), result));
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Return the given ingredient in the next state, truncated to whole spoons, or null if nothing is left.
+	 *
+	 * @param 	ingredient
+	 * 			The ingredient to transmogrify.
+	 *
+	 * @post	The amount that is lost by the truncation is added to the truncated amount.
+	 * 			| new.getTruncatedBaseAmount() == getTruncatedBaseAmount() + ingredient.getBaseAmount() % Unit.SPOON.getBaseEquivalent()
+	 */
+	@Model
+	private AlchemicIngredient transmogrify(AlchemicIngredient ingredient) {
+		// the amount is truncated to whole spoons
+		int spoons = (int) (ingredient.getBaseAmount() / Unit.SPOON.getBaseEquivalent());
+		truncatedBaseAmount += ingredient.getBaseAmount() % Unit.SPOON.getBaseEquivalent();
+		if (spoons == 0) {
+			return null;
 		}
+		return new AlchemicIngredient(spoons, Unit.SPOON, new Temperature(ingredient.getTemperature()), ingredient.getType(), ingredient.getState().getNext());
+	}
+
+
+
+	/**********************************************************
+	 * TRUNCATION
+	 **********************************************************/
+
+	/**
+	 * A variable referencing the amount that is lost, in base quantities, because the
+	 * results of this transmogrifier are truncated to whole spoons.
+	 */
+	private long truncatedBaseAmount = 0;
+
+	/**
+	 * Return the amount that is lost, in base quantities, because the results of this transmogrifier
+	 * are truncated to whole spoons.
+	 */
+	@Basic
+	public long getTruncatedBaseAmount() {
+		return truncatedBaseAmount;
 	}
 
 
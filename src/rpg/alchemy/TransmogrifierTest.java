@@ -5,6 +5,9 @@ import org.junit.jupiter.api.Test;
 import rpg.State;
 import rpg.Unit;
 
+import java.util.Arrays;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class TransmogrifierTest {
@@ -30,6 +33,45 @@ public class TransmogrifierTest {
         transmogrifier = new Transmogrifier(lab);
     }
 
+    @Test
+    public void transmogrifyAllValid() {
+        AlchemicIngredient drops = new AlchemicIngredient(3, Unit.DROP, type1);
+        AlchemicIngredient ingredient3 = new AlchemicIngredient(1, Unit.SACHET, type2);
+        List<IngredientContainer> results = transmogrifier.transmogrifyAll(List.of(
+                container1, container2, new IngredientContainer(drops), new IngredientContainer(ingredient3)));
+        // 3 drops are less than a spoon
+        assertEquals(3, results.size());
+        assertEquals(State.POWDER, results.get(0).getContent().getState());
+        assertEquals(10, results.get(0).getContent().getSpoonAmount());
+        assertSame(type1, results.get(0).getContent().getType());
+        assertEquals(State.LIQUID, results.get(1).getContent().getState());
+        assertEquals(2, results.get(1).getContent().getSpoonAmount());
+        assertEquals(7, results.get(2).getContent().getSpoonAmount());
+        // 15 pinches are 2.5 spoons, 3 drops are 3/8 spoon
+        assertEquals(Unit.SPOON.getBaseEquivalent() / 2 + drops.getBaseAmount(), transmogrifier.getTruncatedBaseAmount());
+        assertTrue(container1.isTerminated());
+        assertEquals(0, transmogrifier.getNbOfIngredients());
+    }
+
+    @Test
+    public void transmogrifyAllInvalid() {
+        assertThrows(NullPointerException.class, () -> transmogrifier.transmogrifyAll(Arrays.asList(container1, null)));
+        // nothing is transmogrified
+        assertFalse(container1.isTerminated());
+        // a container that occurs twice or is terminated: nothing is transmogrified
+        assertThrows(IllegalArgumentException.class, () -> transmogrifier.transmogrifyAll(List.of(container1, container2, container1)));
+        assertFalse(container1.isTerminated());
+        assertFalse(container2.isTerminated());
+        IngredientContainer emptied = new IngredientContainer(new AlchemicIngredient(1, Unit.SPOON, type1));
+        emptied.obtainContent();
+        assertTrue(emptied.isTerminated());
+        assertThrows(IllegalArgumentException.class, () -> transmogrifier.transmogrifyAll(List.of(container1, emptied)));
+        assertFalse(container1.isTerminated());
+        assertEquals(0, transmogrifier.getTruncatedBaseAmount());
+        transmogrifier.terminate();
+        assertThrows(IllegalStateException.class, () -> transmogrifier.transmogrifyAll(List.of(container1)));
+    }
+
     @Test
     public void executeOperationValid() {
         transmogrifier.addContainer(container1);
@@ -0,0 +1,45 @@
+package rpg.exceptions;
+import be.kuleuven.cs.som.annotate.*;
+
+/**
+ * A class for signaling that a subscriber of a change feed missed change events,
+ * because its buffer was full when they were published.
+ *
+ * @invar	The sequence number of the last change event that was delivered is not negative.
+ * 			| getLastSequenceNumber() >= 0
+ *
+ * @author	Vincent Van Schependom
+ * @author 	Arne Claerhout
+ * @author	Flor De Meulemeester
+ * @version	1.0
+ */
+public class ChangeFeedGapException extends RuntimeException {
+
+	/**
+	 * A variable holding the sequence number of the last change event that was delivered.
+	 */
+	private final long lastSequenceNumber;
+
+	/**
+	 * Return the sequence number of the last change event that was delivered to the subscriber,
+	 * or zero if none was delivered. The change events after it were not all delivered.
+	 */
+	@Basic @Immutable
+	public long getLastSequenceNumber() {
+		return lastSequenceNumber;
+	}
+
+	/**
+	 * Initialize this new change feed gap exception with the given sequence number.
+	 *
+	 * @param	lastSequenceNumber
+	 * 			The sequence number of the last change event that was delivered.
+	 * @post	The sequence number of the last change event that was delivered is set to the given one.
+	 * 			| new.getLastSequenceNumber() == lastSequenceNumber
+	 */
+	public ChangeFeedGapException(long lastSequenceNumber) {
+		super("Change events after number " + lastSequenceNumber + " were dropped!");
+		this.lastSequenceNumber = lastSequenceNumber;
+	}
+
+}
@@ -0,0 +1,42 @@
+package rpg.exceptions;
+import be.kuleuven.cs.som.annotate.*;
+
+/**
+ * A class for signaling that recipes that are read are not in the expected format.
+ *
+ * @author	Vincent Van Schependom
+ * @author 	Arne Claerhout
+ * @author	Flor De Meulemeester
+ * @version	1.0
+ */
+public class IllegalRecipeFormatException extends RuntimeException {
+
+	/**
+	 * A variable referencing the number of the line at which the format is violated.
+	 */
+	private final int lineNumber;
+
+	/**
+	 * Return the number of the line at which the format is violated, starting from 1.
+	 */
+	@Basic @Immutable
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * Initialize this new illegal recipe format exception with a given line number and message.
+	 *
+	 * @param	lineNumber
+	 * 			The number of the line at which the format is violated.
+	 * @param	message
+	 * 			A description of the violation.
+	 * @post	The line number of the new exception is set to the given line number.
+	 * 			| new.getLineNumber() == lineNumber
+	 */
+	public IllegalRecipeFormatException(int lineNumber, String message) {
+		super("Line " + lineNumber + ": " + message);
+		this.lineNumber = lineNumber;
+	}
+
+}
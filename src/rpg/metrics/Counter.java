@@ -0,0 +1,103 @@
+package rpg.metrics;
+
+import be.kuleuven.cs.som.annotate.*;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A class representing a named counter that can only go up.
+ *
+ * @note	The count is kept in a LongAdder, so incrementing it never blocks and
+ * 			stays cheap when many threads count at the same time.
+ *
+ * @author	Vincent Van Schependom
+ * @author 	Arne Claerhout
+ * @author	Flor De Meulemeester
+ *
+ * @version	1.0
+ */
+public class Counter {
+
+	/**********************************************************
+	 * CONSTRUCTOR
+	 **********************************************************/
+
+	/**
+	 * A constructor for a new counter with a given name.
+	 *
+	 * @param 	name
+	 * 			The name of the new counter.
+	 *
+	 * @post	The name of the new counter is set to the given name and its count is zero.
+	 * 			| new.getName() == name && new.getCount() == 0
+	 */
+	@Raw
+	Counter(String name) {
+		this.name = name;
+	}
+
+
+
+	/**********************************************************
+	 * NAME
+	 **********************************************************/
+
+	/**
+	 * A variable referencing the name of this counter.
+	 */
+	private final String name;
+
+	/**
+	 * Return the name of this counter.
+	 */
+	@Basic @Immutable
+	public String getName() {
+		return name;
+	}
+
+
+
+	/**********************************************************
+	 * COUNT
+	 **********************************************************/
+
+	/**
+	 * A variable referencing the count of this counter.
+	 */
+	private final LongAdder count = new LongAdder();
+
+	/**
+	 * Return the count of this counter.
+	 */
+	@Basic
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * A method to increment the count of this counter with one.
+	 *
+	 * @effect	The count is incremented with one.
+	 * 			| add(1)
+	 */
+	public void increment() {
+		count.increment();
+	}
+
+	/**
+	 * A method to increment the count of this counter with a given amount.
+	 *
+	 * @param 	amount
+	 * 			The amount to add.
+	 *
+	 * @post	If the amount is positive, the count is incremented with the given amount.
+	 * 			| if (amount > 0)
+	 * 			|	then new.getCount() == getCount() + amount
+	 */
+	public void add(long amount) {
+		if (amount > 0) {
+			count.add(amount);
+		}
+	}
+
+}
@@ -0,0 +1,306 @@
+package rpg.metrics;
+
+import be.kuleuven.cs.som.annotate.*;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A class representing a named histogram of non-negative values, e.g. latencies in nanoseconds.
+ *
+ * @note	The buckets are laid out like in an HDR histogram: values below 32 have a bucket of their own,
+ * 			and every larger power of two is split in 16 buckets of equal width. Every value is therefore
+ * 			recorded with a relative error of less than 1/16, in a fixed number of buckets, and recording
+ * 			a value only increments a single slot of an atomic array, without locks or allocation.
+ *
+ * @author	Vincent Van Schependom
+ * @author 	Arne Claerhout
+ * @author	Flor De Meulemeester
+ *
+ * @version	1.0
+ */
+public class Histogram {
+
+	/**********************************************************
+	 * CONSTRUCTOR
+	 **********************************************************/
+
+	/**
+	 * A constructor for a new, empty histogram with a given name.
+	 *
+	 * @param 	name
+	 * 			The name of the new histogram.
+	 *
+	 * @post	The name of the new histogram is set to the given name and it has no values.
+	 * 			| new.getName() == name && new.getSnapshot().getCount() == 0
+	 */
+	@Raw
+	Histogram(String name) {
+		this.name = name;
+	}
+
+
+
+	/**********************************************************
+	 * NAME
+	 **********************************************************/
+
+	/**
+	 * A variable referencing the name of this histogram.
+	 */
+	private final String name;
+
+	/**
+	 * Return the name of this histogram.
+	 */
+	@Basic @Immutable
+	public String getName() {
+		return name;
+	}
+
+
+
+	/**********************************************************
+	 * BUCKETS
+	 **********************************************************/
+
+	/**
+	 * The number of bits of a value that determine its bucket.
+	 */
+	private static final int SUB_BUCKET_BITS = 4;
+
+	/**
+	 * The number of buckets per power of two.
+	 */
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * The number of buckets, enough for every non-negative long.
+	 */
+	static final int NB_OF_BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+	/**
+	 * Return the index of the bucket of the given value.
+	 *
+	 * @param 	value
+	 * 			The value, which must not be negative.
+	 */
+	@Model
+	static int getBucketIndex(long value) {
+		if (value < 2 * SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS - 1;
+		return shift * SUB_BUCKET_COUNT + (int) (value >>> shift);
+	}
+
+	/**
+	 * Return the largest value that falls in the bucket with the given index.
+	 *
+	 * @param 	index
+	 * 			The index of the bucket.
+	 */
+	@Model
+	static long getHighestValueInBucket(int index) {
+		if (index < 2 * SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = index / SUB_BUCKET_COUNT - 1;
+		long subBucket = (index % SUB_BUCKET_COUNT) + SUB_BUCKET_COUNT;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+	/**
+	 * A variable referencing the number of values per bucket.
+	 */
+	private final AtomicLongArray buckets = new AtomicLongArray(NB_OF_BUCKETS);
+
+	/**
+	 * A variable referencing the number of values.
+	 */
+	private final LongAdder count = new LongAdder();
+
+	/**
+	 * A variable referencing the sum of the values.
+	 */
+	private final LongAdder sum = new LongAdder();
+
+	/**
+	 * A variable referencing the smallest value.
+	 */
+	private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+
+	/**
+	 * A variable referencing the largest value.
+	 */
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * A method to record a value in this histogram.
+	 *
+	 * @param 	value
+	 * 			The value to record.
+	 *
+	 * @post	The value is recorded; a negative value is recorded as zero.
+	 */
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		buckets.incrementAndGet(getBucketIndex(value));
+		count.increment();
+		sum.add(value);
+		min.accumulate(value);
+		max.accumulate(value);
+	}
+
+	/**
+	 * A method to record the time that has passed since a given moment, in nanoseconds.
+	 *
+	 * @param 	startNanos
+	 * 			The moment, as returned by System.nanoTime().
+	 *
+	 * @effect	The time that has passed is recorded.
+	 * 			| record(System.nanoTime() - startNanos)
+	 */
+	public void recordSince(long startNanos) {
+		record(System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * Return a snapshot of the values of this histogram.
+	 *
+	 * @note	Values that are recorded while the snapshot is taken may be only partly included,
+	 * 			e.g. in the count but not yet in the buckets.
+	 */
+	public Snapshot getSnapshot() {
+		long[] counts = new long[NB_OF_BUCKETS];
+		for (int i = 0; i < NB_OF_BUCKETS; i++) {
+			counts[i] = buckets.get(i);
+		}
+		long currentCount = count.sum();
+		return new Snapshot(name, counts, currentCount, sum.sum(),
+				currentCount == 0 ? 0 : min.get(), max.get());
+	}
+
+
+
+	/**********************************************************
+	 * SNAPSHOT
+	 **********************************************************/
+
+	/**
+	 * A class representing the values of a histogram at a given moment.
+	 */
+	public static class Snapshot {
+
+		/**
+		 * A constructor for a new snapshot.
+		 */
+		@Raw
+		private Snapshot(String name, long[] counts, long count, long sum, long min, long max) {
+			this.name = name;
+			this.counts = counts;
+			this.count = count;
+			this.sum = sum;
+			this.min = min;
+			this.max = max;
+		}
+
+		private final String name;
+		private final long[] counts;
+		private final long count;
+		private final long sum;
+		private final long min;
+		private final long max;
+
+		/**
+		 * Return the name of the histogram.
+		 */
+		@Basic @Immutable
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Return the number of values.
+		 */
+		@Basic @Immutable
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * Return the sum of the values.
+		 */
+		@Basic @Immutable
+		public long getSum() {
+			return sum;
+		}
+
+		/**
+		 * Return the smallest value, or zero if there are no values.
+		 */
+		@Basic @Immutable
+		public long getMin() {
+			return min;
+		}
+
+		/**
+		 * Return the largest value, or zero if there are no values.
+		 */
+		@Basic @Immutable
+		public long getMax() {
+			return max;
+		}
+
+		/**
+		 * Return the mean of the values, or zero if there are no values.
+		 *
+		 * @return	| if (getCount() == 0)
+		 * 			|	then result == 0
+		 * 			|	else result == (double) getSum() / getCount()
+		 */
+		public double getMean() {
+			return count == 0 ? 0 : (double) sum / count;
+		}
+
+		/**
+		 * Return the value at the given percentile, or zero if there are no values.
+		 *
+		 * @param 	percentile
+		 * 			The percentile, between 0 and 100.
+		 *
+		 * @return	The largest value of the first bucket at which at least the given percentage
+		 * 			of the values is reached, but never more than the largest value.
+		 *
+		 * @throws	IllegalArgumentException
+		 * 			The percentile is not between 0 and 100.
+		 * 			| percentile < 0 || percentile > 100
+		 */
+		public long getValueAtPercentile(double percentile) throws IllegalArgumentException {
+			if (percentile < 0 || percentile > 100) {
+				throw new IllegalArgumentException("The percentile must be between 0 and 100.");
+			}
+			long total = 0;
+			for (long bucketCount : counts) {
+				total += bucketCount;
+			}
+			if (total == 0) {
+				return 0;
+			}
+			long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+			long seen = 0;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= rank) {
+					return Math.min(getHighestValueInBucket(i), max);
+				}
+			}
+			return max;
+		}
+
+	}
+
+}
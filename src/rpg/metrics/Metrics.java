@@ -0,0 +1,106 @@
+package rpg.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A class holding the counters and histograms of the application, by name.
+ *
+ * @note	Instrumented classes look up their counters and histograms once, in a static field,
+ * 			so the hot paths only touch a LongAdder or an atomic array and never this registry.
+ * @note	Names follow the Prometheus conventions (lower case, words separated by underscores,
+ * 			a unit as suffix), so the text dump can be scraped as is.
+ *
+ * @author	Vincent Van Schependom
+ * @author 	Arne Claerhout
+ * @author	Flor De Meulemeester
+ *
+ * @version	1.0
+ */
+public final class Metrics {
+
+	/**
+	 * Metrics can't be instantiated.
+	 */
+	private Metrics() {
+	}
+
+	/**
+	 * A variable referencing the registered counters, per name.
+	 */
+	private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+	/**
+	 * A variable referencing the registered histograms, per name.
+	 */
+	private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+	/**
+	 * Return the counter with the given name, registering it if there is none yet.
+	 *
+	 * @param 	name
+	 * 			The name of the counter.
+	 *
+	 * @return	The same counter for the same name.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			The name is not valid.
+	 * 			| !isValidName(name)
+	 */
+	public static Counter counter(String name) throws IllegalArgumentException {
+		if (!isValidName(name)) {
+			throw new IllegalArgumentException("Invalid metric name: " + name);
+		}
+		return counters.computeIfAbsent(name, Counter::new);
+	}
+
+	/**
+	 * Return the histogram with the given name, registering it if there is none yet.
+	 *
+	 * @param 	name
+	 * 			The name of the histogram.
+	 *
+	 * @return	The same histogram for the same name.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			The name is not valid.
+	 * 			| !isValidName(name)
+	 */
+	public static Histogram histogram(String name) throws IllegalArgumentException {
+		if (!isValidName(name)) {
+			throw new IllegalArgumentException("Invalid metric name: " + name);
+		}
+		return histograms.computeIfAbsent(name, Histogram::new);
+	}
+
+	/**
+	 * Check whether the given name is a valid name for a metric.
+	 *
+	 * @param 	name
+	 * 			The name to check.
+	 *
+	 * @return	True if and only if the name is effective, not empty, and only consists of
+	 * 			lower case letters, digits and underscores, starting with a letter.
+	 * 			| result == (name != null && name.matches("[a-z][a-z0-9_]*"))
+	 */
+	public static boolean isValidName(String name) {
+		return name != null && name.matches("[a-z][a-z0-9_]*");
+	}
+
+	/**
+	 * Return a snapshot of all counters and histograms.
+	 */
+	public static MetricsSnapshot getSnapshot() {
+		return new MetricsSnapshot(counters.values(), histograms.values());
+	}
+
+	/**
+	 * Return all counters and histograms in the Prometheus text format.
+	 *
+	 * @return	| result.equals(getSnapshot().toString())
+	 */
+	public static String dump() {
+		return getSnapshot().toString();
+	}
+
+}
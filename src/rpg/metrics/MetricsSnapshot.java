@@ -0,0 +1,109 @@
+package rpg.metrics;
+
+import be.kuleuven.cs.som.annotate.*;
+
+import java.util.*;
+
+/**
+ * A class representing the values of all counters and histograms at a given moment.
+ *
+ * @author	Vincent Van Schependom
+ * @author 	Arne Claerhout
+ * @author	Flor De Meulemeester
+ *
+ * @version	1.0
+ */
+public class MetricsSnapshot {
+
+	/**
+	 * The percentiles of every histogram that are written in the text format.
+	 */
+	private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+	/**
+	 * A constructor for a new snapshot of the given counters and histograms.
+	 *
+	 * @param 	counters
+	 * 			The counters.
+	 * @param 	histograms
+	 * 			The histograms.
+	 */
+	@Raw
+	MetricsSnapshot(Collection<Counter> counters, Collection<Histogram> histograms) {
+		for (Counter counter : counters) {
+			this.counts.put(counter.getName(), counter.getCount());
+		}
+		for (Histogram histogram : histograms) {
+			this.histograms.put(histogram.getName(), histogram.getSnapshot());
+		}
+	}
+
+	/**
+	 * A variable referencing the counts of the counters, per name, sorted by name.
+	 */
+	private final SortedMap<String, Long> counts = new TreeMap<>();
+
+	/**
+	 * A variable referencing the snapshots of the histograms, per name, sorted by name.
+	 */
+	private final SortedMap<String, Histogram.Snapshot> histograms = new TreeMap<>();
+
+	/**
+	 * Return the names of the counters, sorted.
+	 */
+	public Set<String> getCounterNames() {
+		return Collections.unmodifiableSet(counts.keySet());
+	}
+
+	/**
+	 * Return the count of the counter with the given name, or zero if there is no such counter.
+	 *
+	 * @param 	name
+	 * 			The name of the counter.
+	 */
+	public long getCount(String name) {
+		return counts.getOrDefault(name, 0L);
+	}
+
+	/**
+	 * Return the names of the histograms, sorted.
+	 */
+	public Set<String> getHistogramNames() {
+		return Collections.unmodifiableSet(histograms.keySet());
+	}
+
+	/**
+	 * Return the snapshot of the histogram with the given name, or null if there is no such histogram.
+	 *
+	 * @param 	name
+	 * 			The name of the histogram.
+	 */
+	public Histogram.Snapshot getHistogram(String name) {
+		return histograms.get(name);
+	}
+
+	/**
+	 * Return this snapshot in the Prometheus text format: every counter as a counter,
+	 * and every histogram as a summary with a few percentiles, its sum and its count.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder();
+		for (Map.Entry<String, Long> counter : counts.entrySet()) {
+			text.append("# TYPE ").append(counter.getKey()).append(" counter\n");
+			text.append(counter.getKey()).append(' ').append(counter.getValue()).append('\n');
+		}
+		for (Histogram.Snapshot histogram : histograms.values()) {
+			String name = histogram.getName();
+			text.append("# TYPE ").append(name).append(" summary\n");
+			for (double percentile : PERCENTILES) {
+				text.append(name).append("{quantile=\"").append(percentile / 100).append("\"} ")
+						.append(histogram.getValueAtPercentile(percentile)).append('\n');
+			}
+			text.append(name).append("_sum ").append(histogram.getSum()).append('\n');
+			text.append(name).append("_count ").append(histogram.getCount()).append('\n');
+		}
+		return text.toString();
+	}
+
+}
@@ -0,0 +1,83 @@
+package rpg.metrics;
+
+import org.junit.jupiter.api.*;
+import rpg.State;
+import rpg.Unit;
+import rpg.alchemy.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A JUnit 5 test class for testing the non-private methods of the metrics classes.
+ *
+ * @author  Vincent Van Schependom
+ * @author 	Arne Claerhout
+ * @author	Flor De Meulemeester
+ *
+ * @version 1.0
+ */
+public class MetricsTest {
+
+	@Test
+	public void testCounter() {
+		Counter counter = Metrics.counter("test_counter_total");
+		long before = counter.getCount();
+		counter.increment();
+		counter.add(5);
+		counter.add(-3);
+		assertEquals(before + 6, counter.getCount());
+		assertSame(counter, Metrics.counter("test_counter_total"));
+		assertThrows(IllegalArgumentException.class, () -> Metrics.counter("Not.Valid"));
+	}
+
+	@Test
+	public void testBuckets() {
+		for (long value : new long[]{0, 1, 31, 32, 33, 100, 1000, 123456789, Long.MAX_VALUE}) {
+			int index = Histogram.getBucketIndex(value);
+			assertTrue(index >= 0 && index < Histogram.NB_OF_BUCKETS);
+			long highest = Histogram.getHighestValueInBucket(index);
+			assertTrue(highest >= value);
+			// the relative error is less than 1/16
+			assertTrue(highest - value <= value / 16);
+		}
+	}
+
+	@Test
+	public void testHistogram() {
+		Histogram histogram = new Histogram("test_histogram");
+		assertEquals(0, histogram.getSnapshot().getValueAtPercentile(50));
+		for (int value = 1; value <= 1000; value++) {
+			histogram.record(value);
+		}
+		histogram.record(-5);
+		Histogram.Snapshot snapshot = histogram.getSnapshot();
+		assertEquals(1001, snapshot.getCount());
+		assertEquals(500500, snapshot.getSum());
+		assertEquals(0, snapshot.getMin());
+		assertEquals(1000, snapshot.getMax());
+		assertEquals(500, snapshot.getValueAtPercentile(50), 500 / 16);
+		assertEquals(990, snapshot.getValueAtPercentile(99), 990 / 16);
+		assertEquals(1000, snapshot.getValueAtPercentile(100));
+		assertThrows(IllegalArgumentException.class, () -> snapshot.getValueAtPercentile(101));
+	}
+
+	@Test
+	public void testLaboratoryMetrics() {
+		Laboratory lab = new Laboratory(1);
+		long rejections = Metrics.getSnapshot().getCount("laboratory_capacity_rejections_total");
+		for (String name : new String[]{"Name", "Nameezg", "Nameazrvnoiaerv", "Nameajernva", "Nameaeerjnjaerv"}) {
+			IngredientType type = new IngredientType(new Name(null, name), State.POWDER, new Temperature(0, 20), false);
+			lab.addContainer(new IngredientContainer(new AlchemicIngredient(1, Unit.CHEST, type)));
+		}
+		IngredientType type = new IngredientType(new Name(null, "Nameaerlrjkfn"), State.POWDER, new Temperature(0, 20), false);
+		IngredientContainer container = new IngredientContainer(new AlchemicIngredient(1, Unit.CHEST, type));
+		assertThrows(IllegalArgumentException.class, () -> lab.addContainer(container));
+		MetricsSnapshot snapshot = Metrics.getSnapshot();
+		assertEquals(rejections + 1, snapshot.getCount("laboratory_capacity_rejections_total"));
+		assertTrue(snapshot.getHistogram("laboratory_add_container_nanos").getCount() >= 5);
+		String dump = Metrics.dump();
+		assertTrue(dump.contains("# TYPE laboratory_capacity_rejections_total counter\n"));
+		assertTrue(dump.contains("laboratory_execute_mix_nanos_count "));
+	}
+
+}
@@ -4,6 +4,7 @@ import be.kuleuven.cs.som.annotate.*;
 import rpg.alchemy.AlchemicIngredient;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 
 /**
@@ -38,6 +39,33 @@ public class Recipe {
         super();
     }
 
+    /**
+     * A constructor for creating a new recipe with a given, already validated, instruction set.
+     *
+     * @param   ingredients
+     *          The ingredients of the recipe, in the order in which they are added.
+     * @param   operations
+     *          The operations of the recipe.
+     *
+     * @pre     The instruction set is valid.
+     *          | isValidInstructionSet(ingredients, operations)
+     * @post    The ingredients and operations of the new recipe are the given ones.
+     *          | for each I in 0..operations.size()-1:
+     *          |   new.getOperationAt(I) == operations.get(I)
+     *          | && for each I in 0..ingredients.size()-1:
+     *          |   new.getIngredientAt(I) == ingredients.get(I)
+     *
+     * @note    This constructor is only to be used by readers that validate the instructions
+     *          themselves while reading them, so they don't have to be validated one by one again.
+     */
+    @Raw
+    Recipe(List<AlchemicIngredient> ingredients, List<Operation> operations) {
+        this.ingredients.addAll(ingredients);
+        this.operations.addAll(operations);
+        this.operationSet.addAll(operations);
+        this.hasValidInstructionSet = !operations.isEmpty();
+    }
+
 
 
     /**********************************************************
@@ -55,6 +83,17 @@ public class Recipe {
      */
     private final List<Operation> operations = new ArrayList<Operation>();
 
+    /**
+     * A variable referencing the operations that occur in this recipe.
+     *
+     * @invar   operationSet references an effective set.
+     *          | operationSet != null
+     * @invar   An operation is in the set if and only if it occurs in the list of operations.
+     *          | for each operation in Operation.values():
+     *          |   operationSet.contains(operation) == operations.contains(operation)
+     */
+    private final EnumSet<Operation> operationSet = EnumSet.noneOf(Operation.class);
+
     /**
      * A method for getting the length of operations of a recipe.
      */
@@ -93,18 +132,7 @@ public class Recipe {
      */
     public boolean hasAsOperation(Operation operation) {
         if (operation == null) return false;
-        // @invar   "i" is not negative and isn't equal to or doesn't exceed the number
-        //          of operations;
-        //          | (  (0 <= i)
-        //          | && (i < getNbOfOperations())  )
-        // @variant The distance between "i" and the number of operations
-        //          | getNbOfOperations()-i
-        for (int i=0; i<getNbOfOperations(); i++) {
-            if (getOperationAt(i) == operation) {
-                return true;
-            }
-        }
-        return false;
+        return operationSet.contains(operation);
     }
 
     /**
@@ -134,6 +162,7 @@ public class Recipe {
     private void addAsOperation(Operation operation) {
         if (isValidOperation(operation)) {
             operations.add(operation);
+            operationSet.add(operation);
         }
     }
 
@@ -268,6 +297,10 @@ public class Recipe {
         if (ingredients == null || operations == null) {
             return false;
         }
+        // the instruction set of this recipe is kept valid while it grows
+        if (ingredients == getIngredients() && operations == getOperations()) {
+            return hasValidInstructionSet();
+        }
         int nbOfAdds = 0;
         // check if first operation is an add
         if (getOperationAt(0) != Operation.ADD) {
@@ -288,6 +321,33 @@ public class Recipe {
         return ingredients.size() == nbOfAdds;
     }
 
+    /**
+     * A variable referencing whether the order of the instructions of this recipe is valid.
+     *
+     * @note    Instructions are only appended, and only if they are valid, so the order of the instructions
+     *          is valid as soon as there is a first instruction, which is always an add. An ingredient can
+     *          still be terminated afterwards, so that is checked on every call of hasValidInstructionSet().
+     */
+    private boolean hasValidInstructionSet = false;
+
+    /**
+     * Return whether the instruction set of this recipe is valid.
+     *
+     * @return  True if and only if the instruction set of this recipe is valid.
+     *          | result == isValidInstructionSet(getIngredients(), getOperations())
+     */
+    public boolean hasValidInstructionSet() {
+        if (!hasValidInstructionSet) {
+            return false;
+        }
+        for (AlchemicIngredient ingredient : ingredients) {
+            if (ingredient.isTerminated()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * A method for checking if a certain instruction is valid.
      *
@@ -297,9 +357,9 @@ public class Recipe {
      *          The operation to check.
      *
      * @return  If the current number of operations is 0, the result is true if and only if
-     *          the operation is an add operation.
+     *          the operation is an add operation and the ingredient is not null and not terminated.
      *          | if (getNbOfOperations() == 0)
-     *          |   then result == (operation == Operation.ADD)
+     *          |   then result == (operation == Operation.ADD && ingredient != null && !ingredient.isTerminated())
      * @return  If the current number of operations is not 0, the result is true if and only if
      *          the operation is an add operation and the ingredient is not null and not terminated,
      *          or the operation is not an add operation and the ingredient is null.
@@ -308,11 +368,11 @@ public class Recipe {
      *          |       (operation != null && operation != Operation.ADD && ingredient == null) )
      */
     public boolean isValidInstruction(AlchemicIngredient ingredient, Operation operation) {
+        boolean isValidAdd = operation == Operation.ADD && ingredient != null && !ingredient.isTerminated();
         if (getNbOfOperations() == 0) {
-            return operation == Operation.ADD;
+            return isValidAdd;
         } else {
-            return ((operation == Operation.ADD && ingredient != null && !ingredient.isTerminated()) ||
-                    (operation != null && operation != Operation.ADD && ingredient == null));
+            return isValidAdd || (operation != null && operation != Operation.ADD && ingredient == null);
         }
     }
 
@@ -342,6 +402,10 @@ public class Recipe {
                 addAsIngredient(ingredient);
             }
             addAsOperation(operation);
+            hasValidInstructionSet = true;
+            for (RecipeBook recipeBook : recipeBooks) {
+                recipeBook.updateIndexesFor(this, ingredient, operation);
+            }
         }
     }
 
@@ -363,6 +427,44 @@ public class Recipe {
 
 
 
+    /**********************************************************
+     * Recipe books
+     **********************************************************/
+
+    /**
+     * A variable referencing the recipe books in which this recipe is written,
+     * so that they can keep their indexes up to date when an instruction is added.
+     */
+    private final List<RecipeBook> recipeBooks = new ArrayList<>();
+
+    /**
+     * A method for registering a recipe book in which this recipe is written.
+     *
+     * @param   recipeBook
+     *          The recipe book.
+     *
+     * @note    This method is only to be used by RecipeBook.addAsRecipe().
+     */
+    @Model
+    void addRecipeBook(RecipeBook recipeBook) {
+        recipeBooks.add(recipeBook);
+    }
+
+    /**
+     * A method for unregistering a recipe book from which this recipe is removed.
+     *
+     * @param   recipeBook
+     *          The recipe book.
+     *
+     * @note    This method is only to be used by RecipeBook.removeAsRecipe().
+     */
+    @Model
+    void removeRecipeBook(RecipeBook recipeBook) {
+        recipeBooks.remove(recipeBook);
+    }
+
+
+
     /**********************************************************
      * EQUALS
      **********************************************************/
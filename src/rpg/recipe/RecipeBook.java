@@ -1,9 +1,10 @@
 package rpg.recipe;
 
 import be.kuleuven.cs.som.annotate.*;
+import rpg.alchemy.AlchemicIngredient;
+import rpg.alchemy.Name;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 /**
  * A class representing a recipeBook.
@@ -94,8 +95,12 @@ public class RecipeBook {
      *          |   then new.getRecipeAt(getNbOfRecipes()-1) == recipe
      */
     public void addAsRecipe(Recipe recipe) {
-        if (canHaveAsRecipe(recipe) && !hasAsRecipe(recipe) && recipe != null) {
+        if (recipe != null && !hasAsRecipe(recipe) && canHaveAsRecipe(recipe)) {
+            indices.put(recipe, recipes.size());
             recipes.add(recipe);
+            addToIndexes(recipe);
+            recipe.addRecipeBook(this);
+            nbOfModifications++;
         }
     }
 
@@ -111,14 +116,35 @@ public class RecipeBook {
      *          | if hasAsRecipe()
      *          |   then new.getRecipeAt(getIndexOfRecipe(recipe)) == null
      *
+     * @note    The indices of the other recipes don't change. The torn out pages are only removed
+     *          by compact(), e.g. when getNbOfTornOutPages() becomes large.
      */
     public void removeAsRecipe(Recipe recipe) {
         if (hasAsRecipe(recipe) ) {
             // set the recipe to null, "the page is torn out"
-            recipes.set(getIndexOfRecipe(recipe), null);
+            recipes.set(indices.remove(recipe), null);
+            nbOfTornOutPages++;
+            removeFromIndexes(recipe);
+            recipe.removeRecipeBook(this);
+            nbOfModifications++;
         }
     }
 
+    /**
+     * A variable referencing the number of torn out pages of this recipe book.
+     */
+    private int nbOfTornOutPages = 0;
+
+    /**
+     * Return the number of torn out pages of this recipe book.
+     *
+     * @return  | result == count{ I in 0..getNbOfRecipes()-1 | getRecipeAt(I) == null }
+     */
+    @Basic
+    public int getNbOfTornOutPages() {
+        return nbOfTornOutPages;
+    }
+
     /**
      * Return the number of recipes in a recipe book.
      */
@@ -143,12 +169,7 @@ public class RecipeBook {
      */
     public boolean hasAsRecipe(Recipe recipe) {
         if (recipe == null) return false;
-        for (int i=0; i<getNbOfRecipes(); i++) {
-            if (getRecipeAt(i) == recipe) {
-                return true;
-            }
-        }
-        return false;
+        return indices.containsKey(recipe);
     }
 
     /**
@@ -181,12 +202,8 @@ public class RecipeBook {
      */
     @Basic
     public int getIndexOfRecipe(Recipe recipe) {
-        for (int i = 0; i < getNbOfRecipes(); i++) {
-            if (getRecipeAt(i) == recipe) return i;
-        }
-        // this should never happen
-        assert false;
-        return -1;
+        Integer index = (recipe == null) ? null : indices.get(recipe);
+        return (index == null) ? -1 : index;
     }
 
     /**
@@ -226,6 +243,10 @@ public class RecipeBook {
      */
     @Raw @Model
     private boolean containsRecipeTwice(Recipe recipe) {
+        // a recipe that is not indexed is not in this recipe book at all
+        if (!hasAsRecipe(recipe)) {
+            return false;
+        }
         int count = 0;
         for (int i=0; i<getNbOfRecipes(); i++) {
             if (getRecipeAt(i) == recipe) {
@@ -236,4 +257,298 @@ public class RecipeBook {
     }
 
 
+
+    /**********************************************************
+     * Indexes
+     **********************************************************/
+
+    /**
+     * A variable referencing the number of times this recipe book, or a recipe in it, has changed.
+     */
+    private int nbOfModifications = 0;
+
+    /**
+     * Return the number of times this recipe book, or a recipe in it, has changed.
+     *
+     * @note    Views on this recipe book compare this number to know whether they are still up-to-date.
+     */
+    @Basic
+    public int getNbOfModifications() {
+        return nbOfModifications;
+    }
+
+    /**
+     * A variable referencing the index of each recipe in this recipe book.
+     *
+     * @invar   Each recipe in the recipe book is mapped on its index.
+     *          | for each I in 0..getNbOfRecipes()-1:
+     *          |   if (getRecipeAt(I) != null)
+     *          |       then indices.get(getRecipeAt(I)) == I
+     * @note    Recipes don't override equals(Object), so this map compares the recipes by reference,
+     *          just like the recipe book does.
+     */
+    private final Map<Recipe, Integer> indices = new IdentityHashMap<>();
+
+    /**
+     * A variable referencing the recipes in this recipe book per simple name of an ingredient they add.
+     */
+    private final Map<String, Set<Recipe>> recipesByIngredient = new HashMap<>();
+
+    /**
+     * A variable referencing the recipes in this recipe book per operation they use.
+     */
+    private final Map<Operation, Set<Recipe>> recipesByOperation = new EnumMap<>(Operation.class);
+
+    /**
+     * A variable referencing the recipes in this recipe book per simple name of the mix they produce.
+     */
+    private final Map<String, Set<Recipe>> recipesByResult = new HashMap<>();
+
+    /**
+     * A variable referencing the simple name of the mix each recipe in this recipe book produces.
+     */
+    private final Map<Recipe, String> resultNames = new IdentityHashMap<>();
+
+    /**
+     * A variable referencing the simple name parts of the ingredients of each recipe in this recipe book,
+     * i.e. the simple name parts of the mix it produces.
+     */
+    private final Map<Recipe, Set<String>> resultNameParts = new IdentityHashMap<>();
+
+    /**
+     * Return the recipes in this recipe book that add an ingredient with the given simple name,
+     * in the order of their pages.
+     *
+     * @param   simpleName
+     *          The simple name of the ingredient.
+     *
+     * @return  The recipes in this recipe book with an ingredient with the given simple name.
+     *          | for each recipe in result:
+     *          |   hasAsRecipe(recipe) && (for some I in 0..recipe.getNbOfIngredients()-1:
+     *          |       recipe.getIngredientAt(I).getSimpleName().equals(simpleName))
+     */
+    public List<Recipe> getRecipesWithIngredient(String simpleName) {
+        return getRecipesIn(recipesByIngredient.get(simpleName));
+    }
+
+    /**
+     * Return the recipes in this recipe book that use the given operation, in the order of their pages.
+     *
+     * @param   operation
+     *          The operation.
+     *
+     * @return  The recipes in this recipe book that use the given operation.
+     *          | for each recipe in result:
+     *          |   hasAsRecipe(recipe) && recipe.hasAsOperation(operation)
+     */
+    public List<Recipe> getRecipesWithOperation(Operation operation) {
+        return getRecipesIn((operation == null) ? null : recipesByOperation.get(operation));
+    }
+
+    /**
+     * Return the recipes in this recipe book that produce a mix with the given simple name,
+     * in the order of their pages.
+     *
+     * @param   simpleName
+     *          The simple name of the mix.
+     *
+     * @return  The recipes in this recipe book that produce a mix with the given simple name.
+     *          | for each recipe in result:
+     *          |   hasAsRecipe(recipe) && simpleName.equals(getResultNameOf(recipe))
+     */
+    public List<Recipe> getRecipesProducing(String simpleName) {
+        return getRecipesIn(recipesByResult.get(simpleName));
+    }
+
+    /**
+     * Return the simple name of the mix that the given recipe produces, or null if it has no ingredients.
+     *
+     * @param   recipe
+     *          The recipe.
+     *
+     * @return  The simple name that the kettle gives to a mix of all the simple name parts
+     *          of the ingredients of the recipe, since every mix ends up in the final one.
+     *
+     * @note    The name is computed like Kettle.getNewName() does.
+     */
+    public static String getResultNameOf(Recipe recipe) {
+        return getResultNameOf(getResultNamePartsOf(recipe));
+    }
+
+    /**
+     * Return the simple name parts of the ingredients of the given recipe.
+     */
+    @Model
+    private static Set<String> getResultNamePartsOf(Recipe recipe) {
+        Set<String> parts = new HashSet<>();
+        for (int i = 0; i < recipe.getNbOfIngredients(); i++) {
+            parts.addAll(Arrays.asList(recipe.getIngredientAt(i).getType().getName().getSimpleNameParts()));
+        }
+        return parts;
+    }
+
+    /**
+     * Return the simple name of a mix with the given simple name parts, or null if there are none.
+     */
+    @Model
+    private static String getResultNameOf(Set<String> parts) {
+        if (parts.isEmpty()) {
+            return null;
+        }
+        try {
+            return new Name(null, parts.toArray(new String[0])).getSimpleName();
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            // the kettle can't name this mix either
+            return null;
+        }
+    }
+
+    /**
+     * A method for removing the torn out pages from this recipe book.
+     *
+     * @post    The recipe book has no torn out pages.
+     *          | for each I in 0..new.getNbOfRecipes()-1:
+     *          |   new.getRecipeAt(I) != null
+     * @post    The recipes keep their order.
+     *          | for each recipe in recipes:
+     *          |   if (hasAsRecipe(recipe) && hasAsRecipe(other) && getIndexOfRecipe(recipe) < getIndexOfRecipe(other))
+     *          |       then new.getIndexOfRecipe(recipe) < new.getIndexOfRecipe(other)
+     *
+     * @note    The indices of the recipes after a torn out page change.
+     */
+    public void compact() {
+        int nbOfRecipes = 0;
+        for (int i = 0; i < getNbOfRecipes(); i++) {
+            Recipe recipe = recipes.get(i);
+            if (recipe != null) {
+                recipes.set(nbOfRecipes, recipe);
+                indices.put(recipe, nbOfRecipes);
+                nbOfRecipes++;
+            }
+        }
+        recipes.subList(nbOfRecipes, getNbOfRecipes()).clear();
+        nbOfTornOutPages = 0;
+        nbOfModifications++;
+    }
+
+    /**
+     * A method for updating the indexes after an instruction is added to a recipe in this recipe book.
+     *
+     * @param   recipe
+     *          The recipe to which the instruction is added.
+     * @param   ingredient
+     *          The ingredient of the instruction, or null.
+     * @param   operation
+     *          The operation of the instruction.
+     *
+     * @note    Recipes only grow at the end, so the recipe can be indexed incrementally. The name of
+     *          the mix only changes, and is only computed again, if the ingredient brings a new simple name part.
+     */
+    @Model
+    void updateIndexesFor(Recipe recipe, AlchemicIngredient ingredient, Operation operation) {
+        nbOfModifications++;
+        recipesByOperation.computeIfAbsent(operation, key -> new LinkedHashSet<>()).add(recipe);
+        if (ingredient != null) {
+            recipesByIngredient.computeIfAbsent(ingredient.getSimpleName(), key -> new LinkedHashSet<>()).add(recipe);
+            Set<String> parts = resultNameParts.get(recipe);
+            if (parts.addAll(Arrays.asList(ingredient.getType().getName().getSimpleNameParts()))) {
+                removeFromIndex(recipesByResult, resultNames.remove(recipe), recipe);
+                addResultName(recipe, getResultNameOf(parts));
+            }
+        }
+    }
+
+    /**
+     * A method for adding a recipe to the indexes of this recipe book.
+     *
+     * @param   recipe
+     *          The recipe to index.
+     */
+    @Model
+    private void addToIndexes(Recipe recipe) {
+        for (int i = 0; i < recipe.getNbOfOperations(); i++) {
+            recipesByOperation.computeIfAbsent(recipe.getOperationAt(i), key -> new LinkedHashSet<>()).add(recipe);
+        }
+        for (int i = 0; i < recipe.getNbOfIngredients(); i++) {
+            recipesByIngredient.computeIfAbsent(recipe.getIngredientAt(i).getSimpleName(), key -> new LinkedHashSet<>()).add(recipe);
+        }
+        Set<String> parts = getResultNamePartsOf(recipe);
+        resultNameParts.put(recipe, parts);
+        addResultName(recipe, getResultNameOf(parts));
+    }
+
+    /**
+     * A method for removing a recipe from the indexes of this recipe book.
+     *
+     * @param   recipe
+     *          The recipe to remove.
+     */
+    @Model
+    private void removeFromIndexes(Recipe recipe) {
+        for (int i = 0; i < recipe.getNbOfOperations(); i++) {
+            removeFromIndex(recipesByOperation, recipe.getOperationAt(i), recipe);
+        }
+        for (int i = 0; i < recipe.getNbOfIngredients(); i++) {
+            removeFromIndex(recipesByIngredient, recipe.getIngredientAt(i).getSimpleName(), recipe);
+        }
+        removeFromIndex(recipesByResult, resultNames.remove(recipe), recipe);
+        resultNameParts.remove(recipe);
+    }
+
+    /**
+     * A method for registering the simple name of the mix the given recipe produces.
+     *
+     * @param   recipe
+     *          The recipe.
+     * @param   resultName
+     *          The simple name of the mix, or null if it has none.
+     */
+    @Model
+    private void addResultName(Recipe recipe, String resultName) {
+        if (resultName != null) {
+            resultNames.put(recipe, resultName);
+            recipesByResult.computeIfAbsent(resultName, key -> new LinkedHashSet<>()).add(recipe);
+        }
+    }
+
+    /**
+     * A method for removing a recipe from the entry for a given key of a given index.
+     *
+     * @param   index
+     *          The index.
+     * @param   key
+     *          The key, or null.
+     * @param   recipe
+     *          The recipe to remove.
+     */
+    @Model
+    private static <K> void removeFromIndex(Map<K, Set<Recipe>> index, K key, Recipe recipe) {
+        if (key == null) {
+            return;
+        }
+        Set<Recipe> recipesForKey = index.get(key);
+        if (recipesForKey != null) {
+            recipesForKey.remove(recipe);
+            if (recipesForKey.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Return the recipes in the given set, in the order of their pages.
+     *
+     * @param   recipesForKey
+     *          The set, or null.
+     */
+    @Model
+    private List<Recipe> getRecipesIn(Set<Recipe> recipesForKey) {
+        if (recipesForKey == null) {
+            return new ArrayList<>();
+        }
+        List<Recipe> result = new ArrayList<>(recipesForKey);
+        result.sort(Comparator.comparingInt(this::getIndexOfRecipe));
+        return result;
+    }
+
 }
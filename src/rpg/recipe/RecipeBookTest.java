@@ -9,7 +9,13 @@ import rpg.alchemy.AlchemicIngredient;
 import rpg.alchemy.IngredientType;
 import rpg.alchemy.Temperature;
 
+import rpg.exceptions.IllegalRecipeFormatException;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -129,5 +135,158 @@ public class RecipeBookTest {
         assertTrue(recipe1.equals(rb.getRecipeAt(0)));
     }
 
+    @Test
+    public void indexes() {
+        RecipeBook rb = new RecipeBook();
+        Recipe recipe3 = new Recipe();
+        recipe3.addAsInstruction(new AlchemicIngredient(1, Unit.BOTTLE,
+                new Temperature(0, 20), type, State.LIQUID), Operation.ADD);
+        rb.addAsRecipe(recipe1);
+        rb.addAsRecipe(recipe3);
+        rb.addAsRecipe(recipe2);
+        assertEquals(List.of(recipe1, recipe3, recipe2), rb.getRecipesWithIngredient("Beer"));
+        assertEquals(List.of(recipe1, recipe2), rb.getRecipesWithIngredient("Water"));
+        assertEquals(List.of(recipe1, recipe2), rb.getRecipesWithOperation(Operation.HEAT));
+        assertTrue(rb.getRecipesWithIngredient("Coke").isEmpty());
+        assertTrue(rb.getRecipesWithOperation(null).isEmpty());
+        assertEquals("Beer", RecipeBook.getResultNameOf(recipe3));
+        assertEquals(List.of(recipe1, recipe2), rb.getRecipesProducing(RecipeBook.getResultNameOf(recipe1)));
+        assertEquals(List.of(recipe3), rb.getRecipesProducing("Beer"));
+
+        // the indexes follow the instructions that are added afterwards
+        recipe3.addAsInstruction(new AlchemicIngredient(1, Unit.SACHET,
+                new Temperature(20, 0), type2, State.POWDER), Operation.ADD);
+        recipe3.addAsInstruction(Operation.HEAT);
+        assertEquals(List.of(recipe1, recipe3, recipe2), rb.getRecipesWithIngredient("Water"));
+        assertEquals(List.of(recipe1, recipe3, recipe2), rb.getRecipesWithOperation(Operation.HEAT));
+        assertEquals(List.of(recipe1, recipe3, recipe2), rb.getRecipesProducing(RecipeBook.getResultNameOf(recipe1)));
+        assertTrue(rb.getRecipesProducing("Beer").isEmpty());
+
+        rb.removeAsRecipe(recipe1);
+        assertFalse(rb.hasAsRecipe(recipe1));
+        assertEquals(-1, rb.getIndexOfRecipe(recipe1));
+        assertEquals(List.of(recipe3, recipe2), rb.getRecipesWithIngredient("Beer"));
+        // a removed recipe is no longer indexed
+        recipe1.addAsInstruction(Operation.HEAT);
+        assertEquals(List.of(recipe3, recipe2), rb.getRecipesWithOperation(Operation.HEAT));
+    }
+
+    @Test
+    public void compact() {
+        RecipeBook rb = new RecipeBook();
+        Recipe recipe3 = new Recipe();
+        recipe3.addAsInstruction(new AlchemicIngredient(1, Unit.BOTTLE,
+                new Temperature(0, 20), type, State.LIQUID), Operation.ADD);
+        rb.addAsRecipe(recipe1);
+        rb.addAsRecipe(recipe2);
+        rb.addAsRecipe(recipe3);
+        rb.removeAsRecipe(recipe1);
+        rb.compact();
+        assertEquals(2, rb.getNbOfRecipes());
+        assertSame(recipe2, rb.getRecipeAt(0));
+        assertSame(recipe3, rb.getRecipeAt(1));
+        assertEquals(0, rb.getIndexOfRecipe(recipe2));
+        assertEquals(1, rb.getIndexOfRecipe(recipe3));
+        assertTrue(rb.hasProperRecipes());
+        rb.addAsRecipe(recipe1);
+        assertEquals(2, rb.getIndexOfRecipe(recipe1));
+        assertEquals(List.of(recipe2, recipe3, recipe1), rb.getRecipesWithIngredient("Beer"));
+    }
+
+    @Test
+    public void removeAsRecipeKeepsPages() {
+        RecipeBook rb = new RecipeBook();
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Recipe recipe = new Recipe();
+            recipe.addAsInstruction(new AlchemicIngredient(1, Unit.BOTTLE,
+                    new Temperature(0, 20), type, State.LIQUID), Operation.ADD);
+            rb.addAsRecipe(recipe);
+            recipes.add(recipe);
+        }
+        // a caller that walks the pages and tears most of them out doesn't skip any
+        for (int i = 0; i < rb.getNbOfRecipes(); i++) {
+            if (i % 10 != 0) {
+                rb.removeAsRecipe(rb.getRecipeAt(i));
+                assertNull(rb.getRecipeAt(i));
+            }
+        }
+        assertEquals(100, rb.getNbOfRecipes());
+        assertEquals(90, rb.getNbOfTornOutPages());
+        assertEquals(50, rb.getIndexOfRecipe(recipes.get(50)));
+        // only compact() removes the torn out pages
+        rb.compact();
+        assertEquals(10, rb.getNbOfRecipes());
+        assertEquals(0, rb.getNbOfTornOutPages());
+        assertEquals(5, rb.getIndexOfRecipe(recipes.get(50)));
+        assertTrue(rb.hasProperRecipes());
+    }
+
+    @Test
+    public void writeAndReadRecipeBook() throws IOException {
+        RecipeBook rb = new RecipeBook();
+        rb.addAsRecipe(recipe1);
+        rb.addAsRecipe(recipe2);
+        StringWriter out = new StringWriter();
+        try (RecipeWriter writer = new RecipeWriter(out)) {
+            writer.writeRecipeBook(rb);
+        }
+
+        RecipeBook copy = new RecipeBook();
+        try (RecipeReader reader = new RecipeReader(new StringReader(out.toString()))) {
+            reader.readInto(copy);
+        }
+        assertEquals(2, copy.getNbOfRecipes());
+        Recipe copy1 = copy.getRecipeAt(0);
+        Recipe copy2 = copy.getRecipeAt(1);
+        assertEquals(recipe1.getNbOfOperations(), copy1.getNbOfOperations());
+        assertEquals(recipe2.getNbOfIngredients(), copy2.getNbOfIngredients());
+        for (int i = 0; i < recipe2.getNbOfOperations(); i++) {
+            assertEquals(recipe2.getOperationAt(i), copy2.getOperationAt(i));
+        }
+        for (int i = 0; i < recipe2.getNbOfIngredients(); i++) {
+            AlchemicIngredient original = recipe2.getIngredientAt(i);
+            AlchemicIngredient read = copy2.getIngredientAt(i);
+            assertEquals(original.getBaseAmount(), read.getBaseAmount());
+            assertEquals(original.getUnit(), read.getUnit());
+            assertEquals(original.getState(), read.getState());
+            assertArrayEquals(original.getTemperature(), read.getTemperature());
+            assertEquals(original.getFullName(), read.getFullName());
+        }
+        // the ingredient types are interned
+        assertSame(copy1.getIngredientAt(0).getType(), copy2.getIngredientAt(0).getType());
+        assertSame(copy2.getIngredientAt(1).getType(), copy2.getIngredientAt(2).getType());
+    }
+
+    @Test
+    public void readRecipeIllegalFormat() throws IOException {
+        assertThrows(IllegalRecipeFormatException.class, () -> new RecipeReader(new StringReader("RECIPE\nEND\n")));
+        RecipeReader reader = new RecipeReader(new StringReader("RECIPES\t1\nRECIPE\nMIX\nEND\n"));
+        IllegalRecipeFormatException e = assertThrows(IllegalRecipeFormatException.class, reader::readRecipe);
+        assertEquals(3, e.getLineNumber());
+        reader = new RecipeReader(new StringReader("RECIPES\t1\nRECIPE\nADD\t1\tSPOON\t0\t20\tLIQUID\t0\nEND\n"));
+        assertThrows(IllegalRecipeFormatException.class, reader::readRecipe);
+        reader = new RecipeReader(new StringReader("RECIPES\t1\n"));
+        assertNull(reader.readRecipe());
+    }
+
+    @Test
+    public void readRecipeIllegalNumbersAndNames() throws IOException {
+        String type = "TYPE\t0\tLIQUID\t0\t20\t0\t\tBeer\n";
+        // an invalid special name
+        RecipeReader reader = new RecipeReader(new StringReader("RECIPES\t1\nTYPE\t0\tLIQUID\t0\t20\t1\tbad$name\tBeer\tWater\n"));
+        IllegalRecipeFormatException e = assertThrows(IllegalRecipeFormatException.class, reader::readRecipe);
+        assertEquals(2, e.getLineNumber());
+        // numbers that don't fit in an int don't wrap around
+        reader = new RecipeReader(new StringReader("RECIPES\t1\nTYPE\t4294967296\tLIQUID\t0\t20\t0\t\tBeer\n"));
+        assertThrows(IllegalRecipeFormatException.class, reader::readRecipe);
+        reader = new RecipeReader(new StringReader("RECIPES\t1\n" + type + "RECIPE\nADD\t4294967297\tSPOON\t0\t20\tLIQUID\t0\nEND\n"));
+        e = assertThrows(IllegalRecipeFormatException.class, reader::readRecipe);
+        assertEquals(4, e.getLineNumber());
+        reader = new RecipeReader(new StringReader("RECIPES\t1\n" + type + "RECIPE\nADD\t1\tSPOON\t0\t20\tLIQUID\t4294967296\nEND\n"));
+        assertThrows(IllegalRecipeFormatException.class, reader::readRecipe);
+        reader = new RecipeReader(new StringReader("RECIPES\t1\n" + type + "RECIPE\nADD\t1\tSPOON\t0\t20\tLIQUID\t0\nEND\n"));
+        assertEquals(1, reader.readRecipe().getNbOfIngredients());
+    }
 
 }
@@ -0,0 +1,283 @@
+package rpg.recipe;
+
+import be.kuleuven.cs.som.annotate.*;
+import rpg.State;
+import rpg.Unit;
+import rpg.alchemy.AlchemicIngredient;
+import rpg.alchemy.IngredientType;
+import rpg.alchemy.Name;
+import rpg.alchemy.Temperature;
+import rpg.exceptions.IllegalNameException;
+import rpg.exceptions.IllegalRecipeFormatException;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * A class for reading recipes from a character stream, one recipe at a time, in the format
+ * that is written by RecipeWriter.
+ *
+ * @note    Every line is validated once, while it is read, so the recipes are built without
+ *          validating their instructions one by one again. Only the recipe that is being read is
+ *          kept in memory, so recipe books of any size can be streamed.
+ * @note    Ingredient types are interned: all ingredients with the same type description in the
+ *          stream share a single ingredient type.
+ *
+ * @author	Vincent Van Schependom
+ * @author 	Arne Claerhout
+ * @author 	Flor De Meulemeester
+ * @version 1.0
+ */
+public class RecipeReader implements Closeable {
+
+    /**
+     * The first line of every stream of recipes: the name and the version of the format.
+     */
+    static final String HEADER = "RECIPES\t1";
+
+    /**********************************************************
+     * Constructor
+     **********************************************************/
+
+    /**
+     * A constructor for a new recipe reader that reads from a given character stream.
+     *
+     * @param   reader
+     *          The character stream to read from.
+     *
+     * @throws  IOException
+     *          The header can't be read.
+     * @throws  IllegalRecipeFormatException
+     *          The stream doesn't start with the header.
+     * @throws  NullPointerException
+     *          The given reader is not effective.
+     *          | reader == null
+     */
+    public RecipeReader(Reader reader) throws IOException, IllegalRecipeFormatException, NullPointerException {
+        if (reader == null) {
+            throw new NullPointerException("The reader must be effective.");
+        }
+        this.reader = (reader instanceof BufferedReader) ? (BufferedReader) reader : new BufferedReader(reader);
+        if (!HEADER.equals(nextLine())) {
+            throw new IllegalRecipeFormatException(lineNumber, "Expected the header " + HEADER.replace('\t', ' ') + ".");
+        }
+    }
+
+
+
+    /**********************************************************
+     * Reading
+     **********************************************************/
+
+    /**
+     * A variable referencing the character stream that is read from.
+     */
+    private final BufferedReader reader;
+
+    /**
+     * A variable referencing the number of the last line that is read.
+     */
+    private int lineNumber = 0;
+
+    /**
+     * A variable referencing the ingredient types that are read, per id.
+     */
+    private final Map<Integer, IngredientType> types = new HashMap<>();
+
+    /**
+     * A variable referencing the ingredient types that are read, per description.
+     */
+    private final Map<String, IngredientType> internedTypes = new HashMap<>();
+
+    /**
+     * A method for reading the next recipe.
+     *
+     * @return  The next recipe in the stream, or null if there are no more recipes.
+     *
+     * @throws  IOException
+     *          The stream can't be read.
+     * @throws  IllegalRecipeFormatException
+     *          The stream is not in the expected format, or it describes an invalid recipe.
+     */
+    public Recipe readRecipe() throws IOException, IllegalRecipeFormatException {
+        String line = nextLine();
+        // the types that are used by the recipe come first
+        while (line != null && line.startsWith("TYPE\t")) {
+            readType(line);
+            line = nextLine();
+        }
+        if (line == null) {
+            return null;
+        }
+        if (!line.equals("RECIPE")) {
+            throw new IllegalRecipeFormatException(lineNumber, "Expected a recipe.");
+        }
+        List<AlchemicIngredient> ingredients = new ArrayList<>();
+        List<Operation> operations = new ArrayList<>();
+        while (true) {
+            line = nextLine();
+            if (line == null) {
+                throw new IllegalRecipeFormatException(lineNumber, "The recipe is not ended.");
+            }
+            if (line.equals("END")) {
+                if (operations.isEmpty()) {
+                    throw new IllegalRecipeFormatException(lineNumber, "A recipe needs at least one instruction.");
+                }
+                return new Recipe(ingredients, operations);
+            }
+            String[] fields = line.split("\t", -1);
+            Operation operation = parseEnum(Operation.class, fields[0]);
+            // the first operation must be an add (cfr. Recipe.isValidInstruction())
+            if (operations.isEmpty() && operation != Operation.ADD) {
+                throw new IllegalRecipeFormatException(lineNumber, "A recipe must start with ADD.");
+            }
+            if (operation == Operation.ADD) {
+                ingredients.add(parseIngredient(fields));
+            } else if (fields.length != 1) {
+                throw new IllegalRecipeFormatException(lineNumber, "Only ADD takes an ingredient.");
+            }
+            operations.add(operation);
+        }
+    }
+
+    /**
+     * A method for reading all remaining recipes into a recipe book.
+     *
+     * @param   recipeBook
+     *          The recipe book to add the recipes to.
+     *
+     * @effect  Every remaining recipe is read and added to the recipe book.
+     *          | while ((recipe = readRecipe()) != null)
+     *          |   recipeBook.addAsRecipe(recipe)
+     */
+    public void readInto(RecipeBook recipeBook) throws IOException, IllegalRecipeFormatException {
+        Recipe recipe;
+        while ((recipe = readRecipe()) != null) {
+            recipeBook.addAsRecipe(recipe);
+        }
+    }
+
+    /**
+     * A method for reading an ingredient type from a given line.
+     *
+     * @param   line
+     *          The line that describes the type.
+     */
+    @Model
+    private void readType(String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length < 8) {
+            throw new IllegalRecipeFormatException(lineNumber, "Incomplete ingredient type.");
+        }
+        int id = parseInt(fields[1]);
+        if (types.containsKey(id)) {
+            throw new IllegalRecipeFormatException(lineNumber, "The ingredient type " + id + " is already defined.");
+        }
+        // everything after the id describes the type
+        String description = line.substring(fields[0].length() + fields[1].length() + 2);
+        IngredientType type = internedTypes.get(description);
+        if (type == null) {
+            State standardState = parseEnum(State.class, fields[2]);
+            Temperature standardTemperature = new Temperature(parseLong(fields[3]), parseLong(fields[4]));
+            boolean isMixed = fields[5].equals("1");
+            String specialName = fields[6].isEmpty() ? null : fields[6];
+            try {
+                Name name = new Name(specialName, Arrays.copyOfRange(fields, 7, fields.length));
+                type = new IngredientType(name, standardState, standardTemperature, isMixed);
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                throw new IllegalRecipeFormatException(lineNumber, "Invalid ingredient type: " + e.getMessage());
+            } catch (IllegalNameException e) {
+                throw new IllegalRecipeFormatException(lineNumber, "Invalid special name " + e.getName() + ".");
+            }
+            internedTypes.put(description, type);
+        }
+        types.put(id, type);
+    }
+
+    /**
+     * Return the ingredient that is described by the given fields of an ADD line.
+     *
+     * @param   fields
+     *          The fields of the line.
+     */
+    @Model
+    private AlchemicIngredient parseIngredient(String[] fields) {
+        if (fields.length != 7) {
+            throw new IllegalRecipeFormatException(lineNumber, "ADD takes an amount, a unit, a temperature, a state and a type.");
+        }
+        int amount = parseInt(fields[1]);
+        Unit unit = parseEnum(Unit.class, fields[2]);
+        Temperature temperature = new Temperature(parseLong(fields[3]), parseLong(fields[4]));
+        State state = parseEnum(State.class, fields[5]);
+        IngredientType type = types.get(parseInt(fields[6]));
+        if (type == null) {
+            throw new IllegalRecipeFormatException(lineNumber, "Unknown ingredient type " + fields[6] + ".");
+        }
+        if (!unit.hasAsAllowedState(state)) {
+            throw new IllegalRecipeFormatException(lineNumber, "The unit " + unit + " is not allowed for " + state + ".");
+        }
+        try {
+            return new AlchemicIngredient(amount, unit, temperature, type, state);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new IllegalRecipeFormatException(lineNumber, "Invalid ingredient: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Return the value of the given enumeration with the given name.
+     */
+    @Model
+    private <E extends Enum<E>> E parseEnum(Class<E> enumeration, String name) {
+        try {
+            return Enum.valueOf(enumeration, name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalRecipeFormatException(lineNumber, "Unknown " + enumeration.getSimpleName() + " " + name + ".");
+        }
+    }
+
+    /**
+     * Return the number in the given field, which has to fit in an int.
+     */
+    @Model
+    private int parseInt(String field) {
+        try {
+            return Integer.parseInt(field);
+        } catch (NumberFormatException e) {
+            throw new IllegalRecipeFormatException(lineNumber, "Expected a number from " + Integer.MIN_VALUE
+                    + " to " + Integer.MAX_VALUE + " instead of " + field + ".");
+        }
+    }
+
+    /**
+     * Return the number in the given field.
+     */
+    @Model
+    private long parseLong(String field) {
+        try {
+            return Long.parseLong(field);
+        } catch (NumberFormatException e) {
+            throw new IllegalRecipeFormatException(lineNumber, "Expected a number instead of " + field + ".");
+        }
+    }
+
+    /**
+     * Return the next line of the stream, or null at the end of the stream.
+     */
+    @Model
+    private String nextLine() throws IOException {
+        String line = reader.readLine();
+        if (line != null) {
+            lineNumber++;
+        }
+        return line;
+    }
+
+    /**
+     * A method for closing the character stream.
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+}
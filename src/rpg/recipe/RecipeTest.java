@@ -111,4 +111,46 @@ public class RecipeTest {
         assertEquals(preMadeRecipe.getNbOfOperations(), 10);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testaddAsInstructionInvalidCase4() {
+        // an empty recipe doesn't become valid by adding nothing
+        Recipe recipe = new Recipe();
+        recipe.addAsInstruction(Operation.ADD);
+        assertEquals(0, recipe.getNbOfOperations());
+        assertFalse(recipe.hasValidInstructionSet());
+        assertFalse(recipe.hasAsOperation(Operation.ADD));
+        recipe.addAsInstruction(ingredientsSetUp.get(0), Operation.ADD);
+        assertTrue(recipe.hasValidInstructionSet());
+        // an ingredient that is terminated later on makes the instruction set invalid
+        ingredientsSetUp.get(0).terminate();
+        assertFalse(recipe.hasValidInstructionSet());
+    }
+
+    @Test
+    public void testHasAsOperation() {
+        Recipe recipe = new Recipe();
+        assertFalse(recipe.hasAsOperation(Operation.ADD));
+        recipe.addAsInstruction(Operation.HEAT);
+        assertFalse(recipe.hasAsOperation(Operation.HEAT));
+        recipe.addAsInstruction(ingredientsSetUp.get(0), Operation.ADD);
+        recipe.addAsInstruction(Operation.COOL);
+        assertTrue(recipe.hasAsOperation(Operation.ADD));
+        assertTrue(recipe.hasAsOperation(Operation.COOL));
+        assertFalse(recipe.hasAsOperation(Operation.HEAT));
+        assertFalse(recipe.hasAsOperation(Operation.MIX));
+        assertFalse(recipe.hasAsOperation(null));
+        assertTrue(preMadeRecipe.hasAsOperation(Operation.MIX));
+    }
+
+    @Test
+    public void testHasValidInstructionSet() {
+        Recipe recipe = new Recipe();
+        assertFalse(recipe.hasValidInstructionSet());
+        recipe.addAsInstruction(Operation.MIX);
+        assertFalse(recipe.hasValidInstructionSet());
+        recipe.addAsInstruction(ingredientsSetUp.get(0), Operation.ADD);
+        assertTrue(recipe.hasValidInstructionSet());
+        assertTrue(preMadeRecipe.hasValidInstructionSet());
+    }
+
+}
@@ -0,0 +1,187 @@
+package rpg.recipe;
+
+import be.kuleuven.cs.som.annotate.*;
+import rpg.alchemy.AlchemicIngredient;
+import rpg.alchemy.IngredientType;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A class for writing recipes to a character stream, one recipe at a time, in the format
+ * that is read by RecipeReader.
+ *
+ * @note    The format is line based, with tab separated fields:
+ *          <pre>
+ *          RECIPES  1
+ *          TYPE     id  standardState  standardColdness  standardHotness  mixed  specialName  part...
+ *          RECIPE
+ *          ADD      amount  unit  coldness  hotness  state  typeId
+ *          HEAT | COOL | MIX
+ *          END
+ *          </pre>
+ *          Every ingredient type is written once, just before the first recipe that uses it,
+ *          and is referred to by its id afterwards. Names can't contain tabs or line breaks
+ *          (cfr. Name.isValidName()), so they don't have to be escaped. An empty special name
+ *          means there is no special name.
+ *
+ * @author	Vincent Van Schependom
+ * @author 	Arne Claerhout
+ * @author 	Flor De Meulemeester
+ * @version 1.0
+ */
+public class RecipeWriter implements Closeable, Flushable {
+
+    /**********************************************************
+     * Constructor
+     **********************************************************/
+
+    /**
+     * A constructor for a new recipe writer that writes to a given character stream.
+     *
+     * @param   writer
+     *          The character stream to write to.
+     *
+     * @throws  IOException
+     *          The header can't be written.
+     * @throws  NullPointerException
+     *          The given writer is not effective.
+     *          | writer == null
+     */
+    public RecipeWriter(Writer writer) throws IOException, NullPointerException {
+        if (writer == null) {
+            throw new NullPointerException("The writer must be effective.");
+        }
+        this.writer = (writer instanceof BufferedWriter) ? (BufferedWriter) writer : new BufferedWriter(writer);
+        this.writer.write(RecipeReader.HEADER);
+        this.writer.newLine();
+    }
+
+
+
+    /**********************************************************
+     * Writing
+     **********************************************************/
+
+    /**
+     * A variable referencing the character stream that is written to.
+     */
+    private final BufferedWriter writer;
+
+    /**
+     * A variable referencing the ids of the ingredient types that are already written,
+     * per description of the type.
+     */
+    private final Map<String, Integer> typeIds = new HashMap<>();
+
+    /**
+     * A method for writing a recipe.
+     *
+     * @param   recipe
+     *          The recipe to write.
+     *
+     * @throws  IOException
+     *          The recipe can't be written.
+     * @throws  NullPointerException
+     *          The given recipe is not effective.
+     *          | recipe == null
+     */
+    public void writeRecipe(Recipe recipe) throws IOException, NullPointerException {
+        if (recipe == null) {
+            throw new NullPointerException("The recipe must be effective.");
+        }
+        // the types that are new must be known before the recipe starts
+        for (int i = 0; i < recipe.getNbOfIngredients(); i++) {
+            getTypeId(recipe.getIngredientAt(i).getType());
+        }
+        writer.write("RECIPE");
+        writer.newLine();
+        int addCounter = 0;
+        for (int i = 0; i < recipe.getNbOfOperations(); i++) {
+            Operation operation = recipe.getOperationAt(i);
+            writer.write(operation.name());
+            if (operation == Operation.ADD) {
+                AlchemicIngredient ingredient = recipe.getIngredientAt(addCounter++);
+                writer.write('\t' + Integer.toString(ingredient.getAmount()));
+                writer.write('\t' + ingredient.getUnit().name());
+                writer.write('\t' + Long.toString(ingredient.getColdness()));
+                writer.write('\t' + Long.toString(ingredient.getHotness()));
+                writer.write('\t' + ingredient.getState().name());
+                writer.write('\t' + Integer.toString(getTypeId(ingredient.getType())));
+            }
+            writer.newLine();
+        }
+        writer.write("END");
+        writer.newLine();
+    }
+
+    /**
+     * A method for writing all recipes of a recipe book, in the order of their pages.
+     *
+     * @param   recipeBook
+     *          The recipe book to write.
+     *
+     * @effect  Every recipe in the recipe book is written; torn out pages are skipped.
+     *          | for each I in 0..recipeBook.getNbOfRecipes()-1:
+     *          |   if (recipeBook.getRecipeAt(I) != null)
+     *          |       then writeRecipe(recipeBook.getRecipeAt(I))
+     *
+     * @throws  IOException
+     *          The recipes can't be written.
+     */
+    public void writeRecipeBook(RecipeBook recipeBook) throws IOException {
+        for (int i = 0; i < recipeBook.getNbOfRecipes(); i++) {
+            Recipe recipe = recipeBook.getRecipeAt(i);
+            if (recipe != null) {
+                writeRecipe(recipe);
+            }
+        }
+    }
+
+    /**
+     * Return the id of the given ingredient type, writing the type first if it is new.
+     *
+     * @param   type
+     *          The ingredient type.
+     */
+    @Model
+    private int getTypeId(IngredientType type) throws IOException {
+        StringBuilder description = new StringBuilder();
+        description.append(type.getStandardState().name());
+        description.append('\t').append(type.getStandardTemperature()[0]);
+        description.append('\t').append(type.getStandardTemperature()[1]);
+        description.append('\t').append(type.isMixed() ? 1 : 0);
+        String specialName = type.getName().getSpecialName();
+        description.append('\t').append(specialName == null ? "" : specialName);
+        for (String part : type.getName().getSimpleNameParts()) {
+            description.append('\t').append(part);
+        }
+        String key = description.toString();
+        Integer id = typeIds.get(key);
+        if (id == null) {
+            id = typeIds.size();
+            typeIds.put(key, id);
+            writer.write("TYPE\t" + id + '\t' + key);
+            writer.newLine();
+        }
+        return id;
+    }
+
+    /**
+     * A method for flushing the character stream.
+     */
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * A method for closing the character stream.
+     */
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+}